@@ -5,6 +5,7 @@ import controller.RunSimulationHandler;
 import exception.NoAccessException;
 import java.awt.Frame;
 import javax.swing.JFrame;
+import javax.swing.JOptionPane;
 
 /**
  * This frame is the UI for the create project use case
@@ -164,10 +165,18 @@ public class RunSimulationFrame extends javax.swing.JFrame {
     }//GEN-LAST:event_createTaskSimulatorButtonActionPerformed
     
     /**
-     * The carry out simulation button is pressed
+     * The carry out simulation button is pressed. The simulation stays open
+     * if its changes can't be carried out, so it can still be ended.
+     * 
      * @param evt 
      */
     private void carryOutSimulationButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_carryOutSimulationButtonActionPerformed
+        try {
+            handler.carryOutSimulation();
+        } catch (IllegalStateException e) {
+            JOptionPane.showMessageDialog(rootPane, e.getMessage(), null, JOptionPane.ERROR_MESSAGE);
+            return;
+        }
         this.dispose();
         for(Frame frame : JFrame.getFrames()){
             if(frame instanceof MainFrame){
@@ -1,5 +1,6 @@
 package controller;
 
+import domain.Simulation;
 import domain.time.Clock;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -15,6 +16,7 @@ import java.util.logging.Logger;
 public class AdvanceSystemTimeHandler {
 
     private final Clock clock;
+    private final CommandLog log;
         
     /**
      * Initialize a new advance system time handler with the given projectContainer.
@@ -22,7 +24,18 @@ public class AdvanceSystemTimeHandler {
      * @param clock The clock to use to manipulate
      */   
     public AdvanceSystemTimeHandler(Clock clock) {
+        this(clock, CommandLog.disabled());
+    }
+        
+    /**
+     * Initialize a new advance system time handler with the given projectContainer.
+     * 
+     * @param clock The clock to use to manipulate
+     * @param log The log to record the time changes in
+     */   
+    public AdvanceSystemTimeHandler(Clock clock, CommandLog log) {
         this.clock = clock;
+        this.log = log;
     }
     
     /**
@@ -34,7 +47,16 @@ public class AdvanceSystemTimeHandler {
         try {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
             LocalDateTime time = LocalDateTime.parse(timestamp, formatter);
-            clock.advanceTime(time);
+            long logged = Simulation.LIVE.run(() -> {
+                // the time of the clock isn't undone, so it is logged first
+                if (time.isBefore(clock.getTime())) {
+                    throw new IllegalArgumentException("The given timestamp is strictly before the current system time.");
+                }
+                long position = log.advancedTime(time);
+                clock.advanceTime(time);
+                return position;
+            });
+            log.awaitWritten(logged);
         } catch (DateTimeParseException e) {
             throw new IllegalArgumentException("The provided timestamp is in the wrong format.");
         } catch (IllegalArgumentException | IllegalStateException e) {
@@ -0,0 +1,966 @@
+package controller;
+
+import domain.BranchOffice;
+import domain.Company;
+import domain.Project;
+import domain.Resource;
+import domain.ResourceContainer;
+import domain.ResourceType;
+import domain.Simulation;
+import domain.command.CreateProjectCommand;
+import domain.command.CreateTaskCommand;
+import domain.task.Task;
+import domain.time.Clock;
+import domain.time.Duration;
+import domain.time.Timespan;
+import exception.ObjectNotFoundException;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * This class represents an append-only log of the changes the handlers make
+ * to the system. When the system starts, the log is replayed on top of the
+ * initial state, so no change is lost when the system stops unexpectedly.
+ *
+ * Every change is written as a binary record, framed by its length and a
+ * checksum. Records are written to disk by a background thread that forces
+ * everything that was appended during the previous write in one go, so
+ * appending a record never waits for the disk. Every logged change returns
+ * the position its record ends at, and {@link #awaitWritten(long)} waits
+ * until the log is on disk up to that position. A change that waits for its
+ * own record after releasing the system is forced together with the changes
+ * made in the meantime. {@link #sync()} waits until all appended records are
+ * on disk.
+ *
+ * Once a write fails, the log refuses every new record. Changes are logged
+ * as part of the action that makes them (see {@link Simulation}), so a change
+ * that can't be logged anymore is undone. The changes whose records were in
+ * the failed write can't be undone, because later changes may build on them;
+ * they are reported to the ones who made them and are lost when the system
+ * restarts.
+ *
+ * Changes made during a simulation are logged together with the id of the
+ * simulation. During replay they are made in a simulation of their own, which
+ * is committed or discarded when the record that ended the simulation is
+ * reached, exactly like it was when the system ran.
+ *
+ * Projects and tasks are logged with the ids they had when they were created.
+ * Ids that change during replay are translated. Branch offices, resource
+ * types and resources are logged by their position in the initial state, so
+ * the log has to be replayed on top of the same initial state it was written
+ * on. That state is always a saved snapshot: the initial state is saved
+ * before the first log is opened, and the generation of the snapshot in the
+ * first record of the log is checked when it is replayed.
+ *
+ * The log starts with the generation of the snapshot it continues. When a new
+ * snapshot is saved, the log is started over with {@link #checkpoint(long)}.
+ * A log that continues an older snapshot than the one that was loaded is
+ * already part of that snapshot and is discarded when it is opened.
+ *
+ * @author Frederic, Mathias, Pieter-Jan
+ */
+public class CommandLog implements Closeable {
+
+    private static final byte CREATE_PROJECT = 1;
+    private static final byte CREATE_TASK = 2;
+    private static final byte PLAN_TASK = 3;
+    private static final byte FINISH_TASK = 4;
+    private static final byte FAIL_TASK = 5;
+    private static final byte EXECUTE_TASK = 6;
+    private static final byte DELEGATE_TASK = 7;
+    private static final byte ADVANCE_TIME = 8;
+    private static final byte CARRY_OUT_SIMULATION = 9;
+    private static final byte CANCEL_SIMULATION = 10;
+    private static final byte CHECKPOINT = 11;
+
+    /**
+     * The largest record that is accepted while reading the log.
+     */
+    private static final int MAX_RECORD_LENGTH = 1 << 24;
+
+    /**
+     * The session of the changes that aren't part of a simulation.
+     */
+    private static final int NO_SIMULATION = 0;
+
+    private final Company company;
+    private final Writer writer;
+    private final int session;
+    private boolean ended;
+
+    private CommandLog(Company company, Writer writer, int session) {
+        this.company = company;
+        this.writer = writer;
+        this.session = session;
+    }
+
+    /**
+     * @return A command log that doesn't write anything.
+     */
+    public static CommandLog disabled() {
+        return new CommandLog(null, null, NO_SIMULATION);
+    }
+
+    /**
+     * Opens the command log in the given file on top of a company that
+     * wasn't loaded from a snapshot.
+     *
+     * @param file The file to log to.
+     * @param company The company to apply and log the changes of.
+     * @param clock The system clock.
+     * @return A command log appending to the given file.
+     * @throws IOException The file can't be read or written.
+     * @throws IllegalStateException A change in the log can't be applied to
+     * the given company.
+     * @see #open(Path, Company, Clock, long)
+     */
+    public static CommandLog open(Path file, Company company, Clock clock) throws IOException, IllegalStateException {
+        return open(file, company, clock, 0);
+    }
+
+    /**
+     * Opens the command log in the given file. All changes in the log are
+     * applied to the given company and clock before new changes are
+     * appended. A partially written record at the end of the file is
+     * discarded, but a damaged record that is followed by others is
+     * reported. Simulations that were still running when the log was
+     * closed are cancelled, and their cancellation is logged before
+     * anything else.
+     *
+     * @param file The file to log to.
+     * @param company The company to apply and log the changes of.
+     * @param clock The system clock.
+     * @param generation The generation of the snapshot the company was loaded
+     * from, 0 if it wasn't loaded from a snapshot.
+     * @return A command log appending to the given file.
+     * @throws IOException The file can't be read or written.
+     * @throws IllegalStateException A change in the log can't be applied to
+     * the given company, a record before the end of the log is damaged or
+     * the log continues a newer snapshot.
+     */
+    public static CommandLog open(Path file, Company company, Clock clock, long generation) throws IOException, IllegalStateException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            Replay replay = new Replay(company, clock, generation);
+            long end = replay.apply(new BufferedInputStream(Channels.newInputStream(channel)), channel.size());
+            channel.truncate(end);
+            channel.position(end);
+            if (end == 0) {
+                write(channel, checkpointFrame(generation));
+            }
+            for (int session : replay.cancelRunningSimulations()) {
+                write(channel, new Record(CANCEL_SIMULATION).toFrame(session));
+            }
+            if (channel.position() > end) {
+                channel.force(false);
+            }
+            return new CommandLog(company, new Writer(channel, replay.lastSession + 1), NO_SIMULATION);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts logging a new simulation.
+     *
+     * @return A command log that logs the changes of the new simulation.
+     * @throws IllegalStateException This log already belongs to a simulation.
+     */
+    public CommandLog beginSimulation() throws IllegalStateException {
+        if (session != NO_SIMULATION) {
+            throw new IllegalStateException("A simulation can't be started within a simulation.");
+        }
+        if (writer == null) {
+            return this;
+        }
+        return new CommandLog(company, writer, writer.beginSession());
+    }
+
+    /**
+     * Logs that the changes of the simulation of this log are kept. Nothing
+     * is logged if the simulation has already ended.
+     *
+     * @return The position in the log that has to be written before the
+     * record is on disk, 0 if nothing was logged.
+     */
+    public long carryOutSimulation() {
+        if (writer == null || ended) {
+            return 0;
+        }
+        Record record = new Record(CARRY_OUT_SIMULATION);
+        long position = append(record);
+        endSimulation();
+        return position;
+    }
+
+    /**
+     * Logs that the changes of the simulation of this log are dropped.
+     * Nothing is logged if the simulation has already ended.
+     *
+     * @return The position in the log that has to be written before the
+     * record is on disk, 0 if nothing was logged.
+     */
+    public long cancelSimulation() {
+        if (writer == null || ended) {
+            return 0;
+        }
+        Record record = new Record(CANCEL_SIMULATION);
+        long position = append(record);
+        endSimulation();
+        return position;
+    }
+
+    private void endSimulation() {
+        if (session != NO_SIMULATION && !ended) {
+            ended = true;
+            writer.endSession();
+        }
+    }
+
+    /**
+     * Logs the creation of the given project.
+     *
+     * @param office The branch office the project was created in.
+     * @param project The created project.
+     * @return The position in the log that has to be written before the
+     * record is on disk, 0 if nothing was logged.
+     */
+    public long createdProject(BranchOffice office, Project project) {
+        if (writer == null) {
+            return 0;
+        }
+        Record record = new Record(CREATE_PROJECT);
+        record.writeInt(officeIndex(office));
+        record.writeInt(project.getId());
+        record.writeString(project.getName());
+        record.writeString(project.getDescription());
+        record.writeTime(project.getCreationTime());
+        record.writeTime(project.getDueTime());
+        return append(record);
+    }
+
+    /**
+     * Logs the creation of a task with the given parameters.
+     *
+     * @param pId The id of the project the task was added to.
+     * @param task The created task.
+     * @param accDev The acceptable deviation of the task.
+     * @param prereq The ids of the prerequisite tasks.
+     * @param estDurMinutes The estimated duration of the task in minutes.
+     * @param altfor The id of the task the task is an alternative for.
+     * @param requiredResources The required amount for the index of each
+     * required resource type.
+     * @return The position in the log that has to be written before the
+     * record is on disk, 0 if nothing was logged.
+     */
+    public long createdTask(int pId, Task task, int accDev, List<Integer> prereq, int estDurMinutes, int altfor, Map<Integer, Integer> requiredResources) {
+        if (writer == null) {
+            return 0;
+        }
+        Record record = new Record(CREATE_TASK);
+        record.writeInt(pId);
+        record.writeInt(task.getId());
+        record.writeString(task.getDescription());
+        record.writeInt(accDev);
+        record.writeInt(estDurMinutes);
+        record.writeInt(altfor);
+        record.writeInt(prereq.size());
+        for (int id : prereq) {
+            record.writeInt(id);
+        }
+        record.writeInt(requiredResources.size());
+        for (Entry<Integer, Integer> entry : requiredResources.entrySet()) {
+            record.writeInt(entry.getKey());
+            record.writeInt(entry.getValue());
+        }
+        return append(record);
+    }
+
+    /**
+     * Logs the planning of the given task.
+     *
+     * @param office The branch office that planned the task.
+     * @param pId The id of the project of the task.
+     * @param tId The id of the task.
+     * @param startTime The planned start time.
+     * @param resources The ids of the reserved resources.
+     * @return The position in the log that has to be written before the
+     * record is on disk, 0 if nothing was logged.
+     * @throws ObjectNotFoundException One of the given ids isn't the id of a
+     * resource of the given branch office.
+     */
+    public long plannedTask(BranchOffice office, int pId, int tId, LocalDateTime startTime, List<Integer> resources) {
+        if (writer == null) {
+            return 0;
+        }
+        Record record = new Record(PLAN_TASK);
+        record.writeInt(officeIndex(office));
+        record.writeInt(pId);
+        record.writeInt(tId);
+        record.writeTime(startTime);
+        record.writeInt(resources.size());
+        ResourceContainer container = office.getResourceContainer();
+        for (int id : resources) {
+            record.writeInt(container.getPosition(id));
+        }
+        return append(record);
+    }
+
+    /**
+     * Logs that the given task has finished or failed.
+     *
+     * @param pId The id of the project of the task.
+     * @param tId The id of the task.
+     * @param startTime The time the task started.
+     * @param endTime The time the task ended.
+     * @param finished True if the task finished, false if it failed.
+     * @return The position in the log that has to be written before the
+     * record is on disk, 0 if nothing was logged.
+     */
+    public long updatedTask(int pId, int tId, LocalDateTime startTime, LocalDateTime endTime, boolean finished) {
+        if (writer == null) {
+            return 0;
+        }
+        Record record = new Record(finished ? FINISH_TASK : FAIL_TASK);
+        record.writeInt(pId);
+        record.writeInt(tId);
+        record.writeTime(startTime);
+        record.writeTime(endTime);
+        return append(record);
+    }
+
+    /**
+     * Logs that the given task started executing.
+     *
+     * @param pId The id of the project of the task.
+     * @param tId The id of the task.
+     * @return The position in the log that has to be written before the
+     * record is on disk, 0 if nothing was logged.
+     */
+    public long executedTask(int pId, int tId) {
+        if (writer == null) {
+            return 0;
+        }
+        Record record = new Record(EXECUTE_TASK);
+        record.writeInt(pId);
+        record.writeInt(tId);
+        return append(record);
+    }
+
+    /**
+     * Logs the delegation of the given task.
+     *
+     * @param from The branch office that delegated the task.
+     * @param pId The id of the project of the task.
+     * @param tId The id of the task.
+     * @param to The branch office the task was delegated to.
+     * @return The position in the log that has to be written before the
+     * record is on disk, 0 if nothing was logged.
+     */
+    public long delegatedTask(BranchOffice from, int pId, int tId, BranchOffice to) {
+        if (writer == null) {
+            return 0;
+        }
+        Record record = new Record(DELEGATE_TASK);
+        record.writeInt(officeIndex(from));
+        record.writeInt(pId);
+        record.writeInt(tId);
+        record.writeInt(officeIndex(to));
+        return append(record);
+    }
+
+    /**
+     * Logs that the system time was advanced.
+     *
+     * @param time The new system time.
+     * @return The position in the log that has to be written before the
+     * record is on disk, 0 if nothing was logged.
+     */
+    public long advancedTime(LocalDateTime time) {
+        if (writer == null) {
+            return 0;
+        }
+        Record record = new Record(ADVANCE_TIME);
+        record.writeTime(time);
+        return append(record);
+    }
+
+    /**
+     * Waits until all the changes that were logged are written to disk.
+     *
+     * @throws IOException The log couldn't be written.
+     */
+    public void sync() throws IOException {
+        if (writer != null) {
+            writer.sync();
+        }
+    }
+
+    /**
+     * Waits until the log is written to disk up to the given position.
+     *
+     * @param position The position returned when the change was logged.
+     * @throws IllegalStateException The log couldn't be written, so the
+     * change isn't saved.
+     */
+    public void awaitWritten(long position) throws IllegalStateException {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.await(position);
+        } catch (IOException e) {
+            throw new IllegalStateException("The change couldn't be saved, no more changes are accepted.", e);
+        }
+    }
+
+    /**
+     * Checks whether the log can be started over. This isn't possible while a
+     * simulation is running, because its changes aren't part of a snapshot
+     * and can still be carried out.
+     *
+     * @return True if and only if this log writes to a file and no simulation
+     * is running.
+     */
+    public boolean canCheckpoint() {
+        return writer != null && writer.canRestart();
+    }
+
+    /**
+     * Starts the log over after a snapshot of the complete system was saved.
+     * All logged changes are part of that snapshot and are discarded.
+     *
+     * @param generation The generation of the saved snapshot.
+     * @throws IOException The log couldn't be written.
+     * @throws IllegalStateException A simulation is still running.
+     */
+    public void checkpoint(long generation) throws IOException, IllegalStateException {
+        if (writer != null) {
+            writer.restart(checkpointFrame(generation));
+        }
+    }
+
+    /**
+     * Writes all logged changes to disk and closes the log file.
+     *
+     * @throws IOException The log couldn't be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private int officeIndex(BranchOffice office) {
+        int index = company.getOffices().indexOf(office);
+        if (index < 0) {
+            throw new IllegalArgumentException("The given branch office doesn't belong to the logged company.");
+        }
+        return index;
+    }
+
+    private long append(Record record) {
+        return writer.append(record.toFrame(session));
+    }
+
+    private static byte[] checkpointFrame(long generation) {
+        Record record = new Record(CHECKPOINT);
+        record.writeLong(generation);
+        return record.toFrame(NO_SIMULATION);
+    }
+
+    private static void write(FileChannel channel, byte[] frame) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /****************************************************
+     * Encoding                                         *
+     ****************************************************/
+
+    /**
+     * The payload of a single record. A record consists of its type, the
+     * simulation it belongs to and the fields of the logged change.
+     */
+    private static class Record {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final byte type;
+
+        private Record(byte type) {
+            this.type = type;
+        }
+
+        private void writeInt(int value) {
+            try {
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void writeLong(long value) {
+            try {
+                out.writeLong(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void writeString(String value) {
+            try {
+                out.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("The given text is too long to be logged.", e);
+            }
+        }
+
+        private void writeTime(LocalDateTime time) {
+            try {
+                out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(time.getNano());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * @param session The simulation this record belongs to.
+         * @return The length, payload and checksum of this record.
+         */
+        private byte[] toFrame(int session) {
+            byte[] fields = bytes.toByteArray();
+            ByteBuffer frame = ByteBuffer.allocate(4 + 5 + fields.length + 8);
+            frame.putInt(5 + fields.length);
+            frame.put(type);
+            frame.putInt(session);
+            frame.put(fields);
+            CRC32 crc = new CRC32();
+            crc.update(frame.array(), 4, 5 + fields.length);
+            frame.putLong(crc.getValue());
+            return frame.array();
+        }
+    }
+
+    /****************************************************
+     * Writing                                          *
+     ****************************************************/
+
+    /**
+     * Appends frames to the log file. Appended frames are collected in a
+     * buffer which a background thread writes and forces to disk as a single
+     * batch.
+     */
+    private static class Writer implements Runnable {
+
+        private final FileChannel channel;
+        private final Thread flusher;
+
+        private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private long appended, flushed;
+        private int nextSession, openSessions;
+        private IOException failure;
+        private boolean closed;
+
+        private Writer(FileChannel channel, int nextSession) {
+            this.channel = channel;
+            this.nextSession = nextSession;
+            this.flusher = new Thread(this, "command-log-writer");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        }
+
+        private synchronized int beginSession() {
+            openSessions++;
+            return nextSession++;
+        }
+
+        private synchronized void endSession() {
+            openSessions--;
+        }
+
+        private synchronized boolean canRestart() {
+            return openSessions == 0 && !closed && failure == null;
+        }
+
+        /**
+         * Empties the log file once all appended frames are written and
+         * writes the given frame as its only content.
+         */
+        private synchronized void restart(byte[] frame) throws IOException {
+            sync();
+            if (!canRestart()) {
+                throw new IllegalStateException("The command log can't be started over while a simulation is running.");
+            }
+            try {
+                channel.truncate(0);
+                channel.position(0);
+                write(channel, frame);
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+
+        /**
+         * Appends the given frame to the pending frames.
+         *
+         * @return The number of bytes appended up to the end of the frame.
+         */
+        private synchronized long append(byte[] frame) {
+            if (closed || failure != null) {
+                throw new IllegalStateException("The command log can't be written anymore.", failure);
+            }
+            pending.write(frame, 0, frame.length);
+            appended += frame.length;
+            notifyAll();
+            return appended;
+        }
+
+        private synchronized void sync() throws IOException {
+            await(appended);
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        /**
+         * Waits until the log file is forced to disk up to the given end.
+         * Frames that were forced before a write failed stay written.
+         */
+        private synchronized void await(long end) throws IOException {
+            boolean interrupted = false;
+            while (flushed < end && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (flushed < end) {
+                throw failure;
+            }
+        }
+
+        private void close() throws IOException {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                notifyAll();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+            synchronized (this) {
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+
+        /**
+         * Writes the pending frames until the log is closed.
+         */
+        @Override
+        public void run() {
+            while (true) {
+                ByteArrayOutputStream batch;
+                long end;
+                synchronized (this) {
+                    while (pending.size() == 0 && !closed) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            // only closing stops the writer
+                        }
+                    }
+                    if (pending.size() == 0) {
+                        return;
+                    }
+                    batch = pending;
+                    pending = new ByteArrayOutputStream();
+                    end = appended;
+                }
+                try {
+                    write(channel, batch.toByteArray());
+                    channel.force(false);
+                } catch (IOException e) {
+                    Logger.getLogger(CommandLog.class.getName()).log(Level.SEVERE, null, e);
+                    synchronized (this) {
+                        failure = e;
+                        notifyAll();
+                    }
+                    return;
+                }
+                synchronized (this) {
+                    flushed = end;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /****************************************************
+     * Replaying                                        *
+     ****************************************************/
+
+    /**
+     * Applies the records of a log to a company.
+     */
+    private static class Replay {
+
+        private final Company company;
+        private final Clock clock;
+        private final long generation;
+
+        private final Map<Integer, Integer> projectIds = new HashMap<>();
+        private final Map<Integer, Integer> taskIds = new HashMap<>();
+        private final Map<Integer, Simulation> simulations = new HashMap<>();
+        private int lastSession = NO_SIMULATION;
+
+        private Replay(Company company, Clock clock, long generation) {
+            this.company = company;
+            this.clock = clock;
+            this.generation = generation;
+        }
+
+        /**
+         * Applies all complete records in the given stream. Nothing is
+         * applied if the log continues an older snapshot. A damaged record
+         * is only taken for a partially written one if it runs to the end of
+         * the log: a write that was cut off leaves the frame incomplete, its
+         * checksum wrong in the last frame, or zeros up to the end.
+         *
+         * @param in The stream to read the records from.
+         * @param size The number of bytes in the stream.
+         * @return The number of bytes taken by the complete records, 0 if the
+         * log has to be started over.
+         * @throws IOException The stream couldn't be read.
+         * @throws IllegalStateException A record couldn't be applied, or a
+         * damaged record is followed by other data.
+         */
+        private long apply(InputStream in, long size) throws IOException, IllegalStateException {
+            DataInputStream data = new DataInputStream(in);
+            long end = 0;
+            int count = 0;
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = data.readInt();
+                    if (length < 5 || length > MAX_RECORD_LENGTH) {
+                        if ((length >= 5 && end + 4 + length + 8 > size) || (length == 0 && onlyZeros(data))) {
+                            break;
+                        }
+                        throw damaged(count + 1, end);
+                    }
+                    payload = new byte[length];
+                    data.readFully(payload);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    if (data.readLong() != crc.getValue()) {
+                        if (end + 4 + length + 8 == size) {
+                            break;
+                        }
+                        throw damaged(count + 1, end);
+                    }
+                    end += 4 + length + 8;
+                } catch (EOFException e) {
+                    break;
+                }
+                count++;
+                if (count == 1) {
+                    long logged = payload[0] == CHECKPOINT ? ByteBuffer.wrap(payload, 5, 8).getLong() : 0;
+                    if (logged > generation) {
+                        throw new IllegalStateException("The log continues snapshot " + logged + ", but snapshot " + generation + " was loaded.");
+                    } else if (logged < generation) {
+                        return 0;
+                    } else if (payload[0] == CHECKPOINT) {
+                        continue;
+                    }
+                }
+                try {
+                    applyRecord(new DataInputStream(new ByteArrayInputStream(payload)));
+                } catch (IOException | RuntimeException e) {
+                    throw new IllegalStateException("Record " + count + ": the logged change can't be applied: " + e.getMessage(), e);
+                }
+            }
+            return end;
+        }
+
+        private static boolean onlyZeros(InputStream in) throws IOException {
+            for (int b = in.read(); b >= 0; b = in.read()) {
+                if (b != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static IllegalStateException damaged(int record, long position) {
+            return new IllegalStateException("Record " + record + " at byte " + position + " is damaged and followed by other records.");
+        }
+
+        /**
+         * Cancels the simulations that weren't carried out or cancelled in
+         * the applied records.
+         *
+         * @return The sessions of the cancelled simulations, in ascending
+         * order.
+         */
+        private List<Integer> cancelRunningSimulations() {
+            List<Integer> sessions = new ArrayList<>(simulations.keySet());
+            Collections.sort(sessions);
+            for (int session : sessions) {
+                simulations.remove(session).discard();
+            }
+            return sessions;
+        }
+
+        private void applyRecord(DataInputStream in) throws IOException {
+            byte type = in.readByte();
+            int session = in.readInt();
+            lastSession = Math.max(lastSession, session);
+            if (type == CARRY_OUT_SIMULATION) {
+                simulations.remove(session).commit();
+                return;
+            } else if (type == CANCEL_SIMULATION) {
+                simulations.remove(session).discard();
+                return;
+            }
+            Simulation simulation = session == NO_SIMULATION ? Simulation.LIVE : simulations.computeIfAbsent(session, s -> new Simulation());
+            try {
+                simulation.run(() -> {
+                    try {
+                        applyChange(type, in);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void applyChange(byte type, DataInputStream in) throws IOException {
+            switch (type) {
+                case CREATE_PROJECT: {
+                    BranchOffice office = company.getOffices().get(in.readInt());
+                    int loggedId = in.readInt();
+                    CreateProjectCommand command = new CreateProjectCommand(office.getProjectContainer(),
+                            in.readUTF(), in.readUTF(), readTime(in), readTime(in));
+                    command.execute();
+                    projectIds.put(loggedId, command.getCreatedProject().getId());
+                    break;
+                }
+                case CREATE_TASK: {
+                    Project project = project(in.readInt());
+                    int loggedId = in.readInt();
+                    String description = in.readUTF();
+                    int accDev = in.readInt();
+                    Duration duration = Duration.of(in.readInt());
+                    int altfor = in.readInt();
+                    if (altfor >= 0) {
+                        altfor = taskIds.getOrDefault(altfor, altfor);
+                    }
+                    List<Integer> prereq = new ArrayList<>();
+                    for (int i = in.readInt(); i > 0; i--) {
+                        int id = in.readInt();
+                        prereq.add(taskIds.getOrDefault(id, id));
+                    }
+                    Map<ResourceType, Integer> resources = Task.getDefaultRequiredResources();
+                    for (int i = in.readInt(); i > 0; i--) {
+                        resources.put(company.getResourceTypes().get(in.readInt()), in.readInt());
+                    }
+                    CreateTaskCommand command = new CreateTaskCommand(project, description, duration, accDev, altfor, prereq, resources);
+                    command.execute();
+                    taskIds.put(loggedId, command.getCreatedTask().getId());
+                    break;
+                }
+                case PLAN_TASK: {
+                    BranchOffice office = company.getOffices().get(in.readInt());
+                    Task task = task(in.readInt(), in.readInt());
+                    LocalDateTime startTime = readTime(in);
+                    ResourceContainer container = office.getResourceContainer();
+                    List<Resource> resources = new ArrayList<>();
+                    for (int i = in.readInt(); i > 0; i--) {
+                        resources.add(container.getResourceAt(in.readInt()));
+                    }
+                    task.plan(startTime, resources, clock);
+                    break;
+                }
+                case FINISH_TASK:
+                    task(in.readInt(), in.readInt()).finish(new Timespan(readTime(in), readTime(in)), clock.getTime());
+                    break;
+                case FAIL_TASK:
+                    task(in.readInt(), in.readInt()).fail(new Timespan(readTime(in), readTime(in)), clock.getTime());
+                    break;
+                case EXECUTE_TASK:
+                    task(in.readInt(), in.readInt()).execute(clock);
+                    break;
+                case DELEGATE_TASK: {
+                    BranchOffice from = company.getOffices().get(in.readInt());
+                    Task task = task(in.readInt(), in.readInt());
+                    from.delegateTaskTo(task, company.getOffices().get(in.readInt()));
+                    break;
+                }
+                case ADVANCE_TIME:
+                    clock.advanceTime(readTime(in));
+                    break;
+                case CHECKPOINT:
+                    throw new IllegalStateException("A checkpoint can only start the log.");
+                default:
+                    throw new IllegalStateException("Unknown record type " + type + ".");
+            }
+        }
+
+        private Project project(int loggedId) {
+            return company.getProject(projectIds.getOrDefault(loggedId, loggedId));
+        }
+
+        private Task task(int pId, int loggedId) {
+            return project(pId).getTask(taskIds.getOrDefault(loggedId, loggedId));
+        }
+
+        private static LocalDateTime readTime(DataInputStream in) throws IOException {
+            return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        }
+    }
+}
@@ -3,6 +3,8 @@ package controller;
 import domain.user.Acl;
 import domain.user.Auth;
 import domain.BranchOffice;
+import domain.Project;
+import domain.Simulation;
 import java.time.LocalDateTime;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -15,6 +17,7 @@ import java.util.logging.Logger;
 public class CreateProjectHandler extends Handler{
     
     private final BranchOffice office;
+    private final CommandLog log;
     
     /**
      * Initialize this createprojecthandler with the given projectContainer.
@@ -24,8 +27,21 @@ public class CreateProjectHandler extends Handler{
      * @param acl The action control list to use
      */
     public CreateProjectHandler(BranchOffice office, Auth auth, Acl acl) {
+        this(office, auth, acl, CommandLog.disabled());
+    }
+    
+    /**
+     * Initialize this createprojecthandler with the given projectContainer.
+     * 
+     * @param office The projectContainer to use in this handler. 
+     * @param auth The authorization manager to use
+     * @param acl The action control list to use
+     * @param log The log to record the created projects in
+     */
+    public CreateProjectHandler(BranchOffice office, Auth auth, Acl acl, CommandLog log) {
         super(auth, acl);
         this.office = office;
+        this.log = log;
     }
     
     /**
@@ -39,7 +55,11 @@ public class CreateProjectHandler extends Handler{
      */
     public void createProject(String name, String description, LocalDateTime creationTime, LocalDateTime dueTime) throws RuntimeException {
         try{
-            office.getProjectContainer().createProject(name, description, creationTime, dueTime);
+            long logged = Simulation.LIVE.run(() -> {
+                Project project = office.getProjectContainer().createProject(name, description, creationTime, dueTime);
+                return log.createdProject(office, project);
+            });
+            log.awaitWritten(logged);
         }catch(IllegalArgumentException | IllegalStateException e){
             throw e;
         }catch(Exception e){
@@ -3,8 +3,8 @@ package controller;
 import domain.BranchOffice;
 import domain.Project;
 import domain.ResourceType;
+import domain.Simulation;
 import domain.command.CreateTaskCommand;
-import domain.command.SimulatorCommand;
 import domain.dto.DetailedProject;
 import domain.dto.DetailedResourceType;
 import domain.dto.DetailedTask;
@@ -32,7 +32,8 @@ public class CreateTaskHandler extends Handler{
     protected final BranchOffice office;
     protected final List<ResourceType> resourceTypes;
     
-    protected final SimulatorCommand simulatorCommand;
+    protected final Simulation simulation;
+    protected final CommandLog log;
     
     /**
      * Initialize a new create task handler with the given projectContainer.
@@ -41,13 +42,30 @@ public class CreateTaskHandler extends Handler{
      * @param resourceTypes The list of all resource types
      * @param auth The authorization manager to use
      * @param acl The action control list to use
-     * @param simulatorCommand The command to use, to store all executed commands
+     * @param simulation The simulation to create the tasks in, or
+     * {@link Simulation#LIVE} to create them in the live system
+     * @param log The log to record the created tasks in
      */   
-    public CreateTaskHandler(BranchOffice office, List<ResourceType> resourceTypes, Auth auth, Acl acl, SimulatorCommand simulatorCommand) {
+    public CreateTaskHandler(BranchOffice office, List<ResourceType> resourceTypes, Auth auth, Acl acl, Simulation simulation, CommandLog log) {
         super(auth, acl);
         this.office = office;
         this.resourceTypes = resourceTypes;
-        this.simulatorCommand = simulatorCommand;
+        this.simulation = simulation;
+        this.log = log;
+    }
+    
+    /**
+     * Initialize a new create task handler with the given projectContainer.
+     * 
+     * @param office The branch office to use in this handler. 
+     * @param resourceTypes The list of all resource types
+     * @param auth The authorization manager to use
+     * @param acl The action control list to use
+     * @param simulation The simulation to create the tasks in, or
+     * {@link Simulation#LIVE} to create them in the live system
+     */   
+    public CreateTaskHandler(BranchOffice office, List<ResourceType> resourceTypes, Auth auth, Acl acl, Simulation simulation) {
+        this(office, resourceTypes, auth, acl, simulation, CommandLog.disabled());
     }
     
     /**
@@ -59,7 +77,7 @@ public class CreateTaskHandler extends Handler{
      * @param acl The action control list to use
      */   
     public CreateTaskHandler(BranchOffice manager, List<ResourceType> resourceTypes, Auth auth, Acl acl) {
-        this(manager, resourceTypes, auth, acl, new SimulatorCommand());
+        this(manager, resourceTypes, auth, acl, Simulation.LIVE);
     }
     
     /**
@@ -69,7 +87,7 @@ public class CreateTaskHandler extends Handler{
      * @return A list containing all the tasks of the project with the given id.
      */   
     public List<DetailedTask>  getTasksByProject(int Pid) {
-        return new ArrayList<>(office.getProjectContainer().getProject(Pid).getTasks());
+        return simulation.run(() -> new ArrayList<>(office.getProjectContainer().getProject(Pid).getTasks()));
     }
     
     /**
@@ -92,9 +110,10 @@ public class CreateTaskHandler extends Handler{
         if(altfor < 0){
             altfor = Project.NO_ALTERNATIVE;
         }
+        List<Integer> prerequisites = prereq;
+        int alternative = altfor;
         try {
-            Project project = office.getProjectContainer().getProject(pId);
-            Duration duration = new Duration(estDurMinutes);
+            Duration duration = Duration.of(estDurMinutes);
             
             Map<ResourceType, Integer> resources = Task.getDefaultRequiredResources();
             // convert id's to objects
@@ -102,7 +121,13 @@ public class CreateTaskHandler extends Handler{
                 resources.put(resourceTypes.get(entry.getKey()), entry.getValue());
             }
             
-            simulatorCommand.addAndExecute(new CreateTaskCommand(project, description, duration, accDev, altfor, prereq, resources));
+            long logged = simulation.run(() -> {
+                Project project = office.getProjectContainer().getProject(pId);
+                CreateTaskCommand command = new CreateTaskCommand(project, description, duration, accDev, alternative, prerequisites, resources);
+                command.execute();
+                return log.createdTask(pId, command.getCreatedTask(), accDev, prerequisites, estDurMinutes, alternative, requiredResources);
+            });
+            log.awaitWritten(logged);
             
         } catch (IllegalArgumentException | IllegalStateException | ResourceTypeConflictException | ResourceTypeMissingReqsException e) {
             throw e;
@@ -122,7 +147,7 @@ public class CreateTaskHandler extends Handler{
      * @throws IllegalStateException No unfinished projects are available.
      */
     public List<DetailedProject> getUnfinishedProjects() throws IllegalStateException {
-        ArrayList<DetailedProject> projects = new ArrayList<>(office.getProjectContainer().getUnfinishedProjects());
+        ArrayList<DetailedProject> projects = simulation.run(() -> new ArrayList<>(office.getProjectContainer().getUnfinishedProjects()));
         if(projects.isEmpty()){
             throw new IllegalStateException("No unfinished projects are available.");
         }
@@ -134,7 +159,7 @@ public class CreateTaskHandler extends Handler{
      * @return A list of all the tasks available in this manager. 
      */
     public List<DetailedTask> getAllTasks() {
-        return new ArrayList<>(office.getProjectContainer().getAllTasks());
+        return simulation.run(() -> new ArrayList<>(office.getProjectContainer().getAllTasks()));
     }
     
     /**
@@ -2,6 +2,7 @@ package controller;
 
 import domain.BranchOffice;
 import domain.Company;
+import domain.Simulation;
 import domain.dto.DetailedBranchOffice;
 import domain.dto.DetailedTask;
 import domain.task.Task;
@@ -19,6 +20,7 @@ public class DelegateTaskHandler extends Handler {
 
     protected final BranchOffice office;
     private final Company company;
+    private final CommandLog log;
     
     /**
      * Initialize a new create task handler with the given projectContainer.
@@ -28,17 +30,29 @@ public class DelegateTaskHandler extends Handler {
      * @param acl The action control list to use
      */
     public DelegateTaskHandler(Company company, BranchOffice office, Auth auth, Acl acl) {
+        this(company, office, auth, acl, CommandLog.disabled());
+    }
+    
+    /**
+     * Initialize a new create task handler with the given projectContainer.
+     * @param company The company to use in this handler
+     * @param office The branch office to use in this handler.
+     * @param auth The authorization manager to use
+     * @param acl The action control list to use
+     * @param log The log to record the delegations in
+     */
+    public DelegateTaskHandler(Company company, BranchOffice office, Auth auth, Acl acl, CommandLog log) {
         super(auth, acl);
         this.office = office;
         this.company = company;
-       
+        this.log = log;
     }
 
 	/**
 	 * @return All unplanned tasks which are assigned to this branch office.
 	 */
 	public List<DetailedTask> getUnplannedAssignedTasks() {
-		return new ArrayList<>(office.getAssignedUnplannedTasks());
+		return Simulation.LIVE.run(() -> new ArrayList<>(office.getAssignedUnplannedTasks()));
 	}
         
     
@@ -59,8 +73,15 @@ public class DelegateTaskHandler extends Handler {
      * @param officeId The id of the office to delegate to
      */
     public void delegateTask(int pId, int tId, int officeId) {
-        for(Task task : office.getUnplannedTasks())
-    		if(task.getId() == tId)
-    			office.delegateTaskTo(task, company.getOffices().get(officeId));
+        long logged = Simulation.LIVE.run(() -> {
+            for(Task task : office.getUnplannedTasks())
+                if(task.getId() == tId) {
+                    BranchOffice target = company.getOffices().get(officeId);
+                    office.delegateTaskTo(task, target);
+                    return log.delegatedTask(office, pId, tId, target);
+                }
+            return 0L;
+        });
+        log.awaitWritten(logged);
     }
 }
@@ -2,6 +2,7 @@ package controller;
 
 import domain.BranchOffice;
 import domain.Company;
+import domain.Simulation;
 import domain.time.Clock;
 import domain.user.Acl;
 import domain.user.Auth;
@@ -19,6 +20,7 @@ public class HandlerFactory {
     private final Acl acl;
     private final Auth auth;
     private final Clock clock;
+    private final CommandLog log;
     
     /**
      * Initialize a new front controller with the given company, authentication manager, action control list and clock.
@@ -29,10 +31,24 @@ public class HandlerFactory {
      * @param clock The system clock to use in this factory
      */   
     public HandlerFactory(Company company, Auth auth, Acl acl, Clock clock) {
+        this(company, auth, acl, clock, CommandLog.disabled());
+    }
+    
+    /**
+     * Initialize a new front controller with the given company, authentication manager, action control list, clock and command log.
+     * 
+     * @param company The company to use
+     * @param auth The authorization manager to use
+     * @param acl The action control list to use
+     * @param clock The system clock to use in this factory
+     * @param log The log to record all changes in
+     */   
+    public HandlerFactory(Company company, Auth auth, Acl acl, Clock clock, CommandLog log) {
         this.company = company;
         this.acl = acl;
         this.auth = auth;
         this.clock = clock;
+        this.log = log;
     }
     
     /** 
@@ -46,49 +62,49 @@ public class HandlerFactory {
      * @return A new create project handler, initialized with branch office of the current user.
      */
     public CreateProjectHandler getCreateProjectHandler() {
-        return new CreateProjectHandler(getCurrentBranchOffice(), auth, acl);
+        return new CreateProjectHandler(getCurrentBranchOffice(), auth, acl, log);
     }
     
     /** 
      * @return A new create task handler, initialized with this manager.
      */
     public CreateTaskHandler getCreateTaskHandler() {
-        return new CreateTaskHandler(getCurrentBranchOffice(), company.getResourceTypes(), auth, acl);
+        return new CreateTaskHandler(getCurrentBranchOffice(), company.getResourceTypes(), auth, acl, Simulation.LIVE, log);
     }
     
     /** 
      * @return A new update task handler, initialized with this manager.
      */
     public UpdateTaskStatusHandler getUpdateTaskHandler() {
-        return new UpdateTaskStatusHandler(getCurrentBranchOffice().getProjectContainer(), clock, auth, acl);
+        return new UpdateTaskStatusHandler(getCurrentBranchOffice().getProjectContainer(), clock, auth, acl, log);
     }
     
      /** 
      * @return A new advance system time handler, initialized with this manager.
      */
     public AdvanceSystemTimeHandler getAdvanceSystemTimeHandler() {
-        return new AdvanceSystemTimeHandler(clock);
+        return new AdvanceSystemTimeHandler(clock, log);
     }
     
     /** 
      * @return A new plan task handler, initialized with this manager.
      */
     public PlanTaskHandler getPlanTaskHandler() {
-        return new PlanTaskHandler(getCurrentBranchOffice(), clock,auth, acl);
+        return new PlanTaskHandler(getCurrentBranchOffice(), clock, auth, acl, Simulation.LIVE, log);
     }
     
     /** 
      * @return A new delegate task handler.
      */
     public DelegateTaskHandler getDelegatedTaskHandler() {
-        return new DelegateTaskHandler(company, getCurrentBranchOffice(), auth, acl);
+        return new DelegateTaskHandler(company, getCurrentBranchOffice(), auth, acl, log);
     }
     
     /** 
      * @return A new run simulation handler, initialized with this manager.
      */
     public RunSimulationHandler getSimulationHandler() {
-        return new RunSimulationHandler(getCurrentBranchOffice(), company.getResourceTypes(), clock, auth, acl);
+        return new RunSimulationHandler(getCurrentBranchOffice(), company.getResourceTypes(), clock, auth, acl, log);
     }
     
     /** 
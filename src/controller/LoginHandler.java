@@ -65,7 +65,7 @@ public class LoginHandler {
                     DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
                     LocalTime start = LocalTime.parse(begintime, formatter);
                     LocalTime end = start.plusHours(1);
-                    ((Resource) auth.getUser()).setAvailability(new WorkWeekConfiguration(LocalTime.of(8, 00), LocalTime.of(17, 00), start, end));
+                    ((Resource) auth.getUser()).setAvailability(WorkWeekConfiguration.of(LocalTime.of(8, 00), LocalTime.of(17, 00), start, end));
 
                 } catch (DateTimeParseException e) {
                     throw new IllegalArgumentException("The given time should be of the form (hh:mm).");
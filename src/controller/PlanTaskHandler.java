@@ -5,7 +5,7 @@ import domain.ProjectContainer;
 import domain.Resource;
 import domain.ResourceContainer;
 import domain.ResourceType;
-import domain.command.SimulatorCommand;
+import domain.Simulation;
 import domain.dto.DetailedResource;
 import domain.dto.DetailedResourceType;
 import domain.dto.DetailedTask;
@@ -30,8 +30,9 @@ public class PlanTaskHandler extends Handler {
     protected final ResourceContainer rc;
     private final Clock clock;
     
-	private SimulatorCommand simulatorCommand;
+	private final Simulation simulation;
     private final BranchOffice office;
+    private final CommandLog log;
 
     /**
      * Initialize a new create task handler with the given projectContainer.
@@ -42,7 +43,7 @@ public class PlanTaskHandler extends Handler {
      * @param acl The action control list to use
      */
     public PlanTaskHandler(BranchOffice office, Clock clock, Auth auth, Acl acl) {
-    	this(office, clock, auth, acl, new SimulatorCommand());
+    	this(office, clock, auth, acl, Simulation.LIVE);
     }
     
     /**
@@ -52,15 +53,32 @@ public class PlanTaskHandler extends Handler {
      * @param clock The clock to use in this handler
      * @param auth The authorization manager to use
      * @param acl The action control list to use
-     * @param simulatorCommand The simulator command to which commands are added.
+     * @param simulation The simulation to plan the tasks in, or
+     * {@link Simulation#LIVE} to plan them in the live system
      */
-    public PlanTaskHandler(BranchOffice office, Clock clock, Auth auth, Acl acl, SimulatorCommand simulatorCommand)
+    public PlanTaskHandler(BranchOffice office, Clock clock, Auth auth, Acl acl, Simulation simulation) {
+        this(office, clock, auth, acl, simulation, CommandLog.disabled());
+    }
+    
+    /**
+     * Initialize a new create task handler with the given projectContainer.
+     *
+     * @param office The branch office to use in this handler.
+     * @param clock The clock to use in this handler
+     * @param auth The authorization manager to use
+     * @param acl The action control list to use
+     * @param simulation The simulation to plan the tasks in, or
+     * {@link Simulation#LIVE} to plan them in the live system
+     * @param log The log to record the planned tasks in
+     */
+    public PlanTaskHandler(BranchOffice office, Clock clock, Auth auth, Acl acl, Simulation simulation, CommandLog log)
     {
         super(auth, acl);
+        this.log = log;
         this.rc = office.getResourceContainer();
         this.pc = office.getProjectContainer();
         this.clock = clock;
-        this.simulatorCommand = simulatorCommand;
+        this.simulation = simulation;
         this.office = office;
         
     }
@@ -71,7 +89,7 @@ public class PlanTaskHandler extends Handler {
      * @return All unplanned tasks in the projectContainer of this handler.
      */
     public List<DetailedTask> getUnplannedTasks() {
-        return new ArrayList<>(office.getAssignedUnplannedTasks());
+        return simulation.run(() -> new ArrayList<>(office.getAssignedUnplannedTasks()));
     }
 
     /**
@@ -85,12 +103,13 @@ public class PlanTaskHandler extends Handler {
      * @throws ConflictException if there were not enough resources available.
      */
     public List<? extends DetailedResource> getRequiredResources(int pId, int tId, LocalDateTime start) throws ConflictException {
-        for(Task task : office.getAssignedTasks()){
-            if(task.getId() == tId){
-                 return rc.meetRequirements(task, task.getSpan(start), new ArrayList<>());
+        return simulation.run(() -> {
+            Task task = office.getAssignedTask(pId, tId);
+            if(task != null){
+                return rc.meetRequirements(task, task.getSpan(start), new ArrayList<>());
             }
-        }
-        return null;
+            return null;
+        });
        
     }
 
@@ -106,12 +125,13 @@ public class PlanTaskHandler extends Handler {
      * could possible be started
      */
     public Set<LocalDateTime> getPossibleStartTimesCurrentTask(int pId, int tId) {
-        for(Task task : office.getAssignedTasks()){
-            if(task.getId() == tId){
+        return simulation.run(() -> {
+            Task task = office.getAssignedTask(pId, tId);
+            if(task != null){
                 return task.nextAvailableStartingTimes(rc, clock.getTime(), 3);
             }
-        }
-        return null;
+            return null;
+        });
         
     }
 
@@ -128,17 +148,20 @@ public class PlanTaskHandler extends Handler {
      * selected task.
      */
     public void planTask(int pId, int tId, LocalDateTime startTime, List<Integer> resources) throws ConflictException, RuntimeException {
-        ArrayList<Resource> res = new ArrayList<>();
-        // id's to resources
-        for(int i : resources){
-            res.add(rc.getResource(i));
-        }
-        
-        for(Task task : office.getAssignedTasks()){
-            if(task.getId() == tId){
-                simulatorCommand.add(task.plan(startTime, res, clock));
+        long logged = simulation.run(() -> {
+            ArrayList<Resource> res = new ArrayList<>();
+            // id's to resources
+            for(int i : resources){
+                res.add(rc.getResource(i));
+            }
+            Task task = office.getAssignedTask(pId, tId);
+            if(task != null){
+                task.plan(startTime, res, clock);
+                return log.plannedTask(office, pId, tId, startTime, resources);
             }
-        }
+            return 0L;
+        });
+        log.awaitWritten(logged);
         
         
     }
@@ -150,7 +173,8 @@ public class PlanTaskHandler extends Handler {
      */
 	public List<DetailedResource> getResources(DetailedResourceType type) {
 		try {
-			return new ArrayList<>(rc.getResourcesOfType((ResourceType) type));
+			ResourceType resourceType = (ResourceType) type;
+			return simulation.run(() -> new ArrayList<>(rc.getResourcesOfType(resourceType)));
 		} catch(ClassCastException cce) {
 			throw new IllegalArgumentException("This type was not recognized by the system. \nPlease enter a valid type");
 		}
@@ -2,7 +2,8 @@ package controller;
 
 import domain.BranchOffice;
 import domain.ResourceType;
-import domain.command.SimulatorCommand;
+import domain.Simulation;
+import domain.command.CreateProjectCommand;
 import domain.time.Clock;
 import domain.user.Acl;
 import domain.user.Auth;
@@ -13,7 +14,13 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * This handler handles the create project use case
+ * This handler handles the run simulation use case
+ * 
+ * The changes of a simulation are made in a {@link Simulation} of their own.
+ * They aren't visible outside the simulation and only become part of the
+ * system when the simulation is carried out. Several simulations can be open
+ * at once, but their actions take turns with each other and with the changes
+ * to the live system.
  * 
  * @author Frederic, Mathias, Pieter-Jan
  */
@@ -23,7 +30,8 @@ public class RunSimulationHandler extends Handler {
     private final List<ResourceType> resourceTypes;
     private final Clock clock;
     
-    private final SimulatorCommand simulatorCommand;
+    private final Simulation simulation;
+    private final CommandLog log;
     
     /**
      * Initialize this handler with the given branch office.
@@ -35,15 +43,31 @@ public class RunSimulationHandler extends Handler {
      * @param acl The action control list to use
      */
     public RunSimulationHandler(BranchOffice office, List<ResourceType> resourceTypes, Clock clock, Auth auth, Acl acl){
+        this(office, resourceTypes, clock, auth, acl, CommandLog.disabled());
+    }
+    
+    /**
+     * Initialize this handler with the given branch office.
+     * 
+     * @param office The branch office to use in this handler. 
+     * @param resourceTypes All resource types in the company.
+     * @param clock The clock to use in this handler
+     * @param auth The authorization manager to use
+     * @param acl The action control list to use
+     * @param log The log to record the simulation in
+     */
+    public RunSimulationHandler(BranchOffice office, List<ResourceType> resourceTypes, Clock clock, Auth auth, Acl acl, CommandLog log){
         super(auth, acl);
         this.office = office;
         this.resourceTypes = resourceTypes;
         this.clock = clock;
-        this.simulatorCommand = new SimulatorCommand();
+        this.simulation = new Simulation();
+        this.log = log.beginSimulation();
     }
     
     /**
      * Create the project with the given parameters in this project container.
+     * The project only exists in the simulation until it is carried out.
      * 
      * @param name The name of the new project.
      * @param description The description of the new project.
@@ -54,7 +78,12 @@ public class RunSimulationHandler extends Handler {
     public void createProject(String name, String description, LocalDateTime creationTime, LocalDateTime dueTime) throws RuntimeException{
        
         try{
-            office.getProjectContainer().createProject(name, description, creationTime, dueTime);
+            long logged = simulation.run(() -> {
+                CreateProjectCommand command = new CreateProjectCommand(office.getProjectContainer(), name, description, creationTime, dueTime);
+                command.execute();
+                return log.createdProject(office, command.getCreatedProject());
+            });
+            log.awaitWritten(logged);
         }catch(IllegalArgumentException | IllegalStateException e){
             throw e;
         }catch(Exception e){
@@ -71,7 +100,7 @@ public class RunSimulationHandler extends Handler {
      * @return A handler to simulate the creation of a task.
      */
     public CreateTaskHandler getCreateTaskSimulatorHandler() {
-    	return new CreateTaskHandler(office, resourceTypes, auth, acl, simulatorCommand);
+    	return new CreateTaskHandler(office, resourceTypes, auth, acl, simulation, log);
     } 
     
     /**
@@ -79,21 +108,29 @@ public class RunSimulationHandler extends Handler {
      * @return A handler to simulate the planning of a task.
      */
     public PlanTaskHandler getPlanTaskSimulatorHandler() {
-    	return new PlanTaskHandler(office, clock, auth, acl, simulatorCommand);
+    	return new PlanTaskHandler(office, clock, auth, acl, simulation, log);
     } 
     
     /**
      * Cancel the simulation and leave the system unchanged
      */
     public void cancelSimulation(){
-    	simulatorCommand.revert();
+    	simulation.discard();
+    	log.awaitWritten(log.cancelSimulation());
     }
     
     /**
-     * Keeps the changes that were made
+     * Makes the changes of the simulation part of the system. The changes
+     * are only made once the carrying out is logged.
+     * 
+     * @throws IllegalStateException The system has been changed since the
+     * simulation changed the same projects, tasks or resources, or the log
+     * can't be written. The simulation can still be cancelled in the first
+     * case.
      */
-    public void carryOutSimulation()
+    public void carryOutSimulation() throws IllegalStateException
     {
-    	
+    	long logged = simulation.commit(log::carryOutSimulation);
+    	log.awaitWritten(logged);
     }
 }
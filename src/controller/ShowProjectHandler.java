@@ -3,6 +3,7 @@ package controller;
 
 import domain.Company;
 import domain.Project;
+import domain.Simulation;
 import domain.dto.DetailedProject;
 import domain.dto.DetailedTask;
 import domain.time.Clock;
@@ -39,7 +40,7 @@ public class ShowProjectHandler {
      * @return A list of projects of the company
      */
     public List<DetailedProject> getProjects() {
-        return new ArrayList<>(company.getProjects());
+        return Simulation.LIVE.run(() -> new ArrayList<>(company.getProjects()));
     }
     
     /**
@@ -49,7 +50,7 @@ public class ShowProjectHandler {
      * @param projectId The id of the project to retrieve 
      */
     public void selectProject(int projectId) {
-    	currentProject = company.getProject(projectId);
+    	currentProject = Simulation.LIVE.run(() -> company.getProject(projectId));
     }
     
     /**
@@ -72,7 +73,7 @@ public class ShowProjectHandler {
             throw new IllegalStateException("No project is currently selected in this handler.");
         }
         
-        return currentProject.getTask(taskId);
+        return Simulation.LIVE.run(() -> currentProject.getTask(taskId));
     }
     
     /**
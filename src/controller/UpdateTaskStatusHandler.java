@@ -3,6 +3,7 @@ package controller;
 import domain.Project;
 import domain.ProjectContainer;
 import domain.Resource;
+import domain.Simulation;
 import domain.dto.DetailedProject;
 import domain.dto.DetailedTask;
 import domain.task.Task;
@@ -26,6 +27,7 @@ public class UpdateTaskStatusHandler extends Handler {
 
     private final ProjectContainer pc;
     private final Clock clock;
+    private final CommandLog log;
 
     private Task currentTask;
     private Project currentProject;
@@ -39,9 +41,23 @@ public class UpdateTaskStatusHandler extends Handler {
      * @param acl The action control list to use
      */
     public UpdateTaskStatusHandler(ProjectContainer projectContainer, Clock clock, Auth auth, Acl acl) {
+        this(projectContainer, clock, auth, acl, CommandLog.disabled());
+    }
+
+    /**
+     * Initialize a new create task handler with the given projectContainer.
+     *
+     * @param projectContainer The projectContainer to use in this handler.
+     * @param clock The clock to use in this handler
+     * @param auth The authorization manager to use
+     * @param acl The action control list to use
+     * @param log The log to record the status updates in
+     */
+    public UpdateTaskStatusHandler(ProjectContainer projectContainer, Clock clock, Auth auth, Acl acl, CommandLog log) {
         super(auth, acl);
         this.pc = projectContainer;
         this.clock = clock;
+        this.log = log;
     }
 
     /**
@@ -51,7 +67,7 @@ public class UpdateTaskStatusHandler extends Handler {
      * @return All available tasks in the projectContainer of this handler.
      */
     public Map<DetailedTask, DetailedProject> getAvailableTasks() {
-        return new HashMap<>(pc.getAllAvailableTasks());
+        return Simulation.LIVE.run(() -> new HashMap<>(pc.getAllAvailableTasks()));
     }
 
     /**
@@ -62,9 +78,11 @@ public class UpdateTaskStatusHandler extends Handler {
      * @param tId The id of the task to select.
      */
     public void selectTask(int pId, int tId) {
-    	Project project = pc.getProject(pId);
-        currentTask = project.getTask(tId);
-        currentProject = project;
+        Simulation.LIVE.run(() -> {
+            Project project = pc.getProject(pId);
+            currentTask = project.getTask(tId);
+            currentProject = project;
+        });
     }
 
     /**
@@ -83,9 +101,17 @@ public class UpdateTaskStatusHandler extends Handler {
         
         try {
             if (status.equalsIgnoreCase("finished")) {
-                currentTask.finish(new Timespan(startTime, endTime), clock.getTime());
+                long logged = Simulation.LIVE.run(() -> {
+                    currentTask.finish(new Timespan(startTime, endTime), clock.getTime());
+                    return log.updatedTask(currentProject.getId(), currentTask.getId(), startTime, endTime, true);
+                });
+                log.awaitWritten(logged);
             } else if (status.equalsIgnoreCase("failed")) {
-                currentTask.fail(new Timespan(startTime, endTime), clock.getTime());
+                long logged = Simulation.LIVE.run(() -> {
+                    currentTask.fail(new Timespan(startTime, endTime), clock.getTime());
+                    return log.updatedTask(currentProject.getId(), currentTask.getId(), startTime, endTime, false);
+                });
+                log.awaitWritten(logged);
             } else {
                 throw new IllegalArgumentException("The given status doesn't exist.");
             }
@@ -110,10 +136,15 @@ public class UpdateTaskStatusHandler extends Handler {
         }
         
         try {
-            if (((Resource) auth.getUser()).getReservation(currentTask) != null) {
+            Resource user = (Resource) auth.getUser();
+            long logged = Simulation.LIVE.run(() -> {
+                if (user.getReservation(currentTask) == null) {
+                    return 0L;
+                }
                 currentTask.execute(clock);
-                
-            }            
+                return log.executedTask(currentProject.getId(), currentTask.getId());
+            });
+            log.awaitWritten(logged);
             
         } catch (ClassCastException e) {
             throw new NoAccessException("Sorry you don't have the right role to execute a task.");
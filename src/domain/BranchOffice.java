@@ -5,22 +5,21 @@ import domain.task.Task;
 import domain.user.User;
 import exception.ObjectNotFoundException;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * This class represents a branch office with a location, project container, resource container and a list of users.
  *
  * @author Frederic, Mathias, Pieter-Jan
  */
-public class BranchOffice implements DetailedBranchOffice {
+public class BranchOffice implements DetailedBranchOffice, Originator<BranchOffice.Memento> {
 
     private final String location;
 	private final ProjectContainer projectContainer;
 	private final ResourceContainer resourceContainer;
-	private final List<Task> delegatedTasks;
+	private PersistentSortedMap<Integer, Task> delegatedTasks;
     private final List<User> users;
+	private CompanyDirectory directory;
 	
     /**
     * Initializes this branchoffice with the given location
@@ -42,7 +41,7 @@ public class BranchOffice implements DetailedBranchOffice {
 		this.location = location;
 		this.projectContainer = pc;
 		this.resourceContainer = rc;
-		this.delegatedTasks = new ArrayList<>();
+		this.delegatedTasks = PersistentSortedMap.empty();
 		this.users = new ArrayList<>();
 	}
 	
@@ -69,6 +68,18 @@ public class BranchOffice implements DetailedBranchOffice {
 		branchOffice.addDelegatedTask(task);
 	}
 	
+	/**
+	 * Delegates the given task from this branch office to the given branch
+	 * office without checking whether it can be delegated. This is only
+	 * meant to restore a saved state of the system.
+	 * 
+	 * @param task The task to delegate, which isn't delegated yet.
+	 * @param branchOffice The branch office to delegate the given task to.
+	 */
+	public void restoreDelegation(Task task, BranchOffice branchOffice) {
+		branchOffice.addDelegatedTask(task);
+	}
+	
 	/**
 	 * Adds the given task to this branch offices list of delegated tasks and updates 
 	 * whether or not the task is delegated.
@@ -82,7 +93,8 @@ public class BranchOffice implements DetailedBranchOffice {
 			task.setNotDelegated();
 		else // only add the task as a delegated task if it really is delegated and didn't originally belong to this office
 		{
-			this.delegatedTasks.add(task);
+			Simulation.changing(this);
+			this.delegatedTasks = this.delegatedTasks.put(task.getId(), task);
 			task.setDelegatedBranchOffice(this);
 		}
 	}
@@ -102,7 +114,8 @@ public class BranchOffice implements DetailedBranchOffice {
 					"An attempt has been made to remove a delegated task from a branch office"
 					+ " which does not contain the given task as one of its delegated tasks.");
 		
-		this.delegatedTasks.remove(task);
+		Simulation.changing(this);
+		this.delegatedTasks = this.delegatedTasks.remove(task.getId());
 	}
 	
 	/**
@@ -132,7 +145,7 @@ public class BranchOffice implements DetailedBranchOffice {
 	 *         branch office contains the given task.
 	 */
 	private boolean containsDelegatedTask(Task task) {
-		return delegatedTasks.contains(task);
+		return delegatedTasks.get(task.getId()) == task;
 	}
 	
 	/**
@@ -200,7 +213,7 @@ public class BranchOffice implements DetailedBranchOffice {
      * tasks.
      */
     public List<Task> getUnplannedTasks() {
-        List<Task> unplannedTasks = projectContainer.getUnplannedTasks();
+        List<Task> unplannedTasks = new ArrayList<>(projectContainer.getUnplannedTasks());
         unplannedTasks.addAll(getDelegatedUnplannedTasks());
         return unplannedTasks;
     }
@@ -212,10 +225,11 @@ public class BranchOffice implements DetailedBranchOffice {
     public List<Task> getAssignedUnplannedTasks() {
     	List<Task> assignedUnplannedTasks = new ArrayList<>();
     	
-    	for(Task task : getAssignedTasks())
-    		if(task.isUnplanned())
+    	for(Task task : projectContainer.getUnplannedTasks())
+    		if(!task.isDelegated())
     			assignedUnplannedTasks.add(task);
     	
+    	assignedUnplannedTasks.addAll(getDelegatedUnplannedTasks());
     	return assignedUnplannedTasks;
     }
     
@@ -223,14 +237,56 @@ public class BranchOffice implements DetailedBranchOffice {
      * @return The list of tasks assigned to this branch office.
      */
     public List<Task> getAssignedTasks() {
-    	Set<Task> assignedTasks = new HashSet<>();
+    	List<Task> assignedTasks = new ArrayList<>();
     	
+    	// tasks of this office are never in its own list of delegated tasks
     	for(Task task : projectContainer.getAllTasks())
-    		if(taskIsAssigned(task))
+    		if(!task.isDelegated())
     			assignedTasks.add(task);
     	
-    	assignedTasks.addAll(delegatedTasks);
-    	return new ArrayList<>(assignedTasks);
+    	assignedTasks.addAll(delegatedTasks.values());
+    	return assignedTasks;
+    }
+    
+    /**
+     * Returns the task with the given id which is assigned to this branch
+     * office.
+     * 
+     * @param pId The id of the project the task belongs to.
+     * @param tId The id of the task.
+     * @return The task with the given id if it is assigned to this branch
+     *         office, null otherwise.
+     * @see taskIsAssigned
+     */
+    public Task getAssignedTask(int pId, int tId) {
+    	Task task;
+    	if(directory != null) {
+    		task = directory.getTask(tId);
+    	} else {
+    		task = delegatedTasks.get(tId);
+    		if(task == null && projectContainer.hasProject(pId)) {
+    			Project project = projectContainer.getProject(pId);
+    			if(project.hasTask(tId))
+    				task = project.getTask(tId);
+    		}
+    	}
+    	
+    	if(task == null || task.getProject().getId() != pId || !taskIsAssigned(task))
+    		return null;
+    	return task;
+    }
+    
+    /**
+     * Registers the projects, tasks and resources of this branch office in
+     * the given directory, which is then used to look up tasks by id.
+     * 
+     * @param directory The directory of the company this branch office
+     *        belongs to.
+     */
+    void setDirectory(CompanyDirectory directory) {
+    	this.directory = directory;
+    	projectContainer.setDirectory(directory);
+    	resourceContainer.setDirectory(directory);
     }
     
     /**
@@ -239,11 +295,67 @@ public class BranchOffice implements DetailedBranchOffice {
     private List<Task> getDelegatedUnplannedTasks() {
         List<Task> tasks = new ArrayList<>();
         
-        for(Task task : delegatedTasks)
+        for(Task task : delegatedTasks.values())
             if(task.isUnplanned())
                 tasks.add(task);
         
         return tasks;
     }
 
+	/****************************************
+	 * Memento                              * 
+	 ****************************************/
+
+    /**
+     * Creates a memento for this branch office.
+     *
+     * @return A memento which stores the tasks delegated to this branch
+     * office.
+     */
+    @Override
+    public Memento createMemento() {
+        return new Memento(delegatedTasks);
+    }
+
+    /**
+     * Sets the tasks delegated to this branch office to the ones stored in
+     * the given memento.
+     *
+     * @param memento The memento containing the new state of this branch
+     * office.
+     */
+    @Override
+    public void setMemento(Memento memento) {
+        Simulation.changing(this);
+        this.delegatedTasks = memento.getDelegatedTasks();
+    }
+
+    /**
+     * Checks whether this branch office still has the delegated tasks stored
+     * in the given memento.
+     *
+     * @param memento The memento to compare with.
+     * @return True if this branch office has the same map of delegated tasks
+     * as the memento.
+     */
+    @Override
+    public boolean hasState(Memento memento) {
+        return delegatedTasks == memento.getDelegatedTasks();
+    }
+
+    /**
+     * This memento represents the tasks delegated to a branch office.
+     */
+    public class Memento {
+
+        private final PersistentSortedMap<Integer, Task> delegatedTasks;
+
+        private PersistentSortedMap<Integer, Task> getDelegatedTasks() {
+            return this.delegatedTasks;
+        }
+
+        private Memento(PersistentSortedMap<Integer, Task> delegatedTasks) {
+            this.delegatedTasks = delegatedTasks;
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package domain;
+
+import domain.time.Timespan;
+
+/**
+ * This class keeps track of how many resources of a single resource type are
+ * reserved over time.
+ *
+ * Time is counted in minutes and stored in a sparse segment tree, so
+ * reserving, releasing and asking for the maximum number of simultaneous
+ * reservations in a time span are all logarithmic in the length of the
+ * covered time range.
+ *
+ * @author Mathias, Pieter-Jan, Frederic
+ */
+class CapacityTimeline {
+
+    /*
+     * Epoch minutes of LocalDateTime.MIN and LocalDateTime.MAX both lie
+     * within [-2^50, 2^50), so this range covers every possible time span.
+     * The end of an infinite time span is clamped to the top of the range.
+     */
+    private static final long LOWEST = -(1L << 50);
+    private static final long HIGHEST = 1L << 50;
+
+    private final Node root;
+
+    /**
+     * Initializes an empty timeline.
+     */
+    CapacityTimeline() {
+        root = new Node();
+    }
+
+    /**
+     * Registers a reservation over the given time span.
+     *
+     * @param span The reserved time span.
+     */
+    void reserve(Timespan span) {
+        update(root, LOWEST, HIGHEST, clamp(span.getStartMinute()), clamp(span.getEndMinute()), 1);
+    }
+
+    /**
+     * Unregisters a reservation over the given time span.
+     *
+     * @param span The time span that is not reserved anymore.
+     */
+    void release(Timespan span) {
+        update(root, LOWEST, HIGHEST, clamp(span.getStartMinute()), clamp(span.getEndMinute()), -1);
+    }
+
+    /**
+     * Returns the maximum number of reservations at a single moment during
+     * the given time span.
+     *
+     * @param span The time span to check.
+     * @return The maximum number of reservations overlapping a single minute
+     * of {@code span}.
+     */
+    int getMaxReserved(Timespan span) {
+        return query(root, LOWEST, HIGHEST, clamp(span.getStartMinute()), clamp(span.getEndMinute()));
+    }
+
+    /****************************************************
+     * Segment tree                                     *
+	 ****************************************************/
+
+    private static void update(Node node, long lo, long hi, long from, long to, int delta) {
+        if (from <= lo && hi <= to) {
+            node.add += delta;
+            node.max += delta;
+            return;
+        }
+        long mid = lo + (hi - lo) / 2;
+        if (from < mid) {
+            if (node.left == null) {
+                node.left = new Node();
+            }
+            update(node.left, lo, mid, from, to, delta);
+            if (node.left.max == 0) {
+                node.left = null;
+            }
+        }
+        if (to > mid) {
+            if (node.right == null) {
+                node.right = new Node();
+            }
+            update(node.right, mid, hi, from, to, delta);
+            if (node.right.max == 0) {
+                node.right = null;
+            }
+        }
+        node.max = node.add + Math.max(maxOf(node.left), maxOf(node.right));
+    }
+
+    private static int query(Node node, long lo, long hi, long from, long to) {
+        if (node == null) {
+            return 0;
+        }
+        if (from <= lo && hi <= to) {
+            return node.max;
+        }
+        long mid = lo + (hi - lo) / 2;
+        int result = 0;
+        if (from < mid) {
+            result = Math.max(result, query(node.left, lo, mid, from, to));
+        }
+        if (to > mid) {
+            result = Math.max(result, query(node.right, mid, hi, from, to));
+        }
+        return node.add + result;
+    }
+
+    private static int maxOf(Node node) {
+        return node == null ? 0 : node.max;
+    }
+
+    /**
+     * A node of the segment tree. The number of reservations at a minute is
+     * the sum of the additions on the path from the root to that minute.
+     */
+    private static class Node {
+
+        private int add;
+        private int max;
+        private Node left, right;
+    }
+
+    private static long clamp(long epochMinute) {
+        return Math.max(LOWEST, Math.min(HIGHEST, epochMinute));
+    }
+}
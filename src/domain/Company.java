@@ -1,7 +1,7 @@
 package domain;
 
+import domain.task.Task;
 import domain.user.User;
-import exception.ObjectNotFoundException;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,6 +15,7 @@ public class Company {
 
     private final List<ResourceType> resourceTypes;
     private final List<BranchOffice> offices;
+    private final CompanyDirectory directory;					//performance-variable
     
     /**
      * Initializes this new company
@@ -22,6 +23,7 @@ public class Company {
     public Company() {
         resourceTypes = new ArrayList<>();
         offices = new ArrayList<>();
+        directory = new CompanyDirectory();
     }
     
     /**
@@ -68,6 +70,7 @@ public class Company {
      */
     public void addOffice(BranchOffice office) {
         offices.add(office);
+        office.setDirectory(directory);
     }
     
     //TODO: toegelaten? (zie onder)
@@ -92,14 +95,27 @@ public class Company {
      * @return the project with an id equal to the given one or null if it does not exist
      */
     public Project getProject(int id) {
-    	Project result = null;
-    	for(BranchOffice office : offices) {
-    		try {
-    			result = office.getProject(id);
-    			break;
-    		} catch(ObjectNotFoundException onfe) { }
-    	}
-    	return result;
+    	return directory.getProject(id);
+    }
+    
+    /**
+     * Get the task with a given id. A delegated task is found as well.
+     * 
+     * @param id The id of the task to look for
+     * @return the task with an id equal to the given one or null if it does not exist
+     */
+    public Task getTask(int id) {
+    	return directory.getTask(id);
+    }
+    
+    /**
+     * Get the resource with a given id.
+     * 
+     * @param id The id of the resource to look for
+     * @return the resource with an id equal to the given one or null if it does not exist
+     */
+    public Resource getResource(int id) {
+    	return directory.getResource(id);
     }
 
 }
@@ -0,0 +1,94 @@
+package domain;
+
+import domain.task.Task;
+import java.util.Arrays;
+
+/**
+ * This class keeps the projects, tasks and resources of a company by their
+ * ids. The containers of the branch offices of the company keep it up to date
+ * when projects, tasks and resources are added or removed, also when they are
+ * restored from a memento. A delegated task keeps its id and its project, so
+ * delegating a task doesn't change this directory.
+ *
+ * Ids are handed out one after the other from 0, so every kind of object is
+ * kept in an array indexed by id. The branch offices of a company can be
+ * built in parallel, so the tables are synchronized.
+ *
+ * @author Mathias, Frederic, Pieter-Jan
+ */
+final class CompanyDirectory {
+
+    private final IdTable<Project> projects = new IdTable<>();
+    private final IdTable<Task> tasks = new IdTable<>();
+    private final IdTable<Resource> resources = new IdTable<>();
+
+    /**
+     * @param id The id of the project to look for
+     * @return The project with the given id or null if there is none.
+     */
+    Project getProject(int id) {
+        return projects.get(id);
+    }
+
+    /**
+     * @param id The id of the task to look for
+     * @return The task with the given id or null if there is none.
+     */
+    Task getTask(int id) {
+        return tasks.get(id);
+    }
+
+    /**
+     * @param id The id of the resource to look for
+     * @return The resource with the given id or null if there is none.
+     */
+    Resource getResource(int id) {
+        return resources.get(id);
+    }
+
+    void addProject(Project project) {
+        projects.put(project.getId(), project);
+    }
+
+    void removeProject(Project project) {
+        projects.remove(project.getId(), project);
+    }
+
+    void addTask(Task task) {
+        tasks.put(task.getId(), task);
+    }
+
+    void removeTask(Task task) {
+        tasks.remove(task.getId(), task);
+    }
+
+    void addResource(Resource resource) {
+        resources.put(resource.getId(), resource);
+    }
+
+    /**
+     * A table of objects by their id, which grows to the largest id it holds.
+     */
+    private static final class IdTable<T> {
+
+        private Object[] entries = new Object[16];
+
+        @SuppressWarnings("unchecked")
+        synchronized T get(int id) {
+            return id >= 0 && id < entries.length ? (T) entries[id] : null;
+        }
+
+        synchronized void put(int id, T value) {
+            if (id >= entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(id + 1, entries.length * 2));
+            }
+            entries[id] = value;
+        }
+
+        synchronized void remove(int id, T value) {
+            if (id >= 0 && id < entries.length && entries[id] == value) {
+                entries[id] = null;
+            }
+        }
+    }
+}
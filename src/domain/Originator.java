@@ -0,0 +1,37 @@
+package domain;
+
+/**
+ * This interface represents an object whose state can be saved in a memento
+ * and restored later on.
+ *
+ * @param <M> The type of the mementos of this object.
+ * @author Frederic, Mathias, Pieter-Jan
+ */
+public interface Originator<M> {
+
+    /**
+     * Creates a memento for this object.
+     *
+     * @return A memento which stores the state of this object.
+     */
+    M createMemento();
+
+    /**
+     * Sets the state of this object to the state stored inside the given
+     * memento.
+     *
+     * @param memento The memento containing the new state of this object.
+     */
+    void setMemento(M memento);
+
+    /**
+     * Checks whether this object is still in the state stored in the given
+     * memento.
+     *
+     * @param memento The memento to compare with.
+     * @return True if the state of this object hasn't changed since the given
+     * memento was created. The check is cheap, so it may report a change
+     * when an object was changed and changed back.
+     */
+    boolean hasState(M memento);
+}
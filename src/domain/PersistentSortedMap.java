@@ -0,0 +1,472 @@
+package domain;
+
+import java.util.AbstractList;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * This class represents an immutable map with sorted keys. Every modification
+ * returns a new map which shares all untouched parts with the old one, so
+ * keeping an old version of the map around, for example in a memento, costs
+ * nothing.
+ *
+ * The map is stored in a height-balanced binary search tree, so looking up,
+ * adding and removing a key are logarithmic in the size of the map.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ *
+ * @author Mathias, Pieter-Jan, Frederic
+ */
+final class PersistentSortedMap<K extends Comparable<? super K>, V> {
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentSortedMap EMPTY = new PersistentSortedMap<>(null);
+
+    private final Node<K, V> root;
+
+    private PersistentSortedMap(Node<K, V> root) {
+        this.root = root;
+    }
+
+    /**
+     * @return The map without any keys.
+     */
+    @SuppressWarnings("unchecked")
+    static <K extends Comparable<? super K>, V> PersistentSortedMap<K, V> empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return The number of keys in this map.
+     */
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * @return True if and only if this map doesn't contain any keys.
+     */
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Returns the value of the given key.
+     *
+     * @param key The key to look up
+     * @return The value belonging to the given key or null if this map doesn't
+     * contain the key.
+     */
+    V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return node.value;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether this map contains the given key.
+     *
+     * @param key The key to check
+     * @return True if and only if this map contains the given key.
+     */
+    boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map with the given key set to the given value.
+     *
+     * @param key The key to set
+     * @param value The value to set the key to, not null
+     * @return A map equal to this map, except that the given key belongs to
+     * the given value.
+     */
+    PersistentSortedMap<K, V> put(K key, V value) {
+        return new PersistentSortedMap<>(put(root, key, value));
+    }
+
+    /**
+     * Returns a map without the given key.
+     *
+     * @param key The key to remove
+     * @return A map equal to this map, except that it doesn't contain the
+     * given key. This map itself if it doesn't contain the key.
+     */
+    PersistentSortedMap<K, V> remove(K key) {
+        Node<K, V> result = remove(root, key);
+        return result == root ? this : new PersistentSortedMap<>(result);
+    }
+
+    /**
+     * @return The entry with the smallest key or null if this map is empty.
+     */
+    Entry<K, V> firstEntry() {
+        Node<K, V> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.toEntry();
+    }
+
+    /**
+     * Returns the entry with the greatest key strictly less than the given key.
+     *
+     * @param key The key to compare with
+     * @return The entry with the greatest key smaller than {@code key} or null
+     * if there is no such key.
+     */
+    Entry<K, V> lowerEntry(K key) {
+        Node<K, V> node = root, result = null;
+        while (node != null) {
+            if (node.key.compareTo(key) < 0) {
+                result = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return result == null ? null : result.toEntry();
+    }
+
+    /**
+     * Returns the entry with the smallest key greater than or equal to the
+     * given key.
+     *
+     * @param key The key to compare with
+     * @return The entry with the smallest key not smaller than {@code key} or
+     * null if there is no such key.
+     */
+    Entry<K, V> ceilingEntry(K key) {
+        Node<K, V> node = root, result = null;
+        while (node != null) {
+            if (node.key.compareTo(key) >= 0) {
+                result = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return result == null ? null : result.toEntry();
+    }
+
+    /**
+     * Returns the number of keys smaller than the given key, which is the
+     * position of the key in the values of this map if it has the key.
+     *
+     * @param key The key to compare with
+     * @return The number of keys in this map that are smaller than
+     * {@code key}.
+     */
+    int rank(K key) {
+        Node<K, V> node = root;
+        int result = 0;
+        while (node != null) {
+            if (node.key.compareTo(key) < 0) {
+                result += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return A read-only view of the values of this map, ordered on their
+     * keys. This map never changes, so neither does the view.
+     */
+    List<V> values() {
+        return new Values();
+    }
+
+    /**
+     * Passes the values that differ between this map and the given map to
+     * the given consumers. The subtrees both maps share are skipped, so
+     * comparing a map with an older version of itself costs about the number
+     * of changes times the height of the tree.
+     *
+     * @param other The map to compare with
+     * @param removed Receives the values of this map that the other map
+     * doesn't have under the same key
+     * @param added Receives the values of the other map that this map doesn't
+     * have under the same key
+     */
+    void forEachDifference(PersistentSortedMap<K, V> other, Consumer<? super V> removed, Consumer<? super V> added) {
+        Cursor<K, V> from = new Cursor<>(root);
+        Cursor<K, V> to = new Cursor<>(other.root);
+        while (!from.isEmpty() || !to.isEmpty()) {
+            if (from.atSubtree() && to.atSubtree() && from.top() == to.top()) {
+                from.pop();
+                to.pop();
+            } else if (from.atSubtree() && !(to.atSubtree() && height(to.top()) > height(from.top()))) {
+                from.expand();
+            } else if (to.atSubtree()) {
+                to.expand();
+            } else if (to.isEmpty() || (!from.isEmpty() && from.top().key.compareTo(to.top().key) < 0)) {
+                removed.accept(from.pop().value);
+            } else if (from.isEmpty() || to.top().key.compareTo(from.top().key) < 0) {
+                added.accept(to.pop().value);
+            } else {
+                V old = from.pop().value;
+                V value = to.pop().value;
+                if (old != value) {
+                    removed.accept(old);
+                    added.accept(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the values of the keys in the given range, ordered on their keys.
+     *
+     * @param from The smallest key to include or null for no lower bound
+     * @param to The key to stop before or null for no upper bound
+     * @return The values of the keys that are not smaller than {@code from}
+     * and smaller than {@code to}.
+     */
+    List<V> values(K from, K to) {
+        List<V> result = new ArrayList<>();
+        collect(root, from, to, result);
+        return result;
+    }
+
+    /****************************************************
+     * Tree                                             *
+	 ****************************************************/
+
+    private static <K extends Comparable<? super K>, V> void collect(Node<K, V> node, K from, K to, List<V> result) {
+        if (node == null) {
+            return;
+        }
+        boolean afterFrom = from == null || node.key.compareTo(from) >= 0;
+        boolean beforeTo = to == null || node.key.compareTo(to) < 0;
+        if (afterFrom) {
+            collect(node.left, from, to, result);
+        }
+        if (afterFrom && beforeTo) {
+            result.add(node.value);
+        }
+        if (beforeTo) {
+            collect(node.right, from, to, result);
+        }
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> put(Node<K, V> node, K key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, null, null);
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            return balance(node.key, node.value, put(node.left, key, value), node.right);
+        } else if (cmp > 0) {
+            return balance(node.key, node.value, node.left, put(node.right, key, value));
+        } else {
+            return new Node<>(key, value, node.left, node.right);
+        }
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> remove(Node<K, V> node, K key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            Node<K, V> left = remove(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        } else if (cmp > 0) {
+            Node<K, V> right = remove(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else {
+            Node<K, V> min = node.right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            return balance(min.key, min.value, node.left, removeMin(node.right));
+        }
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> removeMin(Node<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeMin(node.left), node.right);
+    }
+
+    private static <K extends Comparable<? super K>, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        if (height(left) > height(right) + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+            }
+            return new Node<>(left.right.key, left.right.value,
+                    new Node<>(left.key, left.value, left.left, left.right.left),
+                    new Node<>(key, value, left.right.right, right));
+        }
+        if (height(right) > height(left) + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+            }
+            return new Node<>(right.left.key, right.left.value,
+                    new Node<>(key, value, left, right.left.left),
+                    new Node<>(right.key, right.value, right.left.right, right.right));
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    private static int height(Node<?, ?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * A read-only view of the values of the map, ordered on their keys.
+     */
+    private final class Values extends AbstractList<V> {
+
+        @Override
+        public V get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            Node<K, V> node = root;
+            while (true) {
+                int before = PersistentSortedMap.size(node.left);
+                if (index == before) {
+                    return node.value;
+                }
+                if (index < before) {
+                    node = node.left;
+                } else {
+                    index -= before + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return PersistentSortedMap.this.size();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<V>() {
+                private final Cursor<K, V> cursor = new Cursor<>(root);
+
+                @Override
+                public boolean hasNext() {
+                    return !cursor.isEmpty();
+                }
+
+                @Override
+                public V next() {
+                    if (cursor.isEmpty()) {
+                        throw new NoSuchElementException();
+                    }
+                    while (cursor.atSubtree()) {
+                        cursor.expand();
+                    }
+                    return cursor.pop().value;
+                }
+            };
+        }
+    }
+
+    /**
+     * A position in the in-order walk of a tree. The walk is kept as a stack
+     * of the nodes that still have to be visited, where a node stands either
+     * for its whole subtree or only for its own entry.
+     */
+    private static final class Cursor<K, V> {
+
+        private final Deque<Node<K, V>> nodes = new ArrayDeque<>();
+        private final Deque<Boolean> subtrees = new ArrayDeque<>();
+
+        private Cursor(Node<K, V> root) {
+            push(root, true);
+        }
+
+        private boolean isEmpty() {
+            return nodes.isEmpty();
+        }
+
+        private boolean atSubtree() {
+            return !subtrees.isEmpty() && subtrees.peek();
+        }
+
+        private Node<K, V> top() {
+            return nodes.peek();
+        }
+
+        private Node<K, V> pop() {
+            subtrees.pop();
+            return nodes.pop();
+        }
+
+        /**
+         * Replaces the subtree on top by its left subtree, its own entry and
+         * its right subtree.
+         */
+        private void expand() {
+            Node<K, V> node = pop();
+            push(node.right, true);
+            push(node, false);
+            push(node.left, true);
+        }
+
+        private void push(Node<K, V> node, boolean subtree) {
+            if (node != null) {
+                nodes.push(node);
+                subtrees.push(subtree);
+            }
+        }
+    }
+
+    /**
+     * An immutable node of the tree.
+     */
+    private static final class Node<K, V> {
+
+        private final K key;
+        private final V value;
+        private final Node<K, V> left, right;
+        private final int height, size;
+
+        private Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        private Entry<K, V> toEntry() {
+            return new SimpleImmutableEntry<>(key, value);
+        }
+    }
+}
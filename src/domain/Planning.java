@@ -29,13 +29,41 @@ public class Planning implements ClockObserver, DetailedPlanning{
      * @param resources The resources belonging to this planning.
      * @param timespan The timespan belonging to this planning.
      * @param task The task belonging to this planning.
-     * @param clock The clock to which this planning has to be attached as a clock observer.
+     * @param clock The clock at which this planning is scheduled to end.
      */
     public Planning(List<Resource> resources, Timespan timespan, Task task, Clock clock) {
         this.resources = resources;
         this.timespan = timespan;
         this.task = task;
-        clock.attach(this);
+        schedule(clock);
+    }
+    
+    /**
+     * Schedules this planning to be updated by the given clock at the end of
+     * its time span. In a simulation, this planning is only scheduled when
+     * the simulation is committed.
+     * 
+     * @param clock The clock at which this planning is scheduled to end.
+     */
+    public final void schedule(Clock clock) {
+        Runnable change = () -> clock.schedule(this, timespan.getEndTime());
+        if (!Simulation.defer(change)) {
+            change.run();
+        }
+    }
+    
+    /**
+     * Cancels the scheduled update of this planning by the given clock. In a
+     * simulation, the update is only cancelled when the simulation is
+     * committed.
+     * 
+     * @param clock The clock this planning is scheduled at.
+     */
+    public void detach(Clock clock) {
+        Runnable change = () -> clock.detach(this);
+        if (!Simulation.defer(change)) {
+            change.run();
+        }
     }
     
     /**
@@ -55,7 +83,7 @@ public class Planning implements ClockObserver, DetailedPlanning{
      * @return True if and only if the time span belonging to this planning starts before
      */
     public boolean isBefore(LocalDateTime currentTime) {
-        return timespan.startsBefore(currentTime) || timespan.getStartTime().equals(currentTime);
+        return !timespan.startsAfter(currentTime);
     }
     
     /**
@@ -74,13 +102,14 @@ public class Planning implements ClockObserver, DetailedPlanning{
     }
     
     /**
-     * Ends this planning when it is in the past and free all reserved resources
+     * Ends this planning when it is in the past and free all reserved resources,
+     * unless the task has been planned again since.
      * 
      * @param currentTime The time to compare to
      */
     @Override
     public void update(LocalDateTime currentTime) {
-        if(!timespan.endsAfter(currentTime)) {
+        if(!timespan.endsAfter(currentTime) && task.getPlanning() == this) {
             task.setPlanning(null);
             
             for(Resource res :resources) {
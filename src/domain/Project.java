@@ -7,11 +7,14 @@ import domain.time.Timespan;
 import exception.ObjectNotFoundException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class represents a project with an id, a name, a description, a creation
@@ -22,7 +25,7 @@ import java.util.TreeMap;
  * @author Frederic, Mathias, Pieter-Jan
  *
  */
-public class Project implements DetailedProject {
+public class Project implements DetailedProject, Originator<Project.Memento> {
 
 	/**
      * Constant to use when a task has no dependencies.
@@ -33,16 +36,26 @@ public class Project implements DetailedProject {
      * constant is {@value}.
      */
     public static final int NO_ALTERNATIVE = -1;
+    /**
+     * Constant to use when a new project should get a newly generated id. The
+     * value of this constant is {@value}.
+     */
+    public static final int NEW_ID = -1;
 
-    private static int nextId = 0;
+    private static final AtomicInteger nextId = new AtomicInteger();
 
     private final int id;
     private final String name;
     private final String description;
     private final Timespan creationDueTime;
-    private final Map<Integer, Task> tasks = new TreeMap<>();
+    private PersistentSortedMap<Integer, Task> tasks = PersistentSortedMap.empty();
+    private final Map<Integer, Task> availableTasks = new TreeMap<>();		//available or executing
+    private final Map<Integer, Task> unplannedTasks = new TreeMap<>();
+    private int nextTaskOrdinal;								//ordinals are never reused
+    private CompanyDirectory directory;
 
     private boolean isFinished;									//performance-variable
+    private Metrics metrics;									//performance-variable
 
     /**
      * Construct a new project, with given id, name, description, creation time
@@ -56,15 +69,33 @@ public class Project implements DetailedProject {
      * or if creation and due form an invalid time pair.
      */
     public Project(String name, String descr, LocalDateTime creation, LocalDateTime due) {
+        this(NEW_ID, name, descr, creation, due);
+    }
+
+    /**
+     * Construct a new project, with given id, name, description, creation time
+     * and due time.
+     *
+     * @param id The id for this project, reserved with {@link #reserveIds(int)},
+     * or {@link #NEW_ID} to generate a new id.
+     * @param name The name for this project.
+     * @param descr The description for this project.
+     * @param creation The creation time for this project.
+     * @param due The due time for this project.
+     * @throws	IllegalArgumentException if name or descr = null or if creation
+     * and due form an invalid time pair.
+     */
+    public Project(int id, String name, String descr, LocalDateTime creation, LocalDateTime due) {
         if (!canHaveAsName(name) || !canHaveAsDescription(descr)) {
             throw new IllegalArgumentException("Both name (at least one character) and description "
                     + "(at least one character) are expected.");
         }
 
-        this.id = Project.generateId();
+        this.id = id == NEW_ID ? Project.generateId() : id;
         this.name = name;
         this.description = descr;
         this.creationDueTime = new Timespan(creation, due);
+        Simulation.created(this);
     }
 
     /****************************************
@@ -75,7 +106,28 @@ public class Project implements DetailedProject {
 	 * @return	a newly generated id for the next task.
 	 */
 	private static int generateId() {
-	    return Project.nextId++;
+	    return Project.nextId.getAndIncrement();
+	}
+
+	/**
+	 * Reserves the given number of consecutive ids, so projects can be
+	 * created with a known id from several threads at once.
+	 *
+	 * @param count The number of ids to reserve.
+	 * @return The first reserved id.
+	 */
+	public static int reserveIds(int count) {
+	    return Project.nextId.getAndAdd(count);
+	}
+
+	/**
+	 * Makes sure no project that is created from now on gets an id smaller
+	 * than the given id, so a project can be restored with its original id.
+	 *
+	 * @param id The smallest id for the next project.
+	 */
+	public static void skipIdsBelow(int id) {
+	    Project.nextId.accumulateAndGet(id, Math::max);
 	}
 	
 	/**
@@ -148,7 +200,29 @@ public class Project implements DetailedProject {
 	public List<Task> getTasks() {
 	    return new LinkedList<>(tasks.values());
 	}
-	
+
+	/**
+	 * @return A read-only list of the tasks of this project, ordered on their
+	 * ids. The list doesn't copy the tasks and doesn't follow later changes
+	 * of this project.
+	 */
+	public List<Task> getTasksInOrder() {
+	    return tasks.values();
+	}
+
+	/**
+	 * Returns the position of a task among the tasks of this project, in the
+	 * order of their ids.
+	 *
+	 * @param tid The id of the task.
+	 *
+	 * @return The number of tasks in this project with a smaller id than the
+	 * given id.
+	 */
+	public int getPosition(int tid) {
+	    return tasks.rank(tid);
+	}
+
 	/**
 	 * Checks whether this project contains the task with the given task id.
 	 *
@@ -170,7 +244,7 @@ public class Project implements DetailedProject {
 	 * false otherwise.
 	 */
 	public boolean hasTask(Task task) {
-	    return tasks.containsValue(task);
+	    return task != null && tasks.get(task.getId()) == task;
 	}
 	
 	/**
@@ -235,7 +309,104 @@ public class Project implements DetailedProject {
 	        throw new IllegalArgumentException("The given task can't be a part of this project.");
 	    }
 	
-	    this.tasks.put(t.getId(), t);
+	    restoreTask(t);
+	}
+	
+	/**
+	 * Adds the given task to this project without checking whether this
+	 * project can have it. This is only meant to restore a saved state of
+	 * the system.
+	 * 
+	 * @param t The task to add.
+	 */
+	public void restoreTask(Task t) {
+	    Simulation.changing(this);
+	    this.tasks = this.tasks.put(t.getId(), t);
+	    t.setOrdinal(nextTaskOrdinal++);
+	    if (directory != null) {
+	        directory.addTask(t);
+	    }
+	    this.metrics = null;
+	    classify(t);
+	}
+	
+	/**
+	 * Removes the given task from this project. This is only meant to undo
+	 * the creation of the task, so no other task should depend on it.
+	 * 
+	 * @param t The task to remove.
+	 * @throws	IllegalArgumentException if this project doesn't contain the
+	 * given task.
+	 */
+	public void removeTask(Task t) throws IllegalArgumentException {
+	    if (!hasTask(t)) {
+	        throw new IllegalArgumentException("The given task is not a part of this project.");
+	    }
+	    
+	    Simulation.changing(this);
+	    this.tasks = this.tasks.remove(t.getId());
+	    t.unregisterFromPrerequisites();
+	    if (directory != null) {
+	        directory.removeTask(t);
+	    }
+	    this.metrics = null;
+	    this.availableTasks.remove(t.getId());
+	    this.unplannedTasks.remove(t.getId());
+	}
+	
+	/**
+	 * Registers this project and its tasks in the given directory, after
+	 * removing them from the directory they were registered in.
+	 * 
+	 * @param directory The directory of the company this project belongs to,
+	 * or null if it doesn't belong to a company anymore.
+	 */
+	void setDirectory(CompanyDirectory directory) {
+	    if (this.directory != null) {
+	        this.directory.removeProject(this);
+	        for (Task t : tasks.values()) {
+	            this.directory.removeTask(t);
+	        }
+	    }
+	    this.directory = directory;
+	    if (directory != null) {
+	        directory.addProject(this);
+	        for (Task t : tasks.values()) {
+	            directory.addTask(t);
+	        }
+	    }
+	}
+	
+	/**
+	 * Notifies this project that the state of one of its tasks has changed,
+	 * so the cached figures of this project have to be recalculated.
+	 * 
+	 * @param t The task that has changed.
+	 */
+	public void taskChanged(Task t) {
+	    this.metrics = null;
+	    if (tasks.get(t.getId()) == t) {
+	        classify(t);
+	    }
+	}
+	
+	/**
+	 * Puts the given task in the collections of available and unplanned tasks
+	 * it belongs to and removes it from the others.
+	 * 
+	 * @param t The task to classify.
+	 */
+	private void classify(Task t) {
+	    if (t.isAvailable() || t.isExecuting()) {
+	        availableTasks.put(t.getId(), t);
+	    } else {
+	        availableTasks.remove(t.getId());
+	    }
+	    if (t.isUnplanned()) {
+	        unplannedTasks.put(t.getId(), t);
+	    } else {
+	        unplannedTasks.remove(t.getId());
+	    }
 	}
 	
 	/**
@@ -254,6 +425,24 @@ public class Project implements DetailedProject {
 	 *
 	 */
 	public Task createTask(String descr, Duration estdur, int accdev, int altFor, List<Integer> prereqs, Map<ResourceType, Integer> requiredResources) {
+	    return createTask(Task.NEW_ID, descr, estdur, accdev, altFor, prereqs, requiredResources);
+	}
+
+	/**
+	 * Create a task with the given id and add it to this project.
+	 *
+	 * @param id The id of the task, reserved with {@link Task#reserveIds(int)},
+	 * or {@link Task#NEW_ID} to generate a new id.
+	 * @param descr The description of the new task.
+	 * @param estdur The estimated duration of the new task.
+	 * @param accdev The acceptable deviation of the new task.
+	 * @param altFor The id of the task the new task is an alternative for.
+	 * @param prereqs The ids of the prerequisite tasks of the new task.
+	 * @param requiredResources The required resources of the new task.
+	 * @return The created task.
+	 * @see #createTask(String, Duration, int, int, List, Map)
+	 */
+	public Task createTask(int id, String descr, Duration estdur, int accdev, int altFor, List<Integer> prereqs, Map<ResourceType, Integer> requiredResources) {
 	    if (isFinished()) {
 	        throw new IllegalStateException("This project has already been finished.");
 	    }
@@ -267,14 +456,14 @@ public class Project implements DetailedProject {
 	
 	    Task t;
 	    if (prereqs.equals(Project.NO_DEPENDENCIES)) {
-	        t = new Task(descr, estdur, accdev, requiredResources, this);
+	        t = new Task(id, descr, estdur, accdev, null, requiredResources, this);
 	    } else {
 	        List<Task> taskList = new ArrayList<>();
 	        for (Integer tId : prereqs) {
 	            taskList.add(getTask(tId));
 	        }
 	
-	        t = new Task(descr, estdur, accdev, taskList, requiredResources, this);
+	        t = new Task(id, descr, estdur, accdev, taskList, requiredResources, this);
 	    }
 	
 	    if (altFor != Project.NO_ALTERNATIVE) {
@@ -287,59 +476,62 @@ public class Project implements DetailedProject {
 	/**
 	 * Return all tasks from this project which are available.
 	 *
-	 * @return	a list of tasks which are available or executing, an empty list if this
-	 * project is already finished.
+	 * @return	a read-only view of the tasks which are available or executing,
+	 * empty if this project is already finished.
 	 *
 	 * @see	Task#isAvailable()
 	 * @see	Task#isExecuting()
 	 */
-	public List<Task> getAvailableTasks() {
-	    List<Task> result = new LinkedList<>();
-	    
-	    for (Task t : getTasks()) {
-	        if (t.isAvailable() || t.isExecuting()) {
-	            result.add(t);
-	        }
-	    }
-	    
-	    return result;
+	public Collection<Task> getAvailableTasks() {
+	    return Collections.unmodifiableCollection(availableTasks.values());
 	}
 	
 	/**
 	 * Return all tasks from this project which are available.
 	 *
-	 * @return	a list of tasks which are available to be planned, an empty list
-	 * if this project does not contain such tasks.
+	 * @return	a read-only view of the tasks which are available to be planned,
+	 * empty if this project does not contain such tasks.
 	 *
 	 * @see	Task#hasPlanning()
 	 */
-	public List<Task> getCanBePlannedTasks() {
-	    List<Task> result = new LinkedList<>();
-	    
-	    for (Task t : getTasks()) {
-	        if (t.isUnplanned()) {
-	            result.add(t);
-	        }
-	    }
-	    
-	    return result;
+	public Collection<Task> getCanBePlannedTasks() {
+	    return getUnplannedTasks();
 	}
 	
 	/**
 	 * Returns a list of all the unplanned tasks belonging to this project.
 	 * 
-	 * @return The list of tasks belonging to this project which are unplanned.
+	 * @return A read-only view of the tasks belonging to this project which
+	 * are unplanned.
 	 * 
 	 * @see Task#hasPlanning()
 	 */
-	public List<Task> getUnplannedTasks() {
-		List<Task> unplannedTasks = new ArrayList<>();
-		
-		for(Task t : getTasks())
-			if (t.isUnplanned())
-				unplannedTasks.add(t);
-		
-		return unplannedTasks;
+	public Collection<Task> getUnplannedTasks() {
+		return Collections.unmodifiableCollection(unplannedTasks.values());
+	}
+	
+	/**
+	 * Checks whether the given task is one of the available or executing
+	 * tasks of this project.
+	 * 
+	 * @param t The task to check.
+	 * @return True if and only if the given task is contained in
+	 * {@link #getAvailableTasks()}.
+	 */
+	boolean hasAvailableTask(Task t) {
+	    return availableTasks.get(t.getId()) == t;
+	}
+	
+	/**
+	 * Checks whether the given task is one of the unplanned tasks of this
+	 * project.
+	 * 
+	 * @param t The task to check.
+	 * @return True if and only if the given task is contained in
+	 * {@link #getUnplannedTasks()}.
+	 */
+	boolean hasUnplannedTask(Task t) {
+	    return unplannedTasks.get(t.getId()) == t;
 	}
 	
 	/**
@@ -356,19 +548,19 @@ public class Project implements DetailedProject {
 	 */
 	@Override
 	public Map<Task, Double> getUnacceptablyOverdueTasks(LocalDateTime now) {
-	    Map<Task, Double> result = new HashMap<>();
-	
-	    for (Task t : getTasks()) {
-	        if (t.isFulfilled()) {
-	            continue;
-	        }
-	        LocalDateTime estFinTime = t.getEstimatedEndTime(now);
-	        if (estFinTime.isAfter(getDueTime())) {
-	            result.put(t, new Duration(getCreationTime(), estFinTime).percentageOver(new Duration(getCreationTime(), getDueTime())));
+	    Metrics m = getMetrics();
+	    if (!now.equals(m.overdueTime)) {
+	        m.overdueTasks = new HashMap<>();
+	        for (Task t : m.getUnfulfilledTasks()) {
+	            LocalDateTime estFinTime = t.getEstimatedEndTime(now);
+	            if (estFinTime.isAfter(getDueTime())) {
+	                m.overdueTasks.put(t, new Duration(getCreationTime(), estFinTime).percentageOver(new Duration(getCreationTime(), getDueTime())));
+	            }
 	        }
+	        m.overdueTime = now;
 	    }
 	
-	    return result;
+	    return new HashMap<>(m.overdueTasks);
 	}
 	
 	/**
@@ -384,17 +576,8 @@ public class Project implements DetailedProject {
 	    if (isFinished) {
 	        return true;
 	    }
-	    if (getTasks().isEmpty()) {
-	        return false;
-	    }
 	
-	    for (Task t : getTasks()) {
-	        if (!t.isFulfilled()) {
-	            return false;
-	        }
-	    }
-	
-	    return (isFinished = true);
+	    return (isFinished = getMetrics().isFinished());
 	}
 	
 	/****************************************
@@ -410,26 +593,9 @@ public class Project implements DetailedProject {
 	@Override
 	public boolean isOnTime(LocalDateTime now) {
 	    if (isFinished()) {
-	        for (Task t : getTasks()) {
-	            if (t.getTimeSpan().endsAfter(this.getDueTime())) {
-	                return false;
-	            }
-	        }
-	        return true;
+	        return !getMetrics().endsAfterDueTime();
 	    } else {
-	        Duration temp, max = Duration.ZERO;
-	        Duration temp2, max2 = Duration.ZERO;
-	        for (Task t : getTasks()) {
-	            temp = t.estimatedWorkTimeNeeded();
-	            if (temp.compareTo(max) > 0) {
-	                max = temp;
-	            }
-	            temp2 = t.getTimeSpent();
-	            if (temp2.compareTo(max2) > 0) {
-	                max2 = temp2;
-	            }
-	        }
-	        LocalDateTime end = max.add(max2).getEndTimeFrom(getCreationTime());
+	        LocalDateTime end = getMetrics().getEstimatedEndTime();
 	        if (now.isAfter(end)) {
 	        	end = now;
 	        }
@@ -449,11 +615,7 @@ public class Project implements DetailedProject {
 	    if (isOnTime(now)) {
 	        return Duration.ZERO;
 	    }
-	    Duration totalDuration = Duration.ZERO;
-	    for (Task t : getTasks()) {
-	        totalDuration = totalDuration.add(t.getDelay());
-	    }
-	    return totalDuration;
+	    return getMetrics().getTotalDelay();
 	}
 	
 	/**
@@ -467,15 +629,126 @@ public class Project implements DetailedProject {
 	 */
 	@Override
 	public Duration getTotalExecutionTime() {
-	    Duration res = Duration.ZERO;
+	    return getMetrics().getTotalExecutionTime();
+	}
+	
+	/**
+	 * @return The figures of this project, calculated from the current state
+	 * of its tasks.
+	 */
+	private Metrics getMetrics() {
+	    if (metrics == null) {
+	        metrics = new Metrics();
+	    }
+	    return metrics;
+	}
+	
+	/**
+	 * The figures of this project that only change when one of its tasks
+	 * changes. Each figure is calculated the first time it is asked for and
+	 * thrown away as soon as a task changes.
+	 */
+	private class Metrics {
+	    
+	    private List<Task> unfulfilledTasks;
+	    private Boolean endsAfterDueTime;
+	    private LocalDateTime estimatedEndTime;
+	    private Duration totalDelay;
+	    private Duration totalExecutionTime;
+	    private LocalDateTime overdueTime;
+	    private Map<Task, Double> overdueTasks;
 	    
-	    for (Task t : getTasks()) {
-	        if (t.hasTimeSpan()) {
-	            res = res.add(t.getTimeSpan().getDuration());
+	    /**
+	     * @return The tasks of this project which are not fulfilled.
+	     */
+	    private List<Task> getUnfulfilledTasks() {
+	        if (unfulfilledTasks == null) {
+	            unfulfilledTasks = new ArrayList<>();
+	            for (Task t : tasks.values()) {
+	                if (!t.isFulfilled()) {
+	                    unfulfilledTasks.add(t);
+	                }
+	            }
+	        }
+	        return unfulfilledTasks;
+	    }
+	    
+	    /**
+	     * @return True if and only if this project has tasks and all of them
+	     * are fulfilled.
+	     */
+	    private boolean isFinished() {
+	        return !tasks.isEmpty() && getUnfulfilledTasks().isEmpty();
+	    }
+	    
+	    /**
+	     * @return True if and only if the time span of any task of this project
+	     * ends after the due time.
+	     */
+	    private boolean endsAfterDueTime() {
+	        if (endsAfterDueTime == null) {
+	            endsAfterDueTime = false;
+	            for (Task t : tasks.values()) {
+	                if (t.getTimeSpan().endsAfter(getDueTime())) {
+	                    endsAfterDueTime = true;
+	                    break;
+	                }
+	            }
+	        }
+	        return endsAfterDueTime;
+	    }
+	    
+	    /**
+	     * @return The time this project is estimated to end, based on the
+	     * largest amount of work time needed and time spent of its tasks.
+	     */
+	    private LocalDateTime getEstimatedEndTime() {
+	        if (estimatedEndTime == null) {
+	            Duration temp, max = Duration.ZERO;
+	            Duration temp2, max2 = Duration.ZERO;
+	            for (Task t : tasks.values()) {
+	                temp = t.estimatedWorkTimeNeeded();
+	                if (temp.compareTo(max) > 0) {
+	                    max = temp;
+	                }
+	                temp2 = t.getTimeSpent();
+	                if (temp2.compareTo(max2) > 0) {
+	                    max2 = temp2;
+	                }
+	            }
+	            estimatedEndTime = max.add(max2).getEndTimeFrom(getCreationTime());
+	        }
+	        return estimatedEndTime;
+	    }
+	    
+	    /**
+	     * @return The sum of the delays of the tasks of this project.
+	     */
+	    private Duration getTotalDelay() {
+	        if (totalDelay == null) {
+	            totalDelay = Duration.ZERO;
+	            for (Task t : tasks.values()) {
+	                totalDelay = totalDelay.add(t.getDelay());
+	            }
 	        }
+	        return totalDelay;
 	    }
 	    
-	    return res;
+	    /**
+	     * @return The sum of the durations of the time spans of the tasks of
+	     * this project.
+	     */
+	    private Duration getTotalExecutionTime() {
+	        if (totalExecutionTime == null) {
+	            totalExecutionTime = Duration.ZERO;
+	            for (Task t : tasks.values()) {
+	                if (t.hasTimeSpan()) {
+	                    totalExecutionTime = totalExecutionTime.add(t.getTimeSpan().getDuration());
+	                }
+	            }
+	        }
+	        return totalExecutionTime;
+	    }
 	}
 
 	/**
@@ -495,20 +768,65 @@ public class Project implements DetailedProject {
 	 *
 	 * @return A memento which stores the state of this project.
 	 */
+	@Override
 	public Memento createMemento() {
 	    return new Memento(isFinished, tasks);
 	}
 	
 	/**
 	 * Sets the state of this project to the state stored inside the given
-	 * memento.
+	 * memento. Only the tasks that differ between this project and the
+	 * memento are registered or unregistered, so this costs the size of the
+	 * difference.
 	 *
 	 * @param memento The memento containing the new state of this project.
 	 */
+	@Override
 	public void setMemento(Memento memento) {
+	    Simulation.changing(this);
 	    this.isFinished = memento.getIsFinished();
-	    this.tasks.clear();
-	    this.tasks.putAll(memento.getTasks());
+	    tasks.forEachDifference(memento.getTasks(), this::forgetTask, this::recallTask);
+	    this.tasks = memento.getTasks();
+	    this.metrics = null;
+	}
+	
+	/**
+	 * Checks whether this project still has the tasks stored in the given
+	 * memento.
+	 *
+	 * @param memento The memento to compare with.
+	 * @return True if this project has the same map of tasks as the memento.
+	 */
+	@Override
+	public boolean hasState(Memento memento) {
+	    return tasks == memento.getTasks();
+	}
+	
+	/**
+	 * Forgets a task that isn't a part of the restored state of this project.
+	 * 
+	 * @param t The task to forget.
+	 */
+	private void forgetTask(Task t) {
+	    t.unregisterFromPrerequisites();
+	    if (directory != null) {
+	        directory.removeTask(t);
+	    }
+	    availableTasks.remove(t.getId());
+	    unplannedTasks.remove(t.getId());
+	}
+	
+	/**
+	 * Recalls a task that is a part of the restored state of this project.
+	 * 
+	 * @param t The task to recall.
+	 */
+	private void recallTask(Task t) {
+	    t.registerWithPrerequisites();
+	    if (directory != null) {
+	        directory.addTask(t);
+	    }
+	    classify(t);
 	}
 
 
@@ -518,19 +836,19 @@ public class Project implements DetailedProject {
     public class Memento {
 
         private final boolean isFinished;
-        private final Map<Integer, Task> tasks;
+        private final PersistentSortedMap<Integer, Task> tasks;
 
-        private Memento(boolean isFinished, Map<Integer, Task> tasks) {
+        private Memento(boolean isFinished, PersistentSortedMap<Integer, Task> tasks) {
             this.isFinished = isFinished;
-            this.tasks = new HashMap<>(tasks);
+            this.tasks = tasks;
         }
 
         private boolean getIsFinished() {
             return this.isFinished;
         }
 
-        private Map<Integer, Task> getTasks() {
-            return new HashMap<>(this.tasks);
+        private PersistentSortedMap<Integer, Task> getTasks() {
+            return this.tasks;
         }
 
     }
@@ -3,25 +3,36 @@ package domain;
 import domain.task.Task;
 import exception.ObjectNotFoundException;
 import java.time.LocalDateTime;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * This class provides a container for holding all projects in the system.
  * This class also provides several actions to perform on this set of projects.
  * @author Mathias
  */
-public class ProjectContainer {
+public class ProjectContainer implements Originator<ProjectContainer.Memento> {
 
-    private final Map<Integer, Project> projects;
+    private PersistentSortedMap<Integer, Project> projects;
+    private CompanyDirectory directory;
+    private final Map<Task, Project> availableTasks = new AvailableTasks();
+    private final Collection<Task> unplannedTasks = new UnplannedTasks();
 
     /**
      * Initializes a new project container and its systemClock.
      */
     public ProjectContainer() {
-        projects = new HashMap<>();
+        projects = PersistentSortedMap.empty();
     }
 
     /**
@@ -30,6 +41,15 @@ public class ProjectContainer {
     public List<Project> getProjects() {
         return new ArrayList<>(projects.values());
     }
+
+    /**
+     * @return A read-only list of the projects contained by this
+     * projectContainer, ordered on their ids. The list doesn't copy the
+     * projects and doesn't follow later changes of this projectContainer.
+     */
+    public List<Project> getProjectsInOrder() {
+        return projects.values();
+    }
 	
 	/****************************************
 	 * Projects                             * 
@@ -51,6 +71,18 @@ public class ProjectContainer {
         return unfinishedProjects;
     }
 
+    /**
+     * Checks whether this project container contains the project with the
+     * given id.
+     *
+     * @param pId The id of the project to check
+     * @return True if and only if this project container contains a project
+     * with the given id.
+     */
+    public boolean hasProject(int pId) {
+        return projects.containsKey(pId);
+    }
+
     /**
      * Returns the project with the given id.
      *
@@ -60,7 +92,7 @@ public class ProjectContainer {
      * exist in this project container.
      */
     public Project getProject(int pId) throws ObjectNotFoundException {
-        if (!projects.containsKey(pId)) {
+        if (!hasProject(pId)) {
             throw new ObjectNotFoundException("The project with the specified id doesn't exist.", pId);
         }
         
@@ -86,18 +118,68 @@ public class ProjectContainer {
      * @return	the project that has been created.
      */
     public Project createProject(String name, String description, LocalDateTime startTime, LocalDateTime dueTime) {
-        Project p = new Project(name, description, startTime, dueTime);
+        return createProject(Project.NEW_ID, name, description, startTime, dueTime);
+    }
+
+    /**
+     * Creates a new project with the given id and details and add it to this
+     * projectContainer.
+     *
+     * @param id The id of the project, reserved with
+     * {@link Project#reserveIds(int)}, or {@link Project#NEW_ID} to generate
+     * a new id.
+     * @param name The name of the project
+     * @param description The description of the project
+     * @param startTime The start time of the project
+     * @param dueTime The time by which the project should be ended.
+     * @return	the project that has been created.
+     */
+    public Project createProject(int id, String name, String description, LocalDateTime startTime, LocalDateTime dueTime) {
+        Project p = new Project(id, name, description, startTime, dueTime);
         addProject(p);
         return p;
     }
 
+    /**
+     * Removes the given project from this project container. This is only
+     * meant to undo the creation of the project.
+     *
+     * @param project The project to remove.
+     * @throws ObjectNotFoundException The given project doesn't belong to
+     * this project container.
+     */
+    public void removeProject(Project project) throws ObjectNotFoundException {
+        if (getProject(project.getId()) != project) {
+            throw new ObjectNotFoundException("The given project doesn't belong to this project container.", project.getId());
+        }
+        Simulation.changing(this);
+        projects = projects.remove(project.getId());
+        project.setDirectory(null);
+    }
+
     /**
      * Adds the given project to this project container.
      *
      * @param project The project to add.
      */
     private void addProject(Project project) {
-        projects.put(project.getId(), project);
+        Simulation.changing(this);
+        projects = projects.put(project.getId(), project);
+        project.setDirectory(directory);
+    }
+
+    /**
+     * Registers the projects of this project container in the given
+     * directory, now and whenever they are added later on.
+     *
+     * @param directory The directory of the company this project container
+     * belongs to.
+     */
+    void setDirectory(CompanyDirectory directory) {
+        this.directory = directory;
+        for (Project project : projects.values()) {
+            project.setDirectory(directory);
+        }
     }
 	
 	/****************************************
@@ -108,18 +190,13 @@ public class ProjectContainer {
      * Returns a map with all available tasks in this projectContainer
      * ascociated with their project.
      *
-     * @return A map wich has as keys, all available tasks and as value the
-     * project the task belongs to.
+     * @return A read-only view wich has as keys, all available tasks and as 
+     * value the project the task belongs to. The view follows the projects of
+     * this container and their tasks.
+     * 
+     * @see Project#getAvailableTasks()
      */
     public Map<Task, Project> getAllAvailableTasks() {
-        Map<Task, Project> availableTasks = new HashMap<>();
-        
-        for (Project project : projects.values()) {
-            for (Task task : project.getAvailableTasks()) {
-                availableTasks.put(task, project);
-            }
-        }
-        
         return availableTasks;
     }
     
@@ -127,12 +204,13 @@ public class ProjectContainer {
      * Checks whether this project container contains the given task.
      * 
      * @param task The task to check.
-     * @return True if and only if the list of all the tasks of this
-     *         project container contains the given task.
-     * @see ProjectContainer#getAllTasks()
+     * @return True if and only if the project of the given task belongs to
+     *         this project container and contains the given task.
+     * @see Project#hasTask(Task)
      */
     boolean containsTask(Task task) {
-    	return getAllTasks().contains(task);
+    	Project project = task.getProject();
+    	return project != null && projects.get(project.getId()) == project && project.hasTask(task);
     }
 
     /**
@@ -152,22 +230,151 @@ public class ProjectContainer {
     }
     
     /**
-     * Returns a list of all unplanned tasks belonging to the projects in this project container.
+     * Returns all unplanned tasks belonging to the projects in this project container.
      * 
-     * @return The list of all unplanned tasks belonging to the projects of this project container.
+     * @return A read-only view of all unplanned tasks belonging to the projects 
+     * of this project container, which follows the projects and their tasks.
      * 
      * @see Project#getUnplannedTasks()
      */
-    public List<Task> getUnplannedTasks() {
-    	List<Task> unplannedTasks = new ArrayList<>();
-    	
-    	for (Project project: projects.values())
-    		unplannedTasks.addAll(project.getUnplannedTasks());
-    	
-    	return unplannedTasks;
+    public Collection<Task> getUnplannedTasks() {
+        return unplannedTasks;
     }
-	
-	/****************************************
+    
+    /**
+     * Checks whether the given project belongs to this project container.
+     * 
+     * @param project The project to check.
+     * @return True if and only if the given project is contained by this
+     * project container.
+     */
+    private boolean containsProject(Project project) {
+        return project != null && projects.get(project.getId()) == project;
+    }
+    
+    /**
+     * Returns the number of tasks in the given collection of every project
+     * of this container.
+     * 
+     * @param tasksOf Returns the collection of a project to count.
+     * @return The sum of the sizes of the collections of all projects.
+     */
+    private int countTasks(Function<Project, Collection<Task>> tasksOf) {
+        int size = 0;
+        for (Project project : projects.values())
+            size += tasksOf.apply(project).size();
+        return size;
+    }
+    
+    /**
+     * Iterates over the tasks in a given collection of every project of this
+     * container, one project after the other.
+     */
+    private class TaskIterator implements Iterator<Task> {
+        
+        private final Function<Project, Collection<Task>> tasksOf;
+        private final Iterator<Project> projectIterator = projects.values().iterator();
+        private Iterator<Task> taskIterator = Collections.emptyIterator();
+        private Project project;
+        
+        private TaskIterator(Function<Project, Collection<Task>> tasksOf) {
+            this.tasksOf = tasksOf;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            while (!taskIterator.hasNext() && projectIterator.hasNext()) {
+                project = projectIterator.next();
+                taskIterator = tasksOf.apply(project).iterator();
+            }
+            return taskIterator.hasNext();
+        }
+        
+        @Override
+        public Task next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return taskIterator.next();
+        }
+    }
+    
+    /**
+     * A read-only view of the available tasks of all projects of this 
+     * container, mapped to their project.
+     */
+    private class AvailableTasks extends AbstractMap<Task, Project> {
+        
+        private final Set<Entry<Task, Project>> entries = new AbstractSet<Entry<Task, Project>>() {
+            
+            @Override
+            public Iterator<Entry<Task, Project>> iterator() {
+                TaskIterator tasks = new TaskIterator(Project::getAvailableTasks);
+                return new Iterator<Entry<Task, Project>>() {
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return tasks.hasNext();
+                    }
+                    
+                    @Override
+                    public Entry<Task, Project> next() {
+                        Task task = tasks.next();
+                        return new SimpleImmutableEntry<>(task, tasks.project);
+                    }
+                };
+            }
+            
+            @Override
+            public int size() {
+                return countTasks(Project::getAvailableTasks);
+            }
+        };
+        
+        @Override
+        public Set<Entry<Task, Project>> entrySet() {
+            return entries;
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            if (!(key instanceof Task))
+                return false;
+            Task task = (Task) key;
+            return containsProject(task.getProject()) && task.getProject().hasAvailableTask(task);
+        }
+        
+        @Override
+        public Project get(Object key) {
+            return containsKey(key) ? ((Task) key).getProject() : null;
+        }
+    }
+    
+    /**
+     * A read-only view of the unplanned tasks of all projects of this 
+     * container.
+     */
+    private class UnplannedTasks extends AbstractCollection<Task> {
+        
+        @Override
+        public Iterator<Task> iterator() {
+            return new TaskIterator(Project::getUnplannedTasks);
+        }
+        
+        @Override
+        public int size() {
+            return countTasks(Project::getUnplannedTasks);
+        }
+        
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Task))
+                return false;
+            Task task = (Task) o;
+            return containsProject(task.getProject()) && task.getProject().hasUnplannedTask(task);
+        }
+    }
+    
+    /****************************************
 	 * Memento                              * 
 	 ****************************************/
     
@@ -176,6 +383,7 @@ public class ProjectContainer {
      *
      * @return A memento which stores the state of this project container.
      */
+    @Override
     public Memento createMemento() {
         return new Memento(this.projects);
     }
@@ -187,9 +395,26 @@ public class ProjectContainer {
      * @param memento The memento containing the new state of this project
      * container.
      */
+    @Override
     public void setMemento(Memento memento) {
-        this.projects.clear();
-        this.projects.putAll(memento.getProjects());
+        Simulation.changing(this);
+        projects.forEachDifference(memento.getProjects(),
+                project -> project.setDirectory(null),
+                project -> project.setDirectory(directory));
+        this.projects = memento.getProjects();
+    }
+
+    /**
+     * Checks whether this project container still has the projects stored in
+     * the given memento.
+     *
+     * @param memento The memento to compare with.
+     * @return True if this project container has the same map of projects as
+     * the memento.
+     */
+    @Override
+    public boolean hasState(Memento memento) {
+        return projects == memento.getProjects();
     }
     
     /**
@@ -197,14 +422,14 @@ public class ProjectContainer {
      */
     public class Memento {
 
-        private final Map<Integer, Project> projects;
+        private final PersistentSortedMap<Integer, Project> projects;
 
-        private Map<Integer, Project> getProjects() {
-            return new HashMap<>(this.projects);
+        private PersistentSortedMap<Integer, Project> getProjects() {
+            return this.projects;
         }
 
-        private Memento(Map<Integer, Project> projects) {
-            this.projects = new HashMap<>(projects);
+        private Memento(PersistentSortedMap<Integer, Project> projects) {
+            this.projects = projects;
         }
     }
 }
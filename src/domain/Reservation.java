@@ -109,7 +109,7 @@ public class Reservation {
      * strictly before the given time.
      */
 	public boolean expiredBefore(LocalDateTime time) {
-		return getEndTime().isBefore(time);
+		return getTimespan().endsBefore(time);
 	}
         
     /**
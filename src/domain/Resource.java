@@ -7,26 +7,51 @@ import domain.time.WorkWeekConfiguration;
 import exception.ConflictException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class represents a resource that can be used to perform tasks
  *
  * @author Mathias, Pieter-Jan, Frederic
  */
-public class Resource implements DetailedResource {
+public class Resource implements DetailedResource, Originator<Resource.Memento> {
 
-    private static int nextId = 0;
+    /**
+     * Constant to use when a new resource should get a newly generated id.
+     * The value of this constant is {@value}.
+     */
+    public static final int NEW_ID = -1;
+    private static final AtomicInteger nextId = new AtomicInteger();
     private final int id;
     private final String name;
     private final ResourceType type;
-    private final Set<Reservation> reservations;
-    private final List<Reservation> previousReservations;
+    /*
+     * The reservations of a resource never overlap (see makeReservation), so
+     * ordering them on their start time also orders them on their end time.
+     * This makes the start-ordered map an interval index: every overlap query
+     * only has to look at the reservation right before the span and the ones
+     * starting inside of it.
+     */
+    private PersistentSortedMap<Long, Reservation> reservations;
+    private final Map<Task, Reservation> reservationsByTask;
+    /*
+     * The previous reservations keyed on the order in which they were archived.
+     */
+    private PersistentSortedMap<Integer, Reservation> previousReservations;
+    /*
+     * The previous reservation of every task that started first, keyed on the
+     * id of the task.
+     */
+    private PersistentSortedMap<Integer, Reservation> firstPreviousReservations;
+    private final List<CapacityTimeline> timelines;
     private WorkWeekConfiguration availability;
 
     /**
@@ -37,6 +62,18 @@ public class Resource implements DetailedResource {
      * 
      */
     public Resource(String name, ResourceType type) {
+        this(NEW_ID, name, type);
+    }
+
+    /**
+     * Initialize a resource with a given id, name and type.
+     *
+     * @param id The id of this resource, reserved with
+     * {@link #reserveIds(int)}, or {@link #NEW_ID} to generate a new id.
+     * @param name The name for this resource.
+     * @param type The type for this resource.
+     */
+    public Resource(int id, String name, ResourceType type) {
         if(!canHaveAsName(name)) {
             throw new IllegalArgumentException("This resource can't have the given name as name.");
         }
@@ -44,11 +81,14 @@ public class Resource implements DetailedResource {
         	throw new IllegalArgumentException("This resource can't have the given type as type.");
         }
         
-        this.id = generateId();
+        this.id = id == NEW_ID ? generateId() : id;
         this.name = name;
         this.type = type;
-        this.reservations = new HashSet<>();
-        this.previousReservations = new ArrayList<>();
+        this.reservations = PersistentSortedMap.empty();
+        this.reservationsByTask = new HashMap<>();
+        this.previousReservations = PersistentSortedMap.empty();
+        this.firstPreviousReservations = PersistentSortedMap.empty();
+        this.timelines = new ArrayList<>();
                
     }
 
@@ -62,7 +102,18 @@ public class Resource implements DetailedResource {
      * @return The id to be used for a newly created task.
      */
     private static int generateId() {
-        return nextId++;
+        return nextId.getAndIncrement();
+    }
+
+    /**
+     * Reserves the given number of consecutive ids, so resources can be
+     * created with a known id from several threads at once.
+     *
+     * @param count The number of ids to reserve.
+     * @return The first reserved id.
+     */
+    public static int reserveIds(int count) {
+        return nextId.getAndAdd(count);
     }
 
     /**
@@ -113,14 +164,26 @@ public class Resource implements DetailedResource {
      * @return The reservations of this resource
      */
     public Set<Reservation> getReservations() {
-        return new HashSet<>(reservations);
+        return new HashSet<>(reservations.values());
     }
 
     /**
      * @return The previous reservations of this resource.
      */
     public List<Reservation> getPreviousReservations() {
-        return new ArrayList<>(previousReservations);
+        return previousReservations.values();
+    }
+
+    /**
+     * Returns the previous reservation of the given task that started first.
+     *
+     * @param task The task to get the previous reservation for.
+     * @return The archived reservation of the given task with the earliest
+     * start time, or null if this resource has no archived reservation of
+     * the task.
+     */
+    public Reservation getFirstPreviousReservation(Task task) {
+        return firstPreviousReservations.get(task.getId());
     }
 
     /****************************************************
@@ -136,12 +199,31 @@ public class Resource implements DetailedResource {
      * a time span overlapping span.
      */
     public boolean isAvailable(Timespan span) {
-        for (Reservation r : reservations) {
-            if (r.conflictsWith(span)) {
-                return false;
-            }
+        Entry<Long, Reservation> before = reservations.lowerEntry(span.getStartMinute());
+        if (before != null && before.getValue().conflictsWith(span)) {
+            return false;
+        }
+        
+        Entry<Long, Reservation> next = reservations.ceilingEntry(span.getStartMinute());
+        return next == null || next.getKey() >= span.getEndMinute();
+    }
+
+    /**
+     * Return the earliest time this resource could be used again by a time 
+     * span starting at or after the start of the given time span and ending 
+     * at or after its end.
+     *
+     * @param span The time span to check.
+     * @return	the end time of the last reservation conflicting with 
+     * {@code span}, or {@code null} if this resource is available during 
+     * {@code span}.
+     */
+    public LocalDateTime getReleaseTime(Timespan span) {
+        Entry<Long, Reservation> last = reservations.lowerEntry(span.getEndMinute());
+        if (last == null || !last.getValue().conflictsWith(span)) {
+            return null;
         }
-        return true;
+        return last.getValue().getEndTime();
     }
 
     /**
@@ -153,11 +235,11 @@ public class Resource implements DetailedResource {
      */
     public Set<Reservation> getConflictingReservations(Timespan span) {
         Set<Reservation> result = new HashSet<>();
-        for (Reservation r : reservations) {
-            if (r.conflictsWith(span)) {
-                result.add(r);
-            }
+        Entry<Long, Reservation> before = reservations.lowerEntry(span.getStartMinute());
+        if (before != null && before.getValue().conflictsWith(span)) {
+            result.add(before.getValue());
         }
+        result.addAll(reservations.values(span.getStartMinute(), span.getEndMinute()));
         return result;
     }
 
@@ -184,12 +266,7 @@ public class Resource implements DetailedResource {
      * @return	the reservation linked to the given task.
      */
     public Reservation getReservation(Task t) {
-        for (Reservation r : reservations) {
-            if (r.getTask().equals(t)) {
-                return r;
-            }
-        }
-        return null;
+        return reservationsByTask.get(t);
     }
 
     /**
@@ -200,11 +277,12 @@ public class Resource implements DetailedResource {
      */
     public SortedSet<Reservation> getReservations(LocalDateTime from) {
         SortedSet<Reservation> result = new TreeSet<>(Reservation.timespanComparator());
-        for (Reservation r : getReservations()) {
-            if (!r.expiredBefore(from)) {
-                result.add(r);
-            }
+        long first = Timespan.toEpochMinute(from);
+        Entry<Long, Reservation> before = reservations.lowerEntry(first);
+        if (before != null && !before.getValue().expiredBefore(from)) {
+            first = before.getKey();
         }
+        result.addAll(reservations.values(first, null));
         return result;
     }
     
@@ -267,7 +345,7 @@ public class Resource implements DetailedResource {
         }
         
         Reservation r = new Reservation(task, span);
-        reservations.add(r);
+        addReservation(r);
         return r;
     }
 
@@ -279,18 +357,30 @@ public class Resource implements DetailedResource {
      * @param task The task of which the future reservations are cleared.
      */
     public void clearFutureReservations(LocalDateTime currentTime, Task task) {
-        for (Iterator<Reservation> iterator = reservations.iterator(); iterator.hasNext();) {
-            Reservation reservation = iterator.next();
-            
-            if (reservation.getTask().equals(task)) {
-                if (reservation.getStartTime().compareTo(currentTime) >= 0) {
-                    iterator.remove();
-                } else if (reservation.getTimespan().overlapsWith(currentTime)) {  
-                    iterator.remove();
-                    Timespan newTimeSpan = new Timespan(reservation.getStartTime(), currentTime);
-                    archiveReservation(new Reservation(reservation.getTask(), newTimeSpan));
-                }
-            }
+        Reservation reservation = getReservation(task);
+        if (reservation == null) {
+            return;
+        }
+        
+        if (reservation.getStartTime().compareTo(currentTime) >= 0) {
+            removeReservation(reservation);
+        } else if (reservation.getTimespan().overlapsWith(currentTime)) {
+            removeReservation(reservation);
+            Timespan newTimeSpan = new Timespan(reservation.getStartTime(), currentTime);
+            archiveReservation(new Reservation(reservation.getTask(), newTimeSpan));
+        }
+    }
+    
+    /**
+     * Cancels the given reservation of this resource, as if it was never made.
+     * Reservations which have already been archived are left in the previous
+     * reservations of this resource.
+     *
+     * @param reservation The reservation to cancel.
+     */
+    public void cancelReservation(Reservation reservation) {
+        if (reservations.get(reservation.getTimespan().getStartMinute()) == reservation) {
+            removeReservation(reservation);
         }
     }
     
@@ -300,7 +390,12 @@ public class Resource implements DetailedResource {
      * @param r The reservation to archive
      */
     void archiveReservation(Reservation r) {
-        previousReservations.add(r);
+        Simulation.changing(this);
+        previousReservations = previousReservations.put(previousReservations.size(), r);
+        Reservation first = firstPreviousReservations.get(r.getTask().getId());
+        if (first == null || r.getStartTime().isBefore(first.getStartTime())) {
+            firstPreviousReservations = firstPreviousReservations.put(r.getTask().getId(), r);
+        }
     }
 
     /**
@@ -309,13 +404,74 @@ public class Resource implements DetailedResource {
      * @param currentTime The time to compare to
      */
     public void archiveOldReservations(LocalDateTime currentTime) {
-        for (Iterator<Reservation> iterator = getReservations().iterator(); iterator.hasNext();) {
-            Reservation reservation = iterator.next();
+        for (Entry<Long, Reservation> first = reservations.firstEntry(); first != null; first = reservations.firstEntry()) {
+            Reservation reservation = first.getValue();
             
-            if (reservation.getTimespan().compareTo(currentTime) <= 0) {
-                iterator.remove();
-                archiveReservation(reservation);
+            if (reservation.getTimespan().endsAfter(currentTime)) {
+                break;
             }
+            removeReservation(reservation);
+            archiveReservation(reservation);
+        }
+    }
+    
+    /**
+     * Restores the given reservations without checking for conflicts. This is
+     * only meant to restore a saved state of the system.
+     *
+     * @param current The reservations that aren't archived yet.
+     * @param previous The archived reservations, in the order they were
+     * archived.
+     */
+    public void restoreReservations(List<Reservation> current, List<Reservation> previous) {
+        for (Reservation r : current) {
+            addReservation(r);
+        }
+        for (Reservation r : previous) {
+            archiveReservation(r);
+        }
+    }
+    
+    /**
+     * Adds the given reservation to the reservations of this resource.
+     * 
+     * @param r The reservation to add
+     */
+    private void addReservation(Reservation r) {
+        Simulation.changing(this);
+        reservations = reservations.put(r.getTimespan().getStartMinute(), r);
+        reservationsByTask.put(r.getTask(), r);
+        for (CapacityTimeline timeline : timelines) {
+            timeline.reserve(r.getTimespan());
+        }
+    }
+    
+    /**
+     * Removes the given reservation from the reservations of this resource.
+     * 
+     * @param r The reservation to remove
+     */
+    private void removeReservation(Reservation r) {
+        Simulation.changing(this);
+        reservations = reservations.remove(r.getTimespan().getStartMinute());
+        reservationsByTask.remove(r.getTask());
+        for (CapacityTimeline timeline : timelines) {
+            timeline.release(r.getTimespan());
+        }
+    }
+    
+    /**
+     * Lets the given timeline keep track of the reservations of this resource.
+     * 
+     * @param timeline The timeline to keep up to date
+     */
+    void addTimeline(CapacityTimeline timeline) {
+        if (timelines.contains(timeline)) {
+            return;
+        }
+        timelines.add(timeline);
+        for (Reservation r : reservations.values()) {
+            timeline.reserve(r.getTimespan());
         }
     }
     
@@ -337,8 +493,9 @@ public class Resource implements DetailedResource {
      *
      * @return A memento which stores the the state of this resource.
      */
+    @Override
     public Memento createMemento() {
-        return new Memento(reservations, previousReservations);
+        return new Memento(reservations, previousReservations, firstPreviousReservations);
     }
 
     /**
@@ -346,12 +503,40 @@ public class Resource implements DetailedResource {
      *
      * @param memento The memento containing the new state of this task.
      */
+    @Override
     public void setMemento(Memento memento) {
-        this.reservations.clear();
-        this.reservations.addAll(memento.getReservations());
+        Simulation.changing(this);
+        // only the reservations that changed since the memento are released
+        // or reserved on the timelines
+        reservations.forEachDifference(memento.getReservations(), r -> {
+            reservationsByTask.remove(r.getTask(), r);
+            for (CapacityTimeline timeline : timelines) {
+                timeline.release(r.getTimespan());
+            }
+        }, r -> {
+            reservationsByTask.put(r.getTask(), r);
+            for (CapacityTimeline timeline : timelines) {
+                timeline.reserve(r.getTimespan());
+            }
+        });
+        this.reservations = memento.getReservations();
+        this.previousReservations = memento.getPreviousReservations();
+        this.firstPreviousReservations = memento.getFirstPreviousReservations();
+    }
 
-        this.previousReservations.clear();
-        this.previousReservations.addAll(memento.getPreviousReservations());
+    /**
+     * Checks whether this resource still has the reservations stored in the
+     * given memento.
+     *
+     * @param memento The memento to compare with.
+     * @return True if this resource has the same maps of reservations as the
+     * memento. The first previous reservations only change together with the
+     * previous reservations.
+     */
+    @Override
+    public boolean hasState(Memento memento) {
+        return reservations == memento.getReservations()
+                && previousReservations == memento.getPreviousReservations();
     }
     
     /**
@@ -359,20 +544,27 @@ public class Resource implements DetailedResource {
      */
     public class Memento {
 
-        private final Set<Reservation> reservations;
-        private final List<Reservation> previousReservations;
+        private final PersistentSortedMap<Long, Reservation> reservations;
+        private final PersistentSortedMap<Integer, Reservation> previousReservations;
+        private final PersistentSortedMap<Integer, Reservation> firstPreviousReservations;
+
+        private PersistentSortedMap<Long, Reservation> getReservations() {
+            return this.reservations;
+        }
 
-        private Set<Reservation> getReservations() {
-            return new HashSet<>(this.reservations);
+        private PersistentSortedMap<Integer, Reservation> getPreviousReservations() {
+            return this.previousReservations;
         }
 
-        private List<Reservation> getPreviousReservations() {
-            return new ArrayList<>(this.previousReservations);
+        private PersistentSortedMap<Integer, Reservation> getFirstPreviousReservations() {
+            return this.firstPreviousReservations;
         }
 
-        private Memento(Set<Reservation> reservations, List<Reservation> previousReservations) {
-            this.reservations = new HashSet<>(reservations);
-            this.previousReservations = new ArrayList<>(previousReservations);
+        private Memento(PersistentSortedMap<Long, Reservation> reservations, PersistentSortedMap<Integer, Reservation> previousReservations,
+                PersistentSortedMap<Integer, Reservation> firstPreviousReservations) {
+            this.reservations = reservations;
+            this.previousReservations = previousReservations;
+            this.firstPreviousReservations = firstPreviousReservations;
         }
     }
 }
@@ -4,8 +4,14 @@ import domain.task.Task;
 import domain.time.Timespan;
 import exception.ConflictException;
 import exception.ObjectNotFoundException;
+import java.time.LocalDateTime;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -19,12 +25,19 @@ import java.util.Set;
 public class ResourceContainer {
 
     private final Set<Resource> resources;
+    private final Map<ResourceType, Set<Resource>> resourcesByType;
+    private final List<Resource> resourcesInOrder;
+    private final Map<ResourceType, CapacityTimeline> timelines;
+    private CompanyDirectory directory;
     
     /**
      * Initializes this resourcecontainer
      */
     public ResourceContainer() {
         resources = new HashSet<>();
+        resourcesByType = new HashMap<>();
+        resourcesInOrder = new ArrayList<>();
+        timelines = new HashMap<>();
     }
 
     /**
@@ -42,10 +55,68 @@ public class ResourceContainer {
      * @throws ObjectNotFoundException if there is no such resource with the given id.
      */
     public Resource getResource(int id) throws ObjectNotFoundException {
-    	for(Resource r : getResources())
-    		if(r.getId() == id)
-    			return r;
-    	throw new ObjectNotFoundException("The resource with id " + id + " does not exist in this container");
+    	Resource r = directory != null ? directory.getResource(id) : findResource(id);
+    	if(r == null || !resources.contains(r))
+    		throw new ObjectNotFoundException("The resource with id " + id + " does not exist in this container");
+    	return r;
+    }
+
+    /**
+     * Looks up the resource with the given id among the resources of this
+     * container, which are ordered on their ids.
+     * 
+     * @param id The id of the resource looking for.
+     * @return the resource with the given id or null if there is none.
+     */
+    private Resource findResource(int id) {
+    	int low = 0, high = resourcesInOrder.size() - 1;
+    	while(low <= high) {
+    		int mid = (low + high) >>> 1;
+    		int midId = resourcesInOrder.get(mid).getId();
+    		if(midId < id)
+    			low = mid + 1;
+    		else if(midId > id)
+    			high = mid - 1;
+    		else
+    			return resourcesInOrder.get(mid);
+    	}
+    	return null;
+    }
+
+    /**
+     * Return the position of a resource among the resources of this 
+     * container, in the order of their ids.
+     * 
+     * @param id The id of the resource looking for.
+     * @return the number of resources in this container with a smaller id 
+     * than the resource with the given id.
+     * @throws ObjectNotFoundException if there is no such resource with the given id.
+     */
+    public int getPosition(int id) throws ObjectNotFoundException {
+    	return Collections.binarySearch(resourcesInOrder, getResource(id), 
+    			(r1, r2) -> Integer.compare(r1.getId(), r2.getId()));
+    }
+
+    /**
+     * @return A read-only view of the resources of this container, in the
+     * order of their ids.
+     */
+    public List<Resource> getResourcesInOrder() {
+    	return Collections.unmodifiableList(resourcesInOrder);
+    }
+
+    /**
+     * Return the resource at a given position among the resources of this 
+     * container, in the order of their ids.
+     * 
+     * @param position The position of the resource.
+     * @return the resource at the given position.
+     * @throws ObjectNotFoundException if there is no resource at the given position.
+     */
+    public Resource getResourceAt(int position) throws ObjectNotFoundException {
+    	if(position < 0 || position >= resourcesInOrder.size())
+    		throw new ObjectNotFoundException("There is no resource at position " + position + " in this container");
+    	return resourcesInOrder.get(position);
     }
 
     /**
@@ -56,7 +127,21 @@ public class ResourceContainer {
      * @return The created resource
      */
     public Resource createResource(String name, ResourceType type) {
-        Resource res = new Resource(name, type);
+        return createResource(Resource.NEW_ID, name, type);
+    }
+
+    /**
+     * Make a resource with the given id and add it to the list of resources.
+     *
+     * @param id The id of the new resource, reserved with
+     * {@link Resource#reserveIds(int)}, or {@link Resource#NEW_ID} to
+     * generate a new id.
+     * @param name The name for the new resource.
+     * @param type The type of the new resource.
+     * @return The created resource
+     */
+    public Resource createResource(int id, String name, ResourceType type) {
+        Resource res = new Resource(id, name, type);
         addResource(res);
         return res;
     }
@@ -67,22 +152,94 @@ public class ResourceContainer {
      * @param res The resource to add
      */
     public void addResource(Resource res) {
-        resources.add(res);
+        if (!resources.add(res)) {
+            return;
+        }
+        
+        ResourceType type = res.getType();
+        Set<Resource> ofType = resourcesByType.get(type);
+        if (ofType == null) {
+            ofType = new LinkedHashSet<>();
+            resourcesByType.put(type, ofType);
+            timelines.put(type, new CapacityTimeline());
+        }
+        ofType.add(res);
+        res.addTimeline(timelines.get(type));
+        
+        // resources are nearly always added in the order of their ids
+        int position = resourcesInOrder.size();
+        while (position > 0 && resourcesInOrder.get(position - 1).getId() > res.getId()) {
+            position--;
+        }
+        resourcesInOrder.add(position, res);
+        if (directory != null) {
+            directory.addResource(res);
+        }
+    }
+    
+    /**
+     * Registers the resources of this container in the given directory, now
+     * and whenever they are added later on.
+     * 
+     * @param directory The directory of the company this container belongs to.
+     */
+    void setDirectory(CompanyDirectory directory) {
+        this.directory = directory;
+        for (Resource res : resources) {
+            directory.addResource(res);
+        }
     }
     
     /**
      * Returns all resources in this resourcecontainer of the given type.
      * 
      * @param type The type of the resources to retrieve
-     * @return A subset of resources of this resourcecontainer with the given type.
+     * @return A read-only view on the subset of resources of this 
+     * resourcecontainer with the given type. The view follows later changes,
+     * also when there are no resources of the given type yet.
      */
     public Set<Resource> getResourcesOfType(ResourceType type) {
-    	Set<Resource> result = new HashSet<>();
-    	for(Resource res : getResources()) {
-    		if(res.getType().equals(type))
-    			result.add(res);
+    	return new ResourcesOfType(type);
+    }
+    
+    /**
+     * Returns the set of resources of the given type, without creating it if
+     * no resource of the type has been added yet.
+     * 
+     * @param type The type of the resources to retrieve
+     * @return The subset of resources of this resourcecontainer with the 
+     * given type, or an empty set if there are none.
+     */
+    private Set<Resource> ofType(ResourceType type) {
+    	Set<Resource> ofType = resourcesByType.get(type);
+    	return ofType == null ? Collections.emptySet() : ofType;
+    }
+    
+    /**
+     * A read-only view of the resources of one type in this container.
+     */
+    private class ResourcesOfType extends AbstractSet<Resource> {
+    	
+    	private final ResourceType type;
+    	
+    	private ResourcesOfType(ResourceType type) {
+    		this.type = type;
+    	}
+    	
+    	@Override
+    	public Iterator<Resource> iterator() {
+    		return Collections.unmodifiableSet(ofType(type)).iterator();
+    	}
+    	
+    	@Override
+    	public int size() {
+    		return ofType(type).size();
+    	}
+    	
+    	@Override
+    	public boolean contains(Object o) {
+    		return ofType(type).contains(o);
     	}
-    	return result;
     }
 
     /**
@@ -94,7 +251,7 @@ public class ResourceContainer {
     public Set<Resource> getAvailableResources(Timespan span) {
         Set<Resource> result = new HashSet<>();
 
-        for (Resource r : getResources()) {
+        for (Resource r : resources) {
             if (r.isAvailable(span)) {
                 result.add(r);
             }
@@ -216,7 +373,67 @@ public class ResourceContainer {
      * at the given timespan.
      */
     public boolean hasAvailableOfType(ResourceType type, Timespan span, int quantity) {
-    	return (quantity < 0) ? false : getAvailableResources(type, span).size() >= quantity;
+    	if(quantity <= 0)
+    		return quantity == 0;
+    	Set<Resource> ofType = ofType(type);
+    	if(ofType.size() < quantity)
+    		return false;
+    	
+    	// At least maxReserved resources are unavailable somewhere in span,
+    	// and if there are no reservations at all, every resource is free.
+    	int maxReserved = timelines.get(type).getMaxReserved(span);
+    	if(maxReserved == 0)
+    		return true;
+    	if(ofType.size() - maxReserved < quantity)
+    		return false;
+    	
+    	int available = 0;
+    	for(Resource r : ofType) {
+    		if(r.isAvailable(span) && ++available >= quantity)
+    			return true;
+    	}
+    	return false;
+    }
+    
+    /**
+     * Return a lower bound for the first start time, not before the start of 
+     * the given span, at which the given quantity of instances of the given 
+     * resource type can be available for a span lasting at least as long.
+     * A resource that is reserved during {@code span} can not be used before 
+     * its release time, so the bound is the {@code quantity}-th smallest 
+     * release time of all resources of this type.
+     *
+     * @param type The resource type to check the availability of
+     * @param span The timespan to start looking from
+     * @param quantity The quantity necessary of this resourcetype
+     * @return The start time of {@code span} if and only if the given quantity 
+     * of instances is available at {@code span}, a later time before which 
+     * the quantity can not be available otherwise, or {@code null} if there 
+     * are not enough resources of this type in this container.
+     */
+    public LocalDateTime getEarliestAvailability(ResourceType type, Timespan span, int quantity) {
+    	if(quantity <= 0)
+    		return span.getStartTime();
+    	Set<Resource> ofType = ofType(type);
+    	if(ofType.size() < quantity)
+    		return null;
+    	if(timelines.get(type).getMaxReserved(span) == 0)
+    		return span.getStartTime();
+    	
+    	List<LocalDateTime> releaseTimes = new ArrayList<>();
+    	int free = 0;
+    	for(Resource r : ofType) {
+    		LocalDateTime release = r.getReleaseTime(span);
+    		if(release == null)
+    			free++;
+    		else
+    			releaseTimes.add(release);
+    	}
+    	if(free >= quantity)
+    		return span.getStartTime();
+    	
+    	Collections.sort(releaseTimes);
+    	return releaseTimes.get(quantity - free - 1);
     }
     
     /**
@@ -227,7 +444,7 @@ public class ResourceContainer {
   	 */
     private Set<Task> findConflictingTasks(Timespan span) {
     	Set<Task> result = new HashSet<>();
-    	for (Resource r : getResources()) {
+    	for (Resource r : resources) {
     		result.addAll(r.findConflictingTasks(span));
     	}
     	return result;
@@ -25,7 +25,7 @@ public class ResourceType implements DetailedResourceType {
     /**
      * This constant represents the resourcetype of a developer. 
      */
-    public static final ResourceType DEVELOPER = new ResourceType("developer", new WorkWeekConfiguration(LocalTime.of(8,0), LocalTime.of(17,0)));
+    public static final ResourceType DEVELOPER = new ResourceType("developer", WorkWeekConfiguration.of(LocalTime.of(8,0), LocalTime.of(17,0)));
 
     /**
      * Initialize a resource type with given name, required and conflicting
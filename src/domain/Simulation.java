@@ -0,0 +1,428 @@
+package domain;
+
+import domain.task.Task;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * This class represents a what-if simulation session. The changes made in a
+ * simulation are kept on a copy-on-write overlay: the first time a simulation
+ * changes a branch office, project container, project, task or resource, the
+ * live state of that object is saved in a memento and the simulation
+ * continues on its own version of the object. Projects and tasks created in
+ * a simulation only exist in the simulation until it is committed.
+ *
+ * Actions of a simulation are carried out by {@link #run(Supplier)}, which
+ * swaps the versions of the simulation in, carries out the action and swaps
+ * the live versions back. Mementos share their state through persistent
+ * maps, so a swap, a commit and a discard only cost the size of the
+ * difference between the simulation and the live system. Clock timers that
+ * are scheduled or cancelled in a simulation are only applied when it is
+ * committed.
+ *
+ * Every action is carried out completely or not at all: when an action
+ * throws, the changes it made are undone before the exception is passed on.
+ * Clock timers that an action schedules or cancels are only applied when it
+ * completes. This lets an action log its change after making it: if the
+ * change can't be logged, the system is left as it was.
+ *
+ * The live system is changed and read through {@link #LIVE}. The versions
+ * of a simulation are swapped into the shared objects while one of its
+ * actions runs, so the actions of all simulations and of the live system take
+ * turns on one lock: several simulations can be open at once and never see
+ * each other's changes, but only one action runs at a time. Every read of the
+ * system therefore goes through a simulation or {@link #LIVE} and copies what
+ * it needs before the action returns. The objects themselves are shared, so
+ * reading them later, outside of an action, can still see the state of a
+ * simulation whose action runs on another thread at that moment.
+ *
+ * @author Frederic, Mathias, Pieter-Jan
+ */
+public class Simulation {
+
+    /**
+     * The live system. Its actions change the live system right away. It
+     * can't be committed or discarded.
+     */
+    public static final Simulation LIVE = new Simulation(true);
+
+    private static final ReentrantLock LOCK = new ReentrantLock();
+    private static final ThreadLocal<Simulation> RUNNING = new ThreadLocal<>();
+
+    private final boolean live;
+    private final Map<Originator<?>, Layer<?>> layers;
+    private final List<List<Layer<?>>> layersByRank;
+    private final Set<Object> created;
+    private final List<Runnable> deferred;
+    private volatile boolean ended;
+
+    private final Map<Originator<?>, Saved<?>> saved;
+    private final List<List<Saved<?>>> savedByRank;
+    private final Set<Object> fresh;
+    private final List<Runnable> pending;
+
+    /**
+     * Initializes a new simulation without any changes.
+     */
+    public Simulation() {
+        this(false);
+    }
+
+    private Simulation(boolean live) {
+        this.live = live;
+        this.layers = new IdentityHashMap<>();
+        this.layersByRank = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            layersByRank.add(new ArrayList<>());
+        }
+        this.created = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.deferred = new ArrayList<>();
+        this.saved = new IdentityHashMap<>();
+        this.savedByRank = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            savedByRank.add(new ArrayList<>());
+        }
+        this.fresh = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.pending = new ArrayList<>();
+    }
+
+    /**
+     * @return True if and only if this simulation has been committed or
+     * discarded.
+     */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Carries out the given action in this simulation.
+     *
+     * @param action The action to carry out.
+     * @throws IllegalStateException This simulation has ended, or another
+     * simulation is running on this thread.
+     */
+    public void run(Runnable action) throws IllegalStateException {
+        run(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Carries out the given action in this simulation. While the action
+     * runs, the changed objects are in the state of this simulation and
+     * every change that is made is added to this simulation. If the action
+     * throws, the changes it made are undone.
+     *
+     * @param <T> The type of the result of the action.
+     * @param action The action to carry out.
+     * @return The result of the action.
+     * @throws IllegalStateException This simulation has ended, or another
+     * simulation is running on this thread.
+     */
+    public <T> T run(Supplier<T> action) throws IllegalStateException {
+        Simulation running = RUNNING.get();
+        if (running == this) {
+            return action.get();
+        }
+        if (running != null) {
+            throw new IllegalStateException("A simulation can't be run within another simulation.");
+        }
+        LOCK.lock();
+        try {
+            if (ended) {
+                throw new IllegalStateException("This simulation has already ended.");
+            }
+            swap();
+            RUNNING.set(this);
+            boolean completed = false;
+            try {
+                T result = action.get();
+                completed = true;
+                return result;
+            } finally {
+                RUNNING.remove();
+                if (!completed) {
+                    undo();
+                }
+                swap();
+                if (completed) {
+                    for (Runnable change : pending) {
+                        if (live) {
+                            change.run();
+                        } else {
+                            deferred.add(change);
+                        }
+                    }
+                }
+                forget();
+            }
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * Makes the changes of this simulation part of the live system and ends
+     * this simulation. Only the changed objects are restored, so this costs
+     * the size of the changes.
+     *
+     * @throws IllegalStateException This is the live system, this simulation
+     * has already ended or is running, or the live state of an object that
+     * this simulation changed has changed as well. The simulation stays open
+     * in the last case, so it can still be discarded.
+     */
+    public void commit() throws IllegalStateException {
+        commit(() -> null);
+    }
+
+    /**
+     * Makes the changes of this simulation part of the live system and ends
+     * this simulation, after carrying out the given action. The action runs
+     * once it is known that the simulation can be committed, while no other
+     * action can change the system.
+     *
+     * @param <T> The type of the result of the action.
+     * @param action The action to carry out before the changes are applied.
+     * @return The result of the action.
+     * @throws IllegalStateException This is the live system, this simulation
+     * has already ended or is running, or the live state of an object that
+     * this simulation changed has changed as well. The simulation stays open
+     * in the last case, so it can still be discarded. It also stays open when
+     * the action throws.
+     */
+    public <T> T commit(Supplier<T> action) throws IllegalStateException {
+        if (live) {
+            throw new IllegalStateException("The live system can't be committed.");
+        }
+        if (RUNNING.get() != null) {
+            throw new IllegalStateException("A simulation can't be committed while a simulation is running.");
+        }
+        LOCK.lock();
+        try {
+            if (ended) {
+                throw new IllegalStateException("This simulation has already ended.");
+            }
+            for (Layer<?> layer : layers.values()) {
+                if (!layer.isUnchanged()) {
+                    throw new IllegalStateException("The simulation can't be carried out, because the system has been changed since.");
+                }
+            }
+            T result = action.get();
+            swap();
+            for (Runnable change : deferred) {
+                change.run();
+            }
+            end();
+            return result;
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * Drops the changes of this simulation and ends it. The live system
+     * was never changed, so nothing has to be reverted. Discarding a
+     * simulation that has already ended doesn't do anything.
+     *
+     * @throws IllegalStateException This is the live system or this
+     * simulation is running.
+     */
+    public void discard() throws IllegalStateException {
+        if (live) {
+            throw new IllegalStateException("The live system can't be discarded.");
+        }
+        if (RUNNING.get() == this) {
+            throw new IllegalStateException("A simulation can't be discarded while it is running.");
+        }
+        LOCK.lock();
+        try {
+            end();
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    private void end() {
+        ended = true;
+        layers.clear();
+        layersByRank.clear();
+        created.clear();
+        deferred.clear();
+    }
+
+    /**
+     * Restores the objects changed by the running action to the state they
+     * had before it. Containers are restored first, so objects that the action
+     * created are dropped together with the container that held them.
+     */
+    private void undo() {
+        for (List<Saved<?>> rank : savedByRank) {
+            for (Saved<?> state : rank) {
+                state.restore();
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Forgets the states saved for the running action.
+     */
+    private void forget() {
+        saved.clear();
+        for (List<Saved<?>> rank : savedByRank) {
+            rank.clear();
+        }
+        fresh.clear();
+        pending.clear();
+    }
+
+    /**
+     * Exchanges the states of all changed objects with the other states of
+     * these objects. Containers are swapped before projects and projects
+     * before tasks, so tasks only update the status of tasks that are part of
+     * the same version of the system.
+     */
+    private void swap() {
+        for (List<Layer<?>> rank : layersByRank) {
+            for (Layer<?> layer : rank) {
+                layer.swap();
+            }
+        }
+    }
+
+    /****************************************
+     * Hooks                                *
+     ****************************************/
+
+    /**
+     * Notifies the running simulation that the given object is about to be
+     * changed. The state of the object is saved, so it can be restored when
+     * the running action fails. If the simulation hasn't changed the object
+     * before, its live state is saved as well. This is only meant to be
+     * called by the objects themselves, before they change their state.
+     *
+     * @param object The object that is about to be changed.
+     */
+    public static void changing(Originator<?> object) {
+        Simulation running = RUNNING.get();
+        if (running == null || running.fresh.contains(object)) {
+            return;
+        }
+        if (!running.saved.containsKey(object)) {
+            Saved<?> state = new Saved<>(object);
+            running.saved.put(object, state);
+            running.savedByRank.get(rank(object)).add(state);
+        }
+        if (running.live || running.created.contains(object) || running.layers.containsKey(object)) {
+            return;
+        }
+        Layer<?> layer = new Layer<>(object);
+        running.layers.put(object, layer);
+        running.layersByRank.get(rank(object)).add(layer);
+    }
+
+    /**
+     * Notifies the running simulation that the given object has been
+     * created in it. The object only exists in the simulation, so its
+     * changes don't have to be kept apart. This is only meant to be called
+     * by the constructors of the objects.
+     *
+     * @param object The created object.
+     */
+    public static void created(Object object) {
+        Simulation running = RUNNING.get();
+        if (running == null) {
+            return;
+        }
+        running.fresh.add(object);
+        if (!running.live) {
+            running.created.add(object);
+        }
+    }
+
+    /**
+     * Defers the given change of the clock until the running action
+     * completes. The change is applied to the live system when the action
+     * completes, or when the simulation is committed if the action is part
+     * of a simulation.
+     *
+     * @param change The change to defer.
+     * @return True if the change was deferred, false if no action is running
+     * and the change has to be applied right away.
+     */
+    public static boolean defer(Runnable change) {
+        Simulation running = RUNNING.get();
+        if (running == null) {
+            return false;
+        }
+        running.pending.add(change);
+        return true;
+    }
+
+    private static int rank(Originator<?> object) {
+        if (object instanceof ProjectContainer || object instanceof BranchOffice) {
+            return 0;
+        } else if (object instanceof Project) {
+            return 1;
+        } else if (object instanceof Task) {
+            return 2;
+        } else {
+            return 3;
+        }
+    }
+
+    /**
+     * An object changed by the running action, together with the state it had
+     * before the action changed it.
+     */
+    private static final class Saved<M> {
+
+        private final Originator<M> object;
+        private final M memento;
+
+        private Saved(Originator<M> object) {
+            this.object = object;
+            this.memento = object.createMemento();
+        }
+
+        private void restore() {
+            object.setMemento(memento);
+        }
+    }
+
+    /**
+     * An object changed by a simulation, together with the state it had
+     * when the simulation changed it first and its state in the other version
+     * of the system: the live state while the simulation runs and the state
+     * in the simulation otherwise.
+     */
+    private static final class Layer<M> {
+
+        private final Originator<M> object;
+        private final M base;
+        private M other;
+
+        private Layer(Originator<M> object) {
+            this.object = object;
+            this.base = object.createMemento();
+            this.other = base;
+        }
+
+        private void swap() {
+            M current = object.createMemento();
+            object.setMemento(other);
+            other = current;
+        }
+
+        private boolean isUnchanged() {
+            return object.hasState(base);
+        }
+    }
+}
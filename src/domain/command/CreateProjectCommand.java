@@ -0,0 +1,67 @@
+package domain.command;
+
+import domain.Project;
+import domain.ProjectContainer;
+import java.time.LocalDateTime;
+
+/**
+ * This class represents the action of creating a new project
+ * 
+ * @author Mathias, Frederic, Pieter-Jan
+ */
+public class CreateProjectCommand implements ICommand {
+
+    private final ProjectContainer projectContainer;
+    private final String name;
+    private final String description;
+    private final LocalDateTime creationTime;
+    private final LocalDateTime dueTime;
+
+    private Project createdProject;
+
+    /**
+     * Initializes this create project command with the given parameters
+     * associated with creating a project in a project container.
+     *
+     * @param projectContainer The project container to which the project will
+     * belong.
+     * @param name The name of the project to be created.
+     * @param description The description of the project to be created.
+     * @param creationTime The creation time of the project to be created.
+     * @param dueTime The due time of the project to be created.
+     */
+    public CreateProjectCommand(ProjectContainer projectContainer, String name, String description, LocalDateTime creationTime, LocalDateTime dueTime) {
+        this.projectContainer = projectContainer;
+        this.name = name;
+        this.description = description;
+        this.creationTime = creationTime;
+        this.dueTime = dueTime;
+    }
+
+    /**
+     * @return The project which was created upon execution of this command,
+     * null if the command was reverted or if the project isn't created.
+     */
+    public Project getCreatedProject() {
+        return createdProject;
+    }
+
+    /**
+     * Creates a new project based on the parameters stored in this command
+     */
+    @Override
+    public void execute() {
+        createdProject = projectContainer.createProject(name, description, creationTime, dueTime);
+    }
+
+    /**
+     * Revert the creation of this project
+     */
+    @Override
+    public void revert() {
+        if (createdProject != null && projectContainer.hasProject(createdProject.getId())) {
+            projectContainer.removeProject(createdProject);
+        }
+        createdProject = null;
+    }
+}
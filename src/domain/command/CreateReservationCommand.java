@@ -15,7 +15,6 @@ public class CreateReservationCommand implements ICommand {
 	
     private final Task task;
     private final Resource resource;
-    private Resource.Memento resourceMemento;
     private final Timespan timespan;
     private Reservation reservation;
     
@@ -40,13 +39,14 @@ public class CreateReservationCommand implements ICommand {
      */
     @Override
     public void execute() throws ConflictException {
-    	resourceMemento = resource.createMemento();
     	reservation = resource.makeReservation(task, timespan);
     }
     
     @Override
     public void revert() {
-        if(reservation != null && resourceMemento != null)
-            resource.setMemento(resourceMemento);
+        if(reservation != null) {
+            resource.cancelReservation(reservation);
+            reservation = null;
+        }
     }
 }
@@ -24,7 +24,6 @@ public class CreateTaskCommand implements ICommand {
     private final int altfor;
     private final Map<ResourceType, Integer> requiredResources;
 
-    private Project.Memento projectMemento;
     private Task altforTask;
     private Task.Memento altforTaskMemento;
     private Task createdTask;
@@ -68,7 +67,6 @@ public class CreateTaskCommand implements ICommand {
     @Override
     public void execute() {
         // Save state
-        projectMemento = project.createMemento();
         if (project.hasTask(altfor)) {
             altforTask = project.getTask(altfor);
             altforTaskMemento = project.getTask(altfor).createMemento();
@@ -86,8 +84,8 @@ public class CreateTaskCommand implements ICommand {
      */
     @Override
     public void revert() {
-        if (project != null && projectMemento != null) {
-            project.setMemento(projectMemento);
+        if (createdTask != null && project.hasTask(createdTask)) {
+            project.removeTask(createdTask);
         }
         if (altforTask != null && altforTaskMemento != null) {
             altforTask.setMemento(altforTaskMemento);
@@ -101,6 +101,10 @@ public class PlanTaskCommand implements ICommand {
             throw ex;
         }
         
+        // the original planning must not end the new one
+        if(originalTaskPlanning != null) {
+        	originalTaskPlanning.detach(clock);
+        }
         task.setPlanning(new Planning(resources, timespan, task, clock));
     }
     
@@ -109,7 +113,9 @@ public class PlanTaskCommand implements ICommand {
      */
     @Override
     public void revert() {
-    	clock.detach(task.getPlanning());
+    	if(task.getPlanning() != null) {
+    		task.getPlanning().detach(clock);
+    	}
         task.setPlanning(originalTaskPlanning);
         
     	for (CreateReservationCommand command : reservations) {
@@ -118,6 +124,7 @@ public class PlanTaskCommand implements ICommand {
     	
         if(originalTaskPlanning != null && originalTaskPlanningMemento != null) {
         	originalTaskPlanning.setMemento(originalTaskPlanningMemento);
+        	originalTaskPlanning.schedule(clock);
         }
     }
 }
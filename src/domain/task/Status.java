@@ -190,6 +190,6 @@ public abstract class Status {
      * is returned.
      */
     public Duration getTimeSpent(Task task) {
-        return new Duration(0);
+        return Duration.ZERO;
     }
 }
@@ -3,9 +3,11 @@ package domain.task;
 import domain.BranchOffice;
 import domain.Planning;
 import domain.Project;
+import domain.Originator;
 import domain.Resource;
 import domain.ResourceContainer;
 import domain.ResourceType;
+import domain.Simulation;
 import domain.command.PlanTaskCommand;
 import domain.dto.DetailedTask;
 import domain.time.Clock;
@@ -14,37 +16,61 @@ import domain.time.Timespan;
 import domain.time.WorkWeekConfiguration;
 import exception.ConflictException;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class represents a task
  *
  * @author Frederic, Mathias, Pieter-Jan
  */
-public class Task implements DetailedTask {
+public class Task implements DetailedTask, Originator<Task.Memento> {
 	
     /**
      * A constant to indicate that a task requires no resources
      */
     private static final Map<ResourceType, Integer> NO_REQUIRED_RESOURCE_TYPES = new HashMap<>();
     static { NO_REQUIRED_RESOURCE_TYPES.put(ResourceType.DEVELOPER, 1); }
+    /**
+     * The number of candidate hours of which the end times are calculated at once
+     */
+    private static final int START_TIME_HORIZON = 7 * 24;
+
+    /**
+     * Constant to use when a new task should get a newly generated id. The
+     * value of this constant is {@value}.
+     */
+    public static final int NEW_ID = -1;
+
+    private static final AtomicInteger nextId = new AtomicInteger();
 
-    private static int nextId = 0;
+    /**
+     * The ordinal of a task that hasn't been added to its project yet.
+     */
+    private static final int NO_ORDINAL = -1;
 
     private final int id;
+    private int ordinal = NO_ORDINAL;
     private String description;
     private int acceptableDeviation;
     private Timespan timespan;
     private Duration estimatedDuration;
     private Task alternativeTask;
     private List<Task> prerequisiteTasks;
+    private final BitSet prerequisiteClosure;						//ordinals of direct and indirect prerequisites
+    private final List<Task> dependentTasks;
+    private final List<Task> alternativeFor;
     private Status status;
+    private Duration workTimeNeeded, timeSpent;						//performance-variables
     private Map<ResourceType, Integer> requiredResources;
     private final Project project;
 
@@ -69,25 +95,62 @@ public class Task implements DetailedTask {
      * @param project The project this task belongsto
      */
     public Task(String description, Duration duration, int accDev, List<Task> prereq, Map<ResourceType, Integer> resources, Project project) {
+        this(NEW_ID, description, duration, accDev, prereq, resources, project);
+    }
+
+    /**
+     * Initializes this task with the given id, based on the given description,
+     * estimated duration, acceptable deviation and prerequisite tasks.
+     *
+     * @param id The id of this task, reserved with {@link #reserveIds(int)},
+     * or {@link #NEW_ID} to generate a new id.
+     * @param description The description of this task.
+     * @param duration The estimated duration of this task
+     * @param accDev The acceptable deviation of this task expressed as an
+     * integer between 0 and 100.
+     * @param prereq The list of prerequisite tasks for this task.
+     * @param resources The resources this task requires to be performed
+     * @param project The project this task belongsto
+     */
+    public Task(int id, String description, Duration duration, int accDev, List<Task> prereq, Map<ResourceType, Integer> resources, Project project) {
+        this(id, description, duration, accDev, prereq, resources, project, true);
+    }
+
+    /**
+     * Initializes this task with the given id and details and adds it to the
+     * given project.
+     *
+     * @param check Whether the given details and this task have to be checked
+     * before this task is added to the given project.
+     * @see #Task(int, String, Duration, int, List, Map, Project)
+     */
+    private Task(int id, String description, Duration duration, int accDev, List<Task> prereq, Map<ResourceType, Integer> resources, Project project, boolean check) {
         Map<ResourceType, Integer> resourcesPlusDevs = new HashMap<>();
         resourcesPlusDevs.put(ResourceType.DEVELOPER, 1);
         resourcesPlusDevs.putAll(resources);
-    	if(!canHaveAsRequiredResources(resourcesPlusDevs)) {
+    	if(check && !canHaveAsRequiredResources(resourcesPlusDevs)) {
         	throw new IllegalArgumentException("The given resource requirements are not valid");
         }
-        this.id = generateId();
+        this.id = id == NEW_ID ? generateId() : id;
         if (project == null) {
             throw new IllegalArgumentException("A task cannot exist without a project");
         }
         this.project = project;
-        setDescription(description);
-
-        setAcceptableDeviation(accDev);
-        if (prereq == null) {
-            setPrerequisiteTasks(new ArrayList<>());
+        Simulation.created(this);
+        this.prerequisiteClosure = new BitSet();
+        this.dependentTasks = new ArrayList<>();
+        this.alternativeFor = new ArrayList<>();
+        if (check) {
+            setDescription(description);
+            setAcceptableDeviation(accDev);
         } else {
-            setPrerequisiteTasks(prereq);
+            this.description = description;
+            this.acceptableDeviation = accDev;
         }
+        if (prereq == null) {
+            prereq = new ArrayList<>();
+        }
+        setPrerequisiteTasks(prereq, check);
         
         requiredResources = resourcesPlusDevs;
         
@@ -97,7 +160,30 @@ public class Task implements DetailedTask {
         setStatus(initStatus);
         initStatus.update(this);
         
-        this.project.addTask(this);
+        if (check) {
+            this.project.addTask(this);
+        } else {
+            this.project.restoreTask(this);
+        }
+        registerWithPrerequisites();
+    }
+
+    /**
+     * Restores a task with the given id and details in the given project
+     * without checking them. This is only meant to restore a saved state of
+     * the system, whose tasks were checked when they were created.
+     *
+     * @param id The id of the task, which isn't in use yet.
+     * @param description The description of the task.
+     * @param duration The estimated duration of the task.
+     * @param accDev The acceptable deviation of the task.
+     * @param prereq The prerequisite tasks of the task.
+     * @param resources The resources the task requires.
+     * @param project The project the task belongs to.
+     * @return The restored task.
+     */
+    public static Task restore(int id, String description, Duration duration, int accDev, List<Task> prereq, Map<ResourceType, Integer> resources, Project project) {
+        return new Task(id, description, duration, accDev, prereq, resources, project, false);
     }
     
     /**
@@ -143,7 +229,28 @@ public class Task implements DetailedTask {
      * @return The id to be used for a newly created task.
      */
     private static int generateId() {
-        return nextId++;
+        return nextId.getAndIncrement();
+    }
+
+    /**
+     * Reserves the given number of consecutive ids, so tasks can be created
+     * with a known id from several threads at once.
+     *
+     * @param count The number of ids to reserve.
+     * @return The first reserved id.
+     */
+    public static int reserveIds(int count) {
+        return nextId.getAndAdd(count);
+    }
+
+    /**
+     * Makes sure no task that is created from now on gets an id smaller than
+     * the given id, so a task can be restored with its original id.
+     *
+     * @param id The smallest id for the next task.
+     */
+    public static void skipIdsBelow(int id) {
+        nextId.accumulateAndGet(id, Math::max);
     }
     
     /**
@@ -162,6 +269,24 @@ public class Task implements DetailedTask {
         return this.id;
     }
 
+    /**
+     * @return The position at which this task was added to its project.
+     */
+    public int getOrdinal() {
+        return this.ordinal;
+    }
+
+    /**
+     * Sets the position at which this task was added to its project. (Must
+     * only be used by the project of this task.)
+     *
+     * @param ordinal The number of tasks added to the project before this
+     * task.
+     */
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+
     /**
      * @return The description of this task.
      */
@@ -221,7 +346,10 @@ public class Task implements DetailedTask {
      * @param timeSpan The new time span of this task.
      */
     void setTimeSpan(Timespan timeSpan) {
+        Simulation.changing(this);
         this.timespan = timeSpan;
+        invalidateWorkTimes();
+        project.taskChanged(this);
     }
 
     /**
@@ -269,6 +397,13 @@ public class Task implements DetailedTask {
         return this.alternativeTask;
     }
 
+    /**
+     * @return The failed tasks that have this task as their alternative task.
+     */
+    public List<Task> getAlternativeFor() {
+        return Collections.unmodifiableList(this.alternativeFor);
+    }
+
     /**
      * Sets the alternative task of this task to the given alternative task.
      *
@@ -278,6 +413,19 @@ public class Task implements DetailedTask {
      */
     public void setAlternativeTask(Task alternativeTask) throws IllegalStateException, IllegalArgumentException {
         status.setAlternativeTask(this, alternativeTask);
+        updateDependentTasks();
+    }
+
+    /**
+     * Sets the alternative task of this task without checking whether this
+     * task can have one. This is only meant to restore a saved state of the
+     * system.
+     *
+     * @param alternativeTask The alternative task for this task.
+     */
+    public void restoreAlternativeTask(Task alternativeTask) {
+        setAlternativeTaskRaw(alternativeTask);
+        updateDependentTasks();
     }
 
     /**
@@ -287,7 +435,16 @@ public class Task implements DetailedTask {
      * @param task The alternative task.
      */
     void setAlternativeTaskRaw(Task task) {
+        Simulation.changing(this);
+        if (alternativeTask != null) {
+            alternativeTask.alternativeFor.remove(this);
+        }
         alternativeTask = task;
+        if (task != null) {
+            task.alternativeFor.add(this);
+        }
+        invalidateWorkTimes();
+        project.taskChanged(this);
     }
 
     /**
@@ -298,21 +455,34 @@ public class Task implements DetailedTask {
         return new ArrayList<>(this.prerequisiteTasks);
     }
 
+    /**
+     * @return The list of tasks that have this task as a prerequisite task.
+     */
+    public List<Task> getDependentTasks() {
+        return new ArrayList<>(this.dependentTasks);
+    }
+
     /**
      * Sets the list of prerequisite tasks to the given list of prerequisite
      * tasks.
      *
      * @param prereq The new list of prerequisite tasks for this task.
+     * @param check Whether the given list has to be checked.
      * @throws IllegalArgumentException If this task can't have the given list
      * of prerequisite tasks as its list of prerequisite tasks.
      */
-    private void setPrerequisiteTasks(List<Task> prereq) throws IllegalArgumentException {
-        if (!canHaveAsPrerequisiteTasks(prereq)) {
+    private void setPrerequisiteTasks(List<Task> prereq, boolean check) throws IllegalArgumentException {
+        if (check && !canHaveAsPrerequisiteTasks(prereq)) {
             throw new IllegalArgumentException(
                     "This task can't have the given list of prerequisite tasks as its prerequisite tasks.");
         }
         
         this.prerequisiteTasks = prereq;
+        prerequisiteClosure.clear();
+        for (Task t : prereq) {
+            prerequisiteClosure.or(t.prerequisiteClosure);
+            prerequisiteClosure.set(t.ordinal);
+        }
     }
 
     /**
@@ -368,7 +538,6 @@ public class Task implements DetailedTask {
      */
     @Override
     public final Status getStatus() {
-        status.update(this);
         return this.status;
     }
 
@@ -379,7 +548,28 @@ public class Task implements DetailedTask {
      * @param status The new status of this task.
      */
     final void setStatus(Status status) {
+        Simulation.changing(this);
         this.status = status;
+        invalidateWorkTimes();
+        project.taskChanged(this);
+    }
+
+    /**
+     * Restores the status and time span of this task without checking whether
+     * this task can make that transition. This is only meant to restore a
+     * saved state of the system. An available or unavailable status is
+     * recalculated from the prerequisites.
+     *
+     * @param status The status to restore.
+     * @param timespan The time span to restore, null if this task doesn't
+     * have one.
+     */
+    public void restoreStatus(Status status, Timespan timespan) {
+        Simulation.changing(this);
+        this.timespan = timespan;
+        setStatus(status);
+        status.update(this);
+        updateDependentTasks();
     }
 
     /****************************************
@@ -396,7 +586,7 @@ public class Task implements DetailedTask {
     @Override
     public Duration getDelay() {
         if (getTimeSpan() == null) {
-            return new Duration(0);
+            return Duration.ZERO;
         }
 
         return getTimeSpan().getExcess(calculateMaxDuration());
@@ -441,6 +631,7 @@ public class Task implements DetailedTask {
         }
         
         getStatus().fail(this, timespan);
+        updateDependentTasks();
         if(hasPlanning()){
             planning.clearFutureReservations(timespan.getEndTime());
         }
@@ -465,12 +656,50 @@ public class Task implements DetailedTask {
         }
         
         getStatus().finish(this, timespan);
+        updateDependentTasks();
         if(hasPlanning()){
             planning.clearFutureReservations(timespan.getEndTime());
         }
         
     }
 
+    /**
+     * Adds this task to the dependent tasks of its prerequisite tasks, unless
+     * it has been added already.
+     */
+    public void registerWithPrerequisites() {
+        for (Task t : prerequisiteTasks) {
+            if (!t.dependentTasks.contains(this)) {
+                t.dependentTasks.add(this);
+            }
+        }
+    }
+
+    /**
+     * Removes this task from the dependent tasks of its prerequisite tasks.
+     * This is only meant to undo the creation of this task.
+     */
+    public void unregisterFromPrerequisites() {
+        for (Task t : prerequisiteTasks) {
+            t.dependentTasks.remove(this);
+        }
+    }
+
+    /**
+     * Updates the status of the tasks that depend on this task, after this
+     * task may have become fulfilled or unfulfilled. Tasks for which this task
+     * is the alternative are fulfilled together with this task, so their
+     * dependent tasks are updated as well.
+     */
+    private void updateDependentTasks() {
+        for (Task t : dependentTasks) {
+            t.status.update(t);
+        }
+        for (Task t : alternativeFor) {
+            t.updateDependentTasks();
+        }
+    }
+
     /**
      * Move this task to the executing state
      *
@@ -535,15 +764,16 @@ public class Task implements DetailedTask {
      * given task. False otherwise.
      */
     public boolean dependsOn(Task task) {
-        if (getAlternativeTask() != null && getAlternativeTask().equals(task)) {
+        // the closure only holds tasks that were added to the same project
+        if (task.project != project || task.ordinal == NO_ORDINAL) {
+            return false;
+        }
+        if (prerequisiteClosure.get(task.ordinal)) {
             return true;
         }
         
-        for (Task prereqTask : getPrerequisiteTasks()) {
-            if (prereqTask.equals(task)) {
-                return true;
-            }
-            if (prereqTask.dependsOn(task)) {
+        for (Task t : task.alternativeFor) {
+            if (t == this || prerequisiteClosure.get(t.ordinal)) {
                 return true;
             }
         }
@@ -583,7 +813,10 @@ public class Task implements DetailedTask {
      *
      */
     public Duration estimatedWorkTimeNeeded() {
-        return getStatus().estimatedWorkTimeNeeded(this);
+        if (workTimeNeeded == null) {
+            workTimeNeeded = getStatus().estimatedWorkTimeNeeded(this);
+        }
+        return workTimeNeeded;
     }
     
       /**
@@ -622,7 +855,28 @@ public class Task implements DetailedTask {
      * is returned.
      */
     public Duration getTimeSpent() {
-        return getStatus().getTimeSpent(this);
+        if (timeSpent == null) {
+            timeSpent = getStatus().getTimeSpent(this);
+        }
+        return timeSpent;
+    }
+
+    /**
+     * Forgets the cached estimated work time needed and time spent of this
+     * task and of every task whose cached values were calculated from them.
+     */
+    private void invalidateWorkTimes() {
+        if (workTimeNeeded == null && timeSpent == null) {
+            return;
+        }
+        workTimeNeeded = null;
+        timeSpent = null;
+        for (Task t : dependentTasks) {
+            t.invalidateWorkTimes();
+        }
+        for (Task t : alternativeFor) {
+            t.invalidateWorkTimes();
+        }
     }
 
     /**
@@ -707,10 +961,10 @@ public class Task implements DetailedTask {
     public SortedSet<LocalDateTime> nextAvailableStartingTimes(ResourceContainer resContainer, LocalDateTime from, int n) {
     	SortedSet<LocalDateTime> result = new TreeSet<>();
     	Map<ResourceType, Integer> required = getRequiredResources();
-    	LocalDateTime next = from;
+    	LocalDateTime first = from.truncatedTo(ChronoUnit.HOURS);
     	
-    	if(next.getMinute() != 0)
-    		next = next.withMinute(0).plusHours(1);
+    	if(first.isBefore(from))
+    		first = first.plusHours(1);
     	
         for(ResourceType type : required.keySet()) {
 			if(resContainer.getResourcesOfType(type).size() < required.get(type)) {
@@ -718,22 +972,39 @@ public class Task implements DetailedTask {
 			}
     	}
         
+        long[] starts = new long[START_TIME_HORIZON];
+        long[] ends = new long[START_TIME_HORIZON];
+        long next = Timespan.toEpochMinute(first);
+        int index = START_TIME_HORIZON;
+        
     	while(result.size() < n) {
-			LocalDateTime end = getEstimatedDuration().getEndTimeFrom(next);
-			Timespan span = new Timespan(next, end);
-			boolean allAvailable = true;
+    		if(index >= START_TIME_HORIZON) {
+    			for(int i = 0; i < START_TIME_HORIZON; i++)
+    				starts[i] = next + i * 60L;
+    			getEstimatedDuration().getEndTimesFrom(starts, ends);
+    			index = 0;
+    		}
+    		
+    		LocalDateTime start = Timespan.ofEpochMinute(next);
+			Timespan span = new Timespan(start, Timespan.ofEpochMinute(ends[index]));
+			LocalDateTime earliest = start;
 			
+			// a later start never ends earlier, so no start before the 
+			// release of the busiest type can be available either.
     		for(ResourceType type : required.keySet()) {
-    			if(!resContainer.hasAvailableOfType(type, span, required.get(type))) {
-    				allAvailable = false;
-    				break;
-    			}
+    			LocalDateTime available = resContainer.getEarliestAvailability(type, span, required.get(type));
+    			if(available.isAfter(earliest))
+    				earliest = available;
     		}
     		
-    		if(allAvailable)
-    			result.add(next);
+    		long hours = 1;
+    		if(earliest.equals(start))
+    			result.add(start);
+    		else
+    			hours = Math.max(1, (ChronoUnit.MINUTES.between(start, earliest) + 59) / 60);
     		
-    		next = next.plusHours(1); 
+    		next += hours * 60;
+    		index = (int) Math.min(START_TIME_HORIZON, index + hours);
     	}
     	
     	return result;
@@ -750,10 +1021,11 @@ public class Task implements DetailedTask {
 
     /**
      * Init the estimated duration of a task with configuration of the least
-     * available resourcetype.
+     * available resourcetype. The end of the task is calculated with that
+     * configuration for every day it spans.
      */
     private void initDuration(Duration dur) {
-        WorkWeekConfiguration minconf = new WorkWeekConfiguration();
+        WorkWeekConfiguration minconf = WorkWeekConfiguration.DEFAULT;
 
         for (Entry<ResourceType, Integer> entry : requiredResources.entrySet()) {
             if (entry.getKey().getAvailability().compareTo(minconf) < 0) {
@@ -761,7 +1033,11 @@ public class Task implements DetailedTask {
             }
         }
 
-        estimatedDuration = new Duration(dur.toMinutes(), minconf);
+        if (dur.getWorkWeekConfiguration().equals(minconf)) {
+            estimatedDuration = dur;
+        } else {
+            estimatedDuration = new Duration(dur.toMinutes(), minconf);
+        }
     }
 
     /**
@@ -779,7 +1055,9 @@ public class Task implements DetailedTask {
      * @param planning The planning to set
      */
     public void setPlanning(Planning planning) {
+        Simulation.changing(this);
         this.planning = planning;
+        project.taskChanged(this);
     }
 	
 	/**
@@ -812,6 +1090,7 @@ public class Task implements DetailedTask {
 	 */
 	public void setDelegatedBranchOffice(BranchOffice branchOffice)
 	{
+		Simulation.changing(this);
 		this.delegatedBranchOffice = branchOffice;
 	}
 	
@@ -820,6 +1099,7 @@ public class Task implements DetailedTask {
      * from the one to which its project belongs to.
      */
 	public void setNotDelegated() {
+		Simulation.changing(this);
 		this.delegatedBranchOffice = null;
 	}
         
@@ -840,8 +1120,9 @@ public class Task implements DetailedTask {
      *
      * @return A memento which stores the the state of this task.
      */
+    @Override
     public Memento createMemento() {
-        return new Memento(timespan, alternativeTask, prerequisiteTasks, status, planning);
+        return new Memento(timespan, alternativeTask, prerequisiteTasks, status, planning, delegatedBranchOffice);
     }
 
     /**
@@ -849,12 +1130,41 @@ public class Task implements DetailedTask {
      *
      * @param memento The memento containing the new state of this task.
      */
+    @Override
     public void setMemento(Memento memento) {
+        Simulation.changing(this);
         this.timespan = memento.getTimespan();
-        this.alternativeTask = memento.getAlternativeTask();
+        setAlternativeTaskRaw(memento.getAlternativeTask());
         this.prerequisiteTasks = memento.getPrerequisiteTasks();
         this.status = memento.getStatus();
         this.planning = memento.getPlanning();
+        this.delegatedBranchOffice = memento.getDelegatedBranchOffice();
+        invalidateWorkTimes();
+        project.taskChanged(this);
+        
+        this.status.update(this);
+        updateDependentTasks();
+    }
+
+    /**
+     * Checks whether this task is still in the state stored in the given
+     * memento. Statuses are compared on their kind, because an available or
+     * unavailable status is recalculated whenever the state of a task is
+     * restored.
+     *
+     * @param memento The memento to compare with.
+     * @return True if this task has the same time span, alternative task,
+     * prerequisite tasks, kind of status, planning and delegation as the
+     * memento.
+     */
+    @Override
+    public boolean hasState(Memento memento) {
+        return timespan == memento.timespan
+                && alternativeTask == memento.alternativeTask
+                && prerequisiteTasks.equals(memento.prerequisiteTasks)
+                && status.getClass() == memento.status.getClass()
+                && planning == memento.planning
+                && delegatedBranchOffice == memento.delegatedBranchOffice;
     }
 	
     /**
@@ -867,6 +1177,7 @@ public class Task implements DetailedTask {
         private final List<Task> prerequisiteTasks;
         private final Status status;
         private final Planning planning;
+        private final BranchOffice delegatedBranchOffice;
 
         private Timespan getTimespan() {
             return this.timespan;
@@ -888,6 +1199,10 @@ public class Task implements DetailedTask {
             return this.planning;
         }
 
+        private BranchOffice getDelegatedBranchOffice() {
+            return this.delegatedBranchOffice;
+        }
+
         /**
          * Initializes this memento based on the given state.
          *
@@ -898,13 +1213,16 @@ public class Task implements DetailedTask {
          * @param status The status of the originator task.
          * @param planning The planning of the originator
          * task.
+         * @param delegatedBranchOffice The branch office the originator task
+         * is delegated to.
          */
-        private Memento(Timespan timespan, Task alternativeTask, List<Task> prerequisiteTasks, Status status, Planning planning) {
+        private Memento(Timespan timespan, Task alternativeTask, List<Task> prerequisiteTasks, Status status, Planning planning, BranchOffice delegatedBranchOffice) {
             this.timespan = timespan;
             this.alternativeTask = alternativeTask;
             this.prerequisiteTasks = new ArrayList<>(prerequisiteTasks);
             this.status = status;
             this.planning = planning;
+            this.delegatedBranchOffice = delegatedBranchOffice;
         }
     }
 }
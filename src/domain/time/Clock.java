@@ -2,13 +2,17 @@ package domain.time;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
 
 import domain.ClockObserver;
 
 /**
- * This class represents the system clock
+ * This class represents the system clock. Observers can be attached and
+ * scheduled from several threads at once.
  * 
  * @author Frederic, Mathias, Pieter-Jan 
  */
@@ -19,8 +23,12 @@ public class Clock {
      */
     public static final LocalDateTime INCEPTION = LocalDateTime.of(2000, 1, 1, 0, 0);
     
-    private LocalDateTime time;
+    private volatile LocalDateTime time;
     private final List<ClockObserver> observers;
+    private final PriorityQueue<Timer> timers;
+    private final Map<ClockObserver, List<Timer>> timersByObserver;
+    private int cancelledTimers;
+    private long nextTimerId;
     
     /**
      * Initializes this clock with the given time.
@@ -30,6 +38,8 @@ public class Clock {
      */
     public Clock(LocalDateTime time) {
         observers = new ArrayList<>();
+        timers = new PriorityQueue<>();
+        timersByObserver = new IdentityHashMap<>();
         setTime(time);
         
     }
@@ -85,7 +95,7 @@ public class Clock {
      * @throws 	IllegalArgumentException 
      * 			if the given time lays strictly in the past, compared to this clocks time.
      */
-    public void advanceTime(LocalDateTime time) throws IllegalArgumentException {
+    public synchronized void advanceTime(LocalDateTime time) throws IllegalArgumentException {
         if(time.isBefore(this.time)){
             throw new IllegalArgumentException("The given timestamp is strictly before the current system time.");
         }
@@ -124,26 +134,99 @@ public class Clock {
      * 
      * @param observer The observer to attach
      */
-    public void attach(ClockObserver observer) {
+    public synchronized void attach(ClockObserver observer) {
         observers.add(observer);
     }
     
     /**
-     * Detach the given observer from the list of observers
+     * Schedule the given observer to be updated once, as soon as the time of 
+     * this clock is advanced to or past the given deadline. After that update 
+     * the observer is dropped.
+     * 
+     * @param observer The observer to schedule
+     * @param deadline The time from which on the observer wants to be updated
+     */
+    public synchronized void schedule(ClockObserver observer, LocalDateTime deadline) {
+        Timer timer = new Timer(observer, deadline, nextTimerId++);
+        timers.add(timer);
+        timersByObserver.computeIfAbsent(observer, o -> new ArrayList<>(1)).add(timer);
+    }
+    
+    /**
+     * Detach the given observer from the list of observers and cancel all its
+     * scheduled updates. Cancelled updates are only marked as such and are 
+     * dropped when they reach the head of the queue, or all at once when 
+     * they make up half of it.
      * 
      * @param observer The observer to detach
      */
-    public void detach(ClockObserver observer) {
+    public synchronized void detach(ClockObserver observer) {
         observers.remove(observer);
+        List<Timer> scheduled = timersByObserver.remove(observer);
+        if (scheduled == null) {
+            return;
+        }
+        for (Timer timer : scheduled) {
+            timer.cancelled = true;
+        }
+        cancelledTimers += scheduled.size();
+        if (cancelledTimers > timers.size() / 2) {
+            timers.removeIf(timer -> timer.cancelled);
+            cancelledTimers = 0;
+        }
     }
     
     /**
-     * Report a change in this clock to all its attached observers
+     * Report a change in this clock to all its attached observers and to the
+     * scheduled observers whose deadline has passed.
      */
     private void report(){
         for (ClockObserver observer : observers) {
             observer.update(time);
         }
+        
+        // collect first, so observers can schedule again while being updated
+        List<ClockObserver> due = new ArrayList<>();
+        while (!timers.isEmpty() && !timers.peek().deadline.isAfter(time)) {
+            Timer timer = timers.poll();
+            if (timer.cancelled) {
+                cancelledTimers--;
+                continue;
+            }
+            List<Timer> scheduled = timersByObserver.get(timer.observer);
+            scheduled.remove(timer);
+            if (scheduled.isEmpty()) {
+                timersByObserver.remove(timer.observer);
+            }
+            due.add(timer.observer);
+        }
+        for (ClockObserver observer : due) {
+            observer.update(time);
+        }
+    }
+    
+    /**
+     * A scheduled update of an observer. Timers with the same deadline are 
+     * ordered on the moment they were scheduled.
+     */
+    private static class Timer implements Comparable<Timer> {
+        
+        private final ClockObserver observer;
+        private final LocalDateTime deadline;
+        private final long id;
+        private boolean cancelled;
+        
+        private Timer(ClockObserver observer, LocalDateTime deadline, long id) {
+            this.observer = observer;
+            this.deadline = deadline;
+            this.id = id;
+        }
+        
+        @Override
+        public int compareTo(Timer other) {
+            int res = deadline.compareTo(other.deadline);
+            return res != 0 ? res : Long.compare(id, other.id);
+        }
     }
 	
 	/****************************************
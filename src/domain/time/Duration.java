@@ -1,8 +1,6 @@
 package domain.time;
 
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
 
 /**
  * This class represents a duration over a bussiness week in an abstract way.
@@ -11,10 +9,17 @@ import java.time.temporal.ChronoUnit;
  */
 public class Duration implements Comparable<Duration> {
 
+    /*
+     * Durations of at most a standard work week are shared, they are
+     * immutable and by far the most common values.
+     */
+    private static final int CACHED_MINUTES = 5 * 8 * 60;
+    private static final Duration[] CACHE = new Duration[CACHED_MINUTES + 1];
+
     /**
      * Constant for a duration of zero.
      */
-    public static final Duration ZERO = new Duration(0);
+    public static final Duration ZERO = of(0);
 
     private final long minutes;
     private final WorkWeekConfiguration configuration;
@@ -33,7 +38,7 @@ public class Duration implements Comparable<Duration> {
      * valid interval.
      */
     public Duration(LocalDateTime begin, LocalDateTime end) {
-        this.configuration = new WorkWeekConfiguration();
+        this.configuration = WorkWeekConfiguration.DEFAULT;
         this.minutes = getWorkTimeBetween(begin, end);
     }
 
@@ -55,7 +60,7 @@ public class Duration implements Comparable<Duration> {
      * @throws IllegalArgumentException The given amount of minutes is negative.
      */
     public Duration(long minutes) throws IllegalArgumentException {
-        this(minutes, new WorkWeekConfiguration());
+        this(minutes, WorkWeekConfiguration.DEFAULT);
     }
     
     /**
@@ -74,6 +79,27 @@ public class Duration implements Comparable<Duration> {
         this.minutes = minutes;
     }
 
+    /**
+     * Returns a duration of the given amount of minutes with a standard
+     * workweek configuration. Common durations are shared instead of created.
+     *
+     * @param minutes The amount of minutes the duration occupies
+     * @return A duration of the given amount of minutes.
+     * @throws IllegalArgumentException The given amount of minutes is negative.
+     */
+    public static Duration of(long minutes) throws IllegalArgumentException {
+        if (minutes < 0 || minutes > CACHED_MINUTES) {
+            return new Duration(minutes);
+        }
+        
+        Duration result = CACHE[(int) minutes];
+        if (result == null) {
+            result = new Duration(minutes);
+            CACHE[(int) minutes] = result;
+        }
+        return result;
+    }
+
     /****************************************
      * Getters and setters	                *
      ****************************************/
@@ -120,7 +146,7 @@ public class Duration implements Comparable<Duration> {
      * the duration to be negative.
      */
     public Duration add(long minutesToAdd) throws IllegalArgumentException {
-        return new Duration(minutes + minutesToAdd);
+        return of(minutes + minutesToAdd);
     }
 
     /**
@@ -136,7 +162,7 @@ public class Duration implements Comparable<Duration> {
             return this;
         }
         
-        return new Duration(minutes + otherDuration.toMinutes());
+        return of(minutes + otherDuration.toMinutes());
     }
 
     /**
@@ -154,7 +180,7 @@ public class Duration implements Comparable<Duration> {
             return this;
         }
         
-        return new Duration(minutes - otherDuration.toMinutes());
+        return of(minutes - otherDuration.toMinutes());
     }
 
     /**
@@ -165,7 +191,7 @@ public class Duration implements Comparable<Duration> {
      * multiplicand, rounded to the nearest integer.
      */
     public Duration multiplyBy(double multiplicand) {
-        return new Duration(Math.round(multiplicand * toMinutes()));
+        return of(Math.round(multiplicand * toMinutes()));
     }
 
     /**
@@ -221,53 +247,16 @@ public class Duration implements Comparable<Duration> {
      * @param end The end time
      * @return The work time between the 2 given moments in minutes based on the
      * start and end of a work day and minus the weekends and lunch breaks. In
-     * case of invalid begin or end time, the next valid work time is used.
+     * case of invalid begin or end time, the next valid work time is used. The
+     * seconds of both times are truncated before they are compared.
      * @throws IllegalArgumentException The given time interval is not valid.
      */
     private long getWorkTimeBetween(LocalDateTime begin, LocalDateTime end) throws IllegalArgumentException {
         if (!isValidInterval(begin, end)) {
             throw new IllegalArgumentException("The given begin time isn't before the given end time.");
         }
-        if (!configuration.isValidWorkTime(begin)) {
-            begin = configuration.nextValidWorkTime(begin);
-        }
-        if (!configuration.isValidWorkTime(end)) {
-            end = configuration.nextValidWorkTime(end);
-        }
 
-        long minutesTillEnd = ChronoUnit.MINUTES.between(begin, end);
-        long totalMinutes = 0;
-        LocalTime beginLocalTime = begin.toLocalTime();
-        LocalDateTime nextBegin;
-        
-        if (beginLocalTime.compareTo(configuration.getEndLunch()) < 0) {
-            long minutesTillLunch = ChronoUnit.MINUTES.between(beginLocalTime, configuration.getBeginLunch());
-            if (minutesTillEnd <= minutesTillLunch) {
-                return minutesTillEnd;
-            } else {
-                totalMinutes += minutesTillLunch;
-            }
-            //nextBegin set to end of lunch break
-            nextBegin = LocalDateTime.of(begin.toLocalDate(), configuration.getEndLunch());
-
-        } else //if(beginLocalTime.compareTo(ENDLUNCH) >= 0)
-        {
-            long minutesTillEndOfDay = ChronoUnit.MINUTES.between(beginLocalTime, configuration.getEndWorkDay());
-            if (minutesTillEnd <= minutesTillEndOfDay) {
-                return minutesTillEnd;
-            } else {
-                totalMinutes += minutesTillEndOfDay;
-            }
-            int weekDay = begin.getDayOfWeek().getValue();
-            if (weekDay == configuration.getEndWorkWeek()) {
-                nextBegin = LocalDateTime.of(begin.toLocalDate().
-                        plusDays(8 - configuration.getDaysOfWorkWeek()), configuration.getBeginWorkDay());
-            } else {
-                nextBegin = LocalDateTime.of(begin.toLocalDate().plusDays(1), configuration.getBeginWorkDay());
-            }
-        }
-        
-        return totalMinutes + getWorkTimeBetween(nextBegin, end);
+        return configuration.toWorkMinutes(end) - configuration.toWorkMinutes(begin);
     }
 
 
@@ -281,50 +270,35 @@ public class Duration implements Comparable<Duration> {
      *
      * @param begin The time to start from
      * @return a LocalDateTime marking the end of this duration that starts at
-     * the given start time.
+     * the given start time. The work hours of every day are those of the work
+     * week configuration of this duration. The end time is a whole minute:
+     * the seconds of the given start time are truncated.
      * @throws IllegalArgumentException if the given time doesn't lay in between
      * the business hours.
      */
     public LocalDateTime getEndTimeFrom(LocalDateTime begin) throws IllegalArgumentException {
-        LocalDateTime start = begin;
-        if (!configuration.isValidWorkTime(begin)) {
-            start = configuration.nextValidWorkTime(begin);
-        }
-
-        long minutesRemaining = minutes;
-
-        if (minutesRemaining == 0) {
-            return start;
+        if (minutes == 0) {
+            return configuration.nextValidWorkTime(begin);
         }
 
-        LocalTime beginLocalTime = start.toLocalTime();
-        LocalDateTime nextBegin;
-        if (beginLocalTime.compareTo(configuration.getEndLunch()) < 0) {
-            long minutesTillLunch = ChronoUnit.MINUTES.between(beginLocalTime, configuration.getBeginLunch());
-            if (minutesRemaining <= minutesTillLunch) {
-                return start.plusMinutes(minutesRemaining);
-            } else {
-                minutesRemaining -= minutesTillLunch;
-            }
+        return configuration.fromWorkMinutes(configuration.toWorkMinutes(begin) + minutes);
+    }
 
-            //nextBegin set to end of lunch break
-            nextBegin = LocalDateTime.of(start.toLocalDate(), configuration.getEndLunch());
-        } else //if(beginLocalTime.compareTo(ENDLUNCH) >= 0)
-        {
-            long minutesTillEndOfDay = ChronoUnit.MINUTES.between(beginLocalTime, configuration.getEndWorkDay());
-            if (minutesRemaining <= minutesTillEndOfDay) {
-                return start.plusMinutes(minutesRemaining);
-            } else {
-                minutesRemaining -= minutesTillEndOfDay;
-            }
-            int weekDay = start.getDayOfWeek().getValue();
-            if (weekDay == configuration.getEndWorkWeek()) {
-                nextBegin = LocalDateTime.of(start.toLocalDate().plusDays(8 - configuration.getDaysOfWorkWeek()), configuration.getBeginWorkDay());
-            } else {
-                nextBegin = LocalDateTime.of(start.toLocalDate().plusDays(1), configuration.getBeginWorkDay());
-            }
-        }
-        return new Duration(minutesRemaining).getEndTimeFrom(nextBegin);
+    /**
+     * Calculates the time this duration would end for every given start time,
+     * while taking into account the business hours. All times are given as a
+     * number of minutes since 1970-01-01T00:00.
+     *
+     * @param starts The times to start from
+     * @param ends The array to store the end times in, at the index of their
+     * start time
+     * @throws IllegalArgumentException if the given arrays don't have the same
+     * length.
+     * @see #getEndTimeFrom(LocalDateTime)
+     * @see Timespan#toEpochMinute(LocalDateTime)
+     */
+    public void getEndTimesFrom(long[] starts, long[] ends) throws IllegalArgumentException {
+        configuration.addWorkMinutes(starts, minutes, ends);
     }
 
     /**
@@ -1,16 +1,25 @@
 package domain.time;
 
 import java.time.LocalDateTime;
-import java.util.Objects;
+import java.time.ZoneOffset;
 
 /**
- * This class represents a timespan with a start and end time
+ * This class represents a timespan with a start and end time.
+ * 
+ * Both times are stored as a number of minutes since the epoch, so times are 
+ * rounded down to a whole minute. An end time of {@link LocalDateTime#MAX}
+ * represents a time span that never ends.
  *
  * @author Frederic, Mathias, Pieter-Jan
  */
 public final class Timespan implements Comparable<Timespan> {
 
-    private final LocalDateTime startTime, endTime;
+    /**
+     * The epoch minute representing {@link LocalDateTime#MAX}
+     */
+    private static final long INFINITE = Long.MAX_VALUE;
+
+    private final long start, end;
 
     /**
      * Initialize this time span with the given begin and end time.
@@ -24,13 +33,31 @@ public final class Timespan implements Comparable<Timespan> {
         if (!canHaveAsTime(startTime) || !canHaveAsTime(endTime)) {
             throw new IllegalArgumentException("The start time is not valid.");
         }
-        if (!canHaveAsTimeInterval(startTime, endTime)) {
+
+        this.start = toEpochMinute(startTime);
+        this.end = toEpochMinute(endTime);
+        if (!canHaveAsTimeInterval(start, end)) {
             throw new IllegalArgumentException("The start time is later than the end time.");
         }
+    }
 
-        this.startTime = startTime;
-        this.endTime = endTime;
+    /**
+     * Initialize this time span with the given begin and end time in minutes
+     * since the epoch.
+     *
+     * @param start The start time of this time span
+     * @param end The end time of this time span
+     * @throws IllegalArgumentException If the given start and end time don't
+     * form a valid interval.
+     * @see #toEpochMinute(LocalDateTime)
+     */
+    public Timespan(long start, long end) throws IllegalArgumentException {
+        if (!canHaveAsTimeInterval(start, end)) {
+            throw new IllegalArgumentException("The start time is later than the end time.");
+        }
 
+        this.start = start;
+        this.end = end;
     }
 
     /**
@@ -49,7 +76,7 @@ public final class Timespan implements Comparable<Timespan> {
      * @param duration The duration of this time span
      */
     public Timespan(LocalDateTime startTime, Duration duration) {
-        this(startTime, startTime.plusMinutes(duration.toMinutes()));
+        this(toEpochMinute(startTime), toEpochMinute(startTime) + duration.toMinutes());
     }
 
     /**
@@ -60,22 +87,36 @@ public final class Timespan implements Comparable<Timespan> {
      * @return True if and only if the start time is strictly before the end
      * time
      */
-    private boolean canHaveAsTimeInterval(LocalDateTime start, LocalDateTime end) {
-        return start.isBefore(end);
+    private boolean canHaveAsTimeInterval(long start, long end) {
+        return start < end;
     }
 
     /**
      * @return The time this time span starts
      */
     public LocalDateTime getStartTime() {
-        return startTime;
+        return ofEpochMinute(start);
     }
 
     /**
      * @return The time this time span ends
      */
     public LocalDateTime getEndTime() {
-        return endTime;
+        return ofEpochMinute(end);
+    }
+
+    /**
+     * @return The time this time span starts in minutes since the epoch
+     */
+    public long getStartMinute() {
+        return start;
+    }
+
+    /**
+     * @return The time this time span ends in minutes since the epoch
+     */
+    public long getEndMinute() {
+        return end;
     }
 
     /**
@@ -86,8 +127,7 @@ public final class Timespan implements Comparable<Timespan> {
      * time.
      */
     public boolean overlapsWith(Timespan anotherTimespan) {
-    	return anotherTimespan.getStartTime().compareTo(this.getEndTime()) < 0
-                && this.getStartTime().compareTo(anotherTimespan.getEndTime()) < 0;
+    	return anotherTimespan.start < this.end && this.start < anotherTimespan.end;
     }
 
     /**
@@ -99,7 +139,7 @@ public final class Timespan implements Comparable<Timespan> {
      * time. (Not strict)
      */
     public boolean overlapsWith(LocalDateTime time) {
-        return time.compareTo(getStartTime()) >= 0 && time.compareTo(getEndTime()) <= 0;
+        return compare(time, start) >= 0 && compare(time, end) <= 0;
     }
 
     /**
@@ -113,7 +153,7 @@ public final class Timespan implements Comparable<Timespan> {
      */
     public Duration getExcess(Duration duration) {
         if (getDuration().compareTo(duration) < 0) {
-            return new Duration(0);
+            return Duration.ZERO;
         }
 
         return getDuration().subtract(duration);
@@ -123,7 +163,7 @@ public final class Timespan implements Comparable<Timespan> {
      * @return The duration of this time span
      */
     public Duration getDuration() {
-        return new Duration(startTime, endTime);
+        return new Duration(getStartTime(), getEndTime());
     }
 
     /**
@@ -145,7 +185,18 @@ public final class Timespan implements Comparable<Timespan> {
      * equals the start time of the given time span.
      */
     public boolean endsBefore(Timespan anotherTimespan) {
-        return getEndTime().compareTo(anotherTimespan.getStartTime()) <= 0;
+        return end <= anotherTimespan.start;
+    }
+
+    /**
+     * Check whether this time span ends strictly before the given time.
+     *
+     * @param time The time to compare to
+     * @return True if and only if the end time of this time span is before
+     * the given time.
+     */
+    public boolean endsBefore(LocalDateTime time) {
+        return compare(time, end) > 0;
     }
 
     /**
@@ -156,7 +207,7 @@ public final class Timespan implements Comparable<Timespan> {
      * strictly before the given time.
      */
     public boolean endsAfter(LocalDateTime time) {
-        return getEndTime().isAfter(time);
+        return compare(time, end) < 0;
     }
 
     /**
@@ -169,7 +220,7 @@ public final class Timespan implements Comparable<Timespan> {
     public int compareTo(LocalDateTime time) {
         if (overlapsWith(time)) {
             return 0;
-        } else if (getStartTime().isBefore(time)) {
+        } else if (compare(time, start) > 0) {
             return -1;
         } else {
             return 1;
@@ -187,10 +238,10 @@ public final class Timespan implements Comparable<Timespan> {
      */
     @Override
     public int compareTo(Timespan other) {
-        int res = this.getStartTime().compareTo(other.getStartTime());
+        int res = Long.compare(this.start, other.start);
         
         if (res == 0) {
-            res = this.getEndTime().compareTo(other.getEndTime());
+            res = Long.compare(this.end, other.end);
         }
         
         return res;
@@ -204,7 +255,7 @@ public final class Timespan implements Comparable<Timespan> {
      * given time.
      */
     public boolean startsAfter(LocalDateTime time) {
-        return getStartTime().isAfter(time);
+        return compare(time, start) < 0;
     }
 
     /**
@@ -215,7 +266,53 @@ public final class Timespan implements Comparable<Timespan> {
      * given time.
      */
     public boolean startsBefore(LocalDateTime time) {
-        return getStartTime().isBefore(time);
+        return compare(time, start) > 0;
+    }
+    
+    /**
+     * Converts the given time to the number of minutes since the epoch,
+     * rounded down to a whole minute.
+     *
+     * @param time The time to convert.
+     * @return The number of whole minutes between 1970-01-01T00:00 and the
+     * given time.
+     */
+    public static long toEpochMinute(LocalDateTime time) {
+        if (time.equals(LocalDateTime.MAX)) {
+            return INFINITE;
+        }
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Converts the given number of minutes since the epoch to a time.
+     *
+     * @param epochMinute The number of minutes since 1970-01-01T00:00.
+     * @return The time at which the given number of minutes have passed since
+     * the epoch.
+     */
+    public static LocalDateTime ofEpochMinute(long epochMinute) {
+        if (epochMinute == INFINITE) {
+            return LocalDateTime.MAX;
+        }
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Compares the given time with the given epoch minute, without rounding
+     * the time to a whole minute.
+     *
+     * @param time The time to compare
+     * @param epochMinute The epoch minute to compare with
+     * @return A negative number if the given time is before the given minute,
+     * 0 if they are equal and a positive number if the time is after it.
+     */
+    private static int compare(LocalDateTime time, long epochMinute) {
+        int res = Long.compare(toEpochMinute(time), epochMinute);
+        if (res == 0 && (time.getSecond() != 0 || time.getNano() != 0) && epochMinute != INFINITE) {
+            return 1;
+        }
+        return res;
     }
     
     /**
@@ -224,7 +321,7 @@ public final class Timespan implements Comparable<Timespan> {
      */
     @Override
     public String toString() {
-        return "[" + startTime.toString() + " to " + endTime.toString() + "]";
+        return "[" + getStartTime().toString() + " to " + getEndTime().toString() + "]";
     }
 
     /**
@@ -232,15 +329,15 @@ public final class Timespan implements Comparable<Timespan> {
      * the same span over time as this time span.
      *
      * @param other The object to compare with
-     * @return True if and only if the other object is also a time span and the
-     * hash code of the other time span matches the hash code of this time span.
+     * @return True if and only if the other object is also a time span with
+     * the same start and end time as this time span.
      */
     @Override
     public boolean equals(Object other) {
         if (!(other instanceof Timespan)) {
             return false;
         }
-        return this.hashCode() == other.hashCode();
+        return this.start == ((Timespan) other).start && this.end == ((Timespan) other).end;
     }
 
     /**
@@ -250,8 +347,8 @@ public final class Timespan implements Comparable<Timespan> {
     @Override
     public int hashCode() {
         int hash = 7;
-        hash = 59 * hash + Objects.hashCode(this.startTime);
-        hash = 59 * hash + Objects.hashCode(this.endTime);
+        hash = 59 * hash + Long.hashCode(this.start);
+        hash = 59 * hash + Long.hashCode(this.end);
         return hash;
     }
 
@@ -0,0 +1,174 @@
+package domain.time;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * This class represents a work week configuration compiled to a calendar of
+ * work minutes. Every moment in time is mapped onto the number of work minutes
+ * that have passed since Monday 1969-12-29, the start of the first epoch week, so
+ * the work time between two moments is a subtraction and the end of a
+ * duration is an addition followed by a lookup. The calendar counts whole
+ * minutes: the seconds of a given time are dropped.
+ *
+ * @author Frederic, Mathias, Pieter-Jan
+ */
+final class WorkCalendar {
+
+    private static final int DAYS_PER_WEEK = 7;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    /*
+     * 1970-01-01, the first epoch day, is a Thursday.
+     */
+    private static final int EPOCH_DAY_OF_WEEK = 3;
+
+    private final int beginDay, beginLunch, endLunch, endDay;
+    private final int minutesOfMorning, minutesOfDay;
+    private final boolean[] workDays;
+    private final long[] weekPrefix;
+    private final long minutesOfWeek;
+
+    /**
+     * Compiles the given work week configuration.
+     *
+     * @param conf The configuration to compile.
+     */
+    WorkCalendar(WorkWeekConfiguration conf) {
+        beginDay = minuteOfDay(conf.getBeginWorkDay());
+        endDay = Math.max(beginDay, minuteOfDay(conf.getEndWorkDay()));
+        beginLunch = Math.min(endDay, Math.max(beginDay, minuteOfDay(conf.getBeginLunch())));
+        endLunch = Math.min(endDay, Math.max(beginLunch, minuteOfDay(conf.getEndLunch())));
+        minutesOfMorning = beginLunch - beginDay;
+        minutesOfDay = minutesOfMorning + endDay - endLunch;
+
+        workDays = new boolean[DAYS_PER_WEEK];
+        weekPrefix = new long[DAYS_PER_WEEK + 1];
+        for (int day = 0; day < DAYS_PER_WEEK; day++) {
+            workDays[day] = day + 1 >= conf.getBeginWorkWeek() && day + 1 <= conf.getEndWorkWeek();
+            weekPrefix[day + 1] = weekPrefix[day] + (workDays[day] ? minutesOfDay : 0);
+        }
+        minutesOfWeek = weekPrefix[DAYS_PER_WEEK];
+    }
+
+    /**
+     * Returns the number of work minutes before the given time. Times outside
+     * of the work hours get the same number as the next valid work time. The
+     * seconds of the given time are truncated.
+     *
+     * @param time The time to convert.
+     * @return The work minute ordinal of the given time.
+     */
+    long toWorkMinutes(LocalDateTime time) {
+        return toWorkMinutes(time.toLocalDate().toEpochDay(), minuteOfDay(time.toLocalTime()));
+    }
+
+    /**
+     * Returns the number of work minutes before the given minute since the
+     * epoch.
+     *
+     * @param epochMinute The minute to convert.
+     * @return The work minute ordinal of the given minute.
+     * @see #toWorkMinutes(LocalDateTime)
+     */
+    long toWorkMinutes(long epochMinute) {
+        return toWorkMinutes(Math.floorDiv(epochMinute, MINUTES_PER_DAY), Math.floorMod(epochMinute, MINUTES_PER_DAY));
+    }
+
+    private long toWorkMinutes(long epochDay, int minute) {
+        long weekDay = epochDay + EPOCH_DAY_OF_WEEK;
+        long week = Math.floorDiv(weekDay, DAYS_PER_WEEK);
+        int day = Math.floorMod(weekDay, DAYS_PER_WEEK);
+        long result = week * minutesOfWeek + weekPrefix[day];
+        if (!workDays[day]) {
+            return result;
+        }
+
+        if (minute < beginDay) {
+            return result;
+        } else if (minute <= beginLunch) {
+            return result + minute - beginDay;
+        } else if (minute < endLunch) {
+            return result + minutesOfMorning;
+        } else if (minute <= endDay) {
+            return result + minutesOfMorning + minute - endLunch;
+        } else {
+            return result + minutesOfDay;
+        }
+    }
+
+    /**
+     * Returns the time at which the given number of work minutes have passed.
+     *
+     * @param workMinutes The work minute ordinal to convert.
+     * @param atEnd Whether a work minute at the border of a work period maps
+     * to the end of the period before (the start of the lunch break or the end
+     * of a work day) rather than the start of the period after.
+     * @return The time that has the given work minute ordinal.
+     * @throws IllegalStateException if the compiled configuration has no work
+     * time.
+     */
+    LocalDateTime fromWorkMinutes(long workMinutes, boolean atEnd) throws IllegalStateException {
+        long epochMinute = toEpochMinute(workMinutes, atEnd);
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochMinute, MINUTES_PER_DAY));
+        return LocalDateTime.of(date, LocalTime.ofSecondOfDay(Math.floorMod(epochMinute, MINUTES_PER_DAY) * 60L));
+    }
+
+    /**
+     * Returns the minute since the epoch at which the given number of work
+     * minutes have passed.
+     *
+     * @param workMinutes The work minute ordinal to convert.
+     * @param atEnd Whether a work minute at the border of a work period maps
+     * to the end of the period before rather than the start of the period after.
+     * @return The minute since the epoch that has the given work minute ordinal.
+     * @throws IllegalStateException if the compiled configuration has no work
+     * time.
+     * @see #fromWorkMinutes(long, boolean)
+     */
+    long toEpochMinute(long workMinutes, boolean atEnd) throws IllegalStateException {
+        if (minutesOfWeek == 0) {
+            throw new IllegalStateException("The work week configuration doesn't contain any work time.");
+        }
+
+        long week = Math.floorDiv(workMinutes, minutesOfWeek);
+        long offset = workMinutes - week * minutesOfWeek;
+        if (atEnd && offset == 0) {
+            week--;
+            offset = minutesOfWeek;
+        }
+
+        int day = 0;
+        while (!workDays[day] || (atEnd ? offset > weekPrefix[day] + minutesOfDay : offset >= weekPrefix[day] + minutesOfDay)) {
+            day++;
+        }
+        offset -= weekPrefix[day];
+
+        int minute;
+        if (atEnd ? offset <= minutesOfMorning : offset < minutesOfMorning) {
+            minute = beginDay + (int) offset;
+        } else {
+            minute = endLunch + (int) offset - minutesOfMorning;
+        }
+        return (week * DAYS_PER_WEEK + day - EPOCH_DAY_OF_WEEK) * MINUTES_PER_DAY + minute;
+    }
+
+    /**
+     * Checks whether the given minute since the epoch is a valid work time.
+     *
+     * @param epochMinute The minute to check.
+     * @return True if and only if the given minute falls on a work day, 
+     * between the begin and end of the work day and not strictly inside the
+     * lunch break.
+     */
+    boolean isValidWorkTime(long epochMinute) {
+        int day = Math.floorMod(Math.floorDiv(epochMinute, MINUTES_PER_DAY) + EPOCH_DAY_OF_WEEK, DAYS_PER_WEEK);
+        int minute = Math.floorMod(epochMinute, MINUTES_PER_DAY);
+        return workDays[day] && minute >= beginDay && minute <= endDay 
+                && !(beginLunch < minute && minute < endLunch);
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.toSecondOfDay() / 60;
+    }
+}
@@ -3,6 +3,9 @@ package domain.time;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class represents a configuration of a bussiness week in an abstract way.
@@ -25,14 +28,17 @@ public class WorkWeekConfiguration implements Comparable<WorkWeekConfiguration>
      * A constant for representing there is no lunchbreak.
      */
     public static final LocalTime NO_LUNCHBREAK = LocalTime.of(12, 0);
+    
+    private static final Map<WorkWeekConfiguration, WorkWeekConfiguration> INTERNED = new ConcurrentHashMap<>();
+    
     /**
      * A constant representing a work week configuration that indicates 24/7
      * availability
      */
     public static final WorkWeekConfiguration ALWAYS
-            = new WorkWeekConfiguration(1, 7, LocalTime.MIN, LocalTime.MAX, NO_LUNCHBREAK, NO_LUNCHBREAK);
+            = of(1, 7, LocalTime.MIN, LocalTime.MAX, NO_LUNCHBREAK, NO_LUNCHBREAK);
     
-    public static final WorkWeekConfiguration DEFAULT = new WorkWeekConfiguration();
+    public static final WorkWeekConfiguration DEFAULT = of(BEGIN_WORKDAY, END_WORKDAY, BEGIN_LUNCHBREAK, END_LUNCHBREAK);
 
     private final int beginWorkWeek;
     private final int endWorkWeek;
@@ -40,6 +46,7 @@ public class WorkWeekConfiguration implements Comparable<WorkWeekConfiguration>
     private final LocalTime endWorkDay;
     private final LocalTime beginLunch;
     private final LocalTime endLunch;
+    private final WorkCalendar calendar;
 
     /***************************************
      * Constructors                        *
@@ -77,6 +84,7 @@ public class WorkWeekConfiguration implements Comparable<WorkWeekConfiguration>
         this.endWorkDay = endWorkDay;
         this.beginLunch = beginLunch;
         this.endLunch = endLunch;
+        this.calendar = new WorkCalendar(this);
     }
 
     /**
@@ -120,6 +128,60 @@ public class WorkWeekConfiguration implements Comparable<WorkWeekConfiguration>
         this(BEGIN_WORKDAY, END_WORKDAY, BEGIN_LUNCHBREAK, END_LUNCHBREAK);
     }
 
+    /**
+     * Returns the shared configuration with the given parameters. Configurations
+     * are immutable, so a single instance can be used for all equal ones.
+     *
+     * @param beginWorkWeek The day of the week to start the work week (1 is
+     * Monday, 7 is Sunday)
+     * @param endWorkWeek The day of the week to end the work week (1 is Monday,
+     * 7 is Sunday)
+     * @param beginWorkDay The time to start the work day
+     * @param endWorkDay The time to end the work day
+     * @param beginLunch The time to begin lunch
+     * @param endLunch The time to end lunch
+     * @return A work week configuration with the given parameters.
+     * @throws IllegalArgumentException The given begin and end time of a
+     * work day or lunch don't form a valid interval.
+     */
+    public static WorkWeekConfiguration of(int beginWorkWeek, int endWorkWeek, LocalTime beginWorkDay,
+            LocalTime endWorkDay, LocalTime beginLunch, LocalTime endLunch) throws IllegalArgumentException {
+        WorkWeekConfiguration conf = new WorkWeekConfiguration(beginWorkWeek, endWorkWeek, beginWorkDay, endWorkDay, beginLunch, endLunch);
+        WorkWeekConfiguration interned = INTERNED.putIfAbsent(conf, conf);
+        return interned == null ? conf : interned;
+    }
+
+    /**
+     * Returns the shared configuration with a standard work week of Monday to
+     * Friday and the given parameters.
+     *
+     * @param beginWorkDay The time to start the work day
+     * @param endWorkDay The time to end the work day
+     * @param beginLunch The time to begin lunch
+     * @param endLunch The time to end lunch
+     * @return A work week configuration with the given parameters.
+     * @throws IllegalArgumentException The given begin and end time of a
+     * work day or lunch don't form a valid interval.
+     */
+    public static WorkWeekConfiguration of(LocalTime beginWorkDay, LocalTime endWorkDay,
+            LocalTime beginLunch, LocalTime endLunch) throws IllegalArgumentException {
+        return of(BEGIN_WORKWEEK, END_WORKWEEK, beginWorkDay, endWorkDay, beginLunch, endLunch);
+    }
+
+    /**
+     * Returns the shared configuration with a standard work week of Monday to
+     * Friday, work days from the given hours and no lunch break.
+     *
+     * @param beginWorkDay The time to begin the work day
+     * @param endWorkDay The time to end the work day
+     * @return A work week configuration with the given parameters.
+     * @throws IllegalArgumentException The given begin and end time of a day
+     * don't form a valid interval.
+     */
+    public static WorkWeekConfiguration of(LocalTime beginWorkDay, LocalTime endWorkDay) throws IllegalArgumentException {
+        return of(BEGIN_WORKWEEK, END_WORKWEEK, beginWorkDay, endWorkDay, NO_LUNCHBREAK, NO_LUNCHBREAK);
+    }
+
     /****************************************
      * Getters and setters                  *
      ****************************************/
@@ -283,20 +345,67 @@ public class WorkWeekConfiguration implements Comparable<WorkWeekConfiguration>
         if (isValidWorkTime(time))
             return time;
         
-        if(!isValidWorkDay(time))
-        	return nextValidWorkTime(time.plusDays(1).toLocalDate().atTime(getBeginWorkDay()));
+        return calendar.fromWorkMinutes(calendar.toWorkMinutes(time), false);
+    }
 
-        LocalTime beginTime = time.toLocalTime();
-        if (beginTime.compareTo(getEndWorkDay()) > 0) {
-            if (time.getDayOfWeek().getValue() == getEndWorkWeek()) {
-                time = time.plusDays(7 - getDaysOfWorkWeek());
+    /**
+     * Returns the number of work minutes of this configuration before the
+     * given time, counted from a fixed moment in the past.
+     *
+     * @param time The time to convert
+     * @return The amount of work minutes before the given time. Times that
+     * are not a valid work time are treated as the next valid work time and
+     * the seconds of the given time are truncated.
+     */
+    public long toWorkMinutes(LocalDateTime time) {
+        return calendar.toWorkMinutes(time);
+    }
+
+    /**
+     * Returns the time at which the given amount of work minutes of this
+     * configuration have passed. This is the inverse of
+     * {@link #toWorkMinutes(LocalDateTime)}.
+     *
+     * @param workMinutes The amount of work minutes
+     * @return The first time at which the given amount of work minutes have
+     * passed, this is the start of the lunch break or the end of the work day
+     * if the given amount lies on the border of a work period.
+     * @throws IllegalStateException if this configuration has no work time.
+     */
+    public LocalDateTime fromWorkMinutes(long workMinutes) throws IllegalStateException {
+        return calendar.fromWorkMinutes(workMinutes, true);
+    }
+
+    /**
+     * Calculates for every given start time the time at which the given amount
+     * of work minutes of this configuration have passed. All times are given
+     * as a number of minutes since 1970-01-01T00:00.
+     *
+     * @param starts The start times
+     * @param workMinutes The amount of work minutes to add to every start time
+     * @param ends The array to store the end times in, at the index of their
+     * start time
+     * @throws IllegalArgumentException if the given amount of work minutes is
+     * negative or the given arrays don't have the same length.
+     * @throws IllegalStateException if this configuration has no work time.
+     * @see Duration#getEndTimeFrom(LocalDateTime)
+     */
+    public void addWorkMinutes(long[] starts, long workMinutes, long[] ends) throws IllegalArgumentException, IllegalStateException {
+        if (workMinutes < 0) {
+            throw new IllegalArgumentException("The amount of minutes can't be negative.");
+        }
+        if (starts.length != ends.length) {
+            throw new IllegalArgumentException("There should be as many end times as start times.");
+        }
+        
+        for (int i = 0; i < starts.length; i++) {
+            if (workMinutes > 0) {
+                ends[i] = calendar.toEpochMinute(calendar.toWorkMinutes(starts[i]) + workMinutes, true);
+            } else if (calendar.isValidWorkTime(starts[i])) {
+                ends[i] = starts[i];
+            } else {
+                ends[i] = calendar.toEpochMinute(calendar.toWorkMinutes(starts[i]), false);
             }
-            
-            return LocalDateTime.of(time.toLocalDate().plusDays(1), getBeginWorkDay());
-        } else if (beginTime.compareTo(getBeginWorkDay()) < 0) {
-            return LocalDateTime.of(time.toLocalDate(), getBeginWorkDay());
-        } else {
-            return LocalDateTime.of(time.toLocalDate(), getEndLunch());
         }
     }
 
@@ -321,6 +430,37 @@ public class WorkWeekConfiguration implements Comparable<WorkWeekConfiguration>
         }
     }
     
+    /**
+     * Checks whether the given object is a work week configuration with the
+     * same work days, work hours and lunch break as this one.
+     *
+     * @param o The object to compare with
+     * @return True if and only if the given object is a work week
+     * configuration with the same parameters as this configuration.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WorkWeekConfiguration)) {
+            return false;
+        }
+        
+        WorkWeekConfiguration other = (WorkWeekConfiguration) o;
+        return beginWorkWeek == other.beginWorkWeek && endWorkWeek == other.endWorkWeek
+                && beginWorkDay.equals(other.beginWorkDay) && endWorkDay.equals(other.endWorkDay)
+                && beginLunch.equals(other.beginLunch) && endLunch.equals(other.endLunch);
+    }
+
+    /**
+     * @return A hash code based on the parameters of this configuration.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(beginWorkWeek, endWorkWeek, beginWorkDay, endWorkDay, beginLunch, endLunch);
+    }
+    
     /**
      * @return A textual representation of this work week configuration
      */
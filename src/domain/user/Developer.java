@@ -21,7 +21,21 @@ public class Developer extends Resource implements User {
      * @param branchOffice The office this developer belongs to
      */
     public Developer(String name, BranchOffice branchOffice) {
-        super(name, ResourceType.DEVELOPER);
+        this(NEW_ID, name, branchOffice);
+    }
+    
+    /**
+     * Initializes a new developer with the given id and name for a given
+     * office
+     * 
+     * @param id The id of the developer, reserved with
+     * {@link Resource#reserveIds(int)}, or {@link Resource#NEW_ID} to
+     * generate a new id.
+     * @param name The name of the developer
+     * @param branchOffice The office this developer belongs to
+     */
+    public Developer(int id, String name, BranchOffice branchOffice) {
+        super(id, name, ResourceType.DEVELOPER);
         this.role = Role.DEVELOPER;
         this.branchoffice = branchOffice;
     }
@@ -1,13 +1,22 @@
 package init;
 
 import UI.swingGUI.MainFrame;
+import controller.CommandLog;
 import controller.HandlerFactory;
 import domain.Company;
+import domain.Simulation;
 import domain.time.Clock;
 import domain.user.Acl;
 import domain.user.Auth;
 import domain.user.Role;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -22,9 +31,23 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 public class Bootstrap {
 
     /**
-     * @param args the command line arguments
+     * The file in which all changes made after initialization are logged.
+     */
+    private static final String LOG_FILE = "taskman.log";
+
+    /**
+     * The file in which the complete system is saved when it stops.
+     */
+    private static final String SNAPSHOT_FILE = "taskman.snapshot";
+
+    /**
+     * @param args the command line arguments. With {@code -export <file>} the
+     * saved system and its logged changes are written to the given input
+     * file instead of being shown.
      */
     public static void main(String args[]) {
+        Path export = args.length == 2 && "-export".equals(args[0]) ? Paths.get(args[1]) : null;
+
         /* Set the Nimbus look and feel */
         /* If Nimbus (introduced in Java SE 6) is not available, stay with the default look and feel.
          * For details see http://download.oracle.com/javase/tutorial/uiswing/lookandfeel/plaf.html 
@@ -42,18 +65,93 @@ public class Bootstrap {
 
         Clock clock = new Clock();
         Company company = new Company();
-        int option = JOptionPane.showConfirmDialog(null, "Would you like to initialize the system with an input file?");
-        
-        if (option == 0) {
-            initManagerFromFile(clock, company);
-        } else if (option == 2) {
+        Path snapshot = Paths.get(SNAPSHOT_FILE);
+        Path logFile = Paths.get(LOG_FILE);
+        long generation;
+
+        if (export != null && !Files.exists(snapshot)) {
+            System.err.println("There is no system saved in " + SNAPSHOT_FILE + " to export.");
+            return;
+        }
+        if (Files.exists(snapshot)) {
+            try {
+                generation = Snapshot.load(snapshot, company, clock);
+            } catch (IOException | RuntimeException ex) {
+                JOptionPane.showMessageDialog(null, "The system saved in " + SNAPSHOT_FILE + " could not be loaded. Remove the file to start over.", null, JOptionPane.ERROR_MESSAGE);
+                Logger.getLogger(MainFrame.class.getName()).log(Level.SEVERE, null, ex);
+                return;
+            }
+        } else {
+            // the log refers to the initial state by position, so it can't be
+            // replayed on top of a state that was chosen again
+            if (hasLoggedChanges(logFile)) {
+                JOptionPane.showMessageDialog(null, "The changes logged in " + LOG_FILE + " belong to a system that wasn't saved in " + SNAPSHOT_FILE + ". Remove the log to start over.", null, JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            int option = JOptionPane.showConfirmDialog(null, "Would you like to initialize the system with an input file?");
+
+            if (option == 0) {
+                if (!initManagerFromFile(clock, company)) {
+                    return;
+                }
+            } else if (option == 2) {
+                return;
+            }
+
+            // the log always continues a saved initial state
+            generation = 1;
+            try {
+                Snapshot.save(snapshot, company, clock, generation);
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(null, "The initial system could not be saved in " + SNAPSHOT_FILE + ".", null, JOptionPane.ERROR_MESSAGE);
+                Logger.getLogger(MainFrame.class.getName()).log(Level.SEVERE, null, ex);
+                return;
+            }
+        }
+
+        CommandLog log;
+        try {
+            log = CommandLog.open(logFile, company, clock, generation);
+        } catch (IOException | IllegalStateException ex) {
+            JOptionPane.showMessageDialog(null, "The changes logged in " + LOG_FILE + " could not be recovered. Remove the file to start without them.", null, JOptionPane.ERROR_MESSAGE);
+            Logger.getLogger(MainFrame.class.getName()).log(Level.SEVERE, null, ex);
+            return;
+        }
+        if (export != null) {
+            exportFile(export, company, clock, log);
             return;
         }
+        long nextGeneration = generation + 1;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                // no handler can change the system or append to the log while
+                // it is saved
+                Simulation.LIVE.run(() -> {
+                    if (log.canCheckpoint()) {
+                        try {
+                            log.sync();
+                            Snapshot.save(snapshot, company, clock, nextGeneration);
+                            log.checkpoint(nextGeneration);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    }
+                });
+            } catch (RuntimeException ex) {
+                Logger.getLogger(MainFrame.class.getName()).log(Level.SEVERE, null, ex);
+            } finally {
+                try {
+                    log.close();
+                } catch (IOException ex) {
+                    Logger.getLogger(MainFrame.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+        }));
 
         Auth auth = new Auth(company);
         Acl acl = initAcl();
         
-        HandlerFactory factory = new HandlerFactory(company, auth, acl, clock);
+        HandlerFactory factory = new HandlerFactory(company, auth, acl, clock, log);
 //        //display uncaught exceptions
 //        Thread.setDefaultUncaughtExceptionHandler((Thread t, Throwable e) -> {
 //            JOptionPane.showMessageDialog(null, e.getMessage(), null, JOptionPane.WARNING_MESSAGE);
@@ -73,11 +171,43 @@ public class Bootstrap {
         return acl;
     }
 
+    /**
+     * Writes the given company to the given input file and closes the given
+     * log without saving the system.
+     */
+    private static void exportFile(Path file, Company company, Clock clock, CommandLog log) {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            new FileExporter(out, clock, company).exportFile();
+        } catch (IOException ex) {
+            System.err.println("The system could not be exported to " + file + ".");
+            Logger.getLogger(MainFrame.class.getName()).log(Level.SEVERE, null, ex);
+        } finally {
+            try {
+                log.close();
+            } catch (IOException ex) {
+                Logger.getLogger(MainFrame.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+    }
+
+    /**
+     * Checks whether anything has been logged in the given log file.
+     */
+    private static boolean hasLoggedChanges(Path logFile) {
+        try {
+            return Files.exists(logFile) && Files.size(logFile) > 0;
+        } catch (IOException ex) {
+            return true;
+        }
+    }
+
     /**
      * Show an input file dialog and initialize the given manager from the
      * chosen file.
+     *
+     * @return False if the chosen file couldn't be processed.
      */
-    private static void initManagerFromFile(Clock clock, Company db) {
+    private static boolean initManagerFromFile(Clock clock, Company db) {
         JFileChooser chooser = new JFileChooser();
         FileNameExtensionFilter filter = new FileNameExtensionFilter("Task Man inputfile", "tman");
         chooser.setFileFilter(filter);
@@ -91,14 +221,15 @@ public class Bootstrap {
         
         int returnVal = chooser.showOpenDialog(null);
         if (returnVal == JFileChooser.APPROVE_OPTION) {
-            try (FileReader fileReader = new FileReader(chooser.getSelectedFile())) {
-                FileInitializor fileInitializor = new FileInitializor(fileReader, clock, db);
+            try (InputStream in = new FileInputStream(chooser.getSelectedFile())) {
+                FileInitializor fileInitializor = new FileInitializor(in, clock, db);
                 fileInitializor.processFile();
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(null, "An error occured while reading/processing the file, please try again.", null, JOptionPane.ERROR_MESSAGE);
                 Logger.getLogger(MainFrame.class.getName()).log(Level.SEVERE, null, ex);
+                return false;
             }
         }
-
+        return true;
     }
 }
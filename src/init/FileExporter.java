@@ -0,0 +1,475 @@
+package init;
+
+import domain.BranchOffice;
+import domain.Company;
+import domain.Planning;
+import domain.Project;
+import domain.Reservation;
+import domain.Resource;
+import domain.ResourceType;
+import domain.Simulation;
+import domain.task.Executing;
+import domain.task.Failed;
+import domain.task.Finished;
+import domain.task.Status;
+import domain.task.Task;
+import domain.time.Clock;
+import domain.time.Timespan;
+import domain.time.WorkWeekConfiguration;
+import domain.user.Developer;
+import domain.user.Role;
+import domain.user.User;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * This class writes the state of a company in the format that
+ * {@link FileInitializor} reads.
+ *
+ * The text is streamed to the output. The projects are written in the order
+ * of their ids, by merging the id-ordered projects of the branch offices, and
+ * the tasks of every project follow in the same order, so importing the file
+ * creates them in the same order within their project. The position of a
+ * task is the number of tasks of the earlier projects plus its position in
+ * its own project, so no task has to be remembered. Only the positions of
+ * the offices, resource types and resources are kept, so the memory of the
+ * exporter doesn't grow with the number of projects and tasks.
+ *
+ * The format can't express everything: only one daily availability is
+ * written, only managers and developers are written as users and finished
+ * tasks whose planning has already passed are planned again on the
+ * resources that were reserved for them. Executing tasks are written as
+ * executing, but the importer ignores that status, so they are imported as
+ * planned tasks that haven't started yet. A task that is the alternative of
+ * several failed tasks is only written as the alternative of the first one.
+ *
+ * @author Frederic, Mathias, Pieter-Jan
+ */
+public class FileExporter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer out;
+    private final Clock clock;
+    private final Company company;
+    private boolean inItem, firstField;
+
+    /**
+     * Initialize this FileExporter with the given output stream, clock and
+     * company.
+     *
+     * @param out The stream to write the file to
+     * @param clock The clock to export the time of
+     * @param company The company to export
+     */
+    public FileExporter(OutputStream out, Clock clock, Company company) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.clock = clock;
+        this.company = company;
+    }
+
+    /**
+     * Writes the complete company to the output stream. The live system is
+     * read while no action can change it.
+     *
+     * @throws IOException The file can't be written.
+     */
+    public void exportFile() throws IOException {
+        try {
+            Simulation.LIVE.run(() -> {
+                try {
+                    write();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Writes the complete company to the output stream.
+     *
+     * @throws IOException The file can't be written.
+     */
+    private void write() throws IOException {
+        field("systemTime", clock.getTime());
+
+        List<ResourceType> types = new ArrayList<>();
+        for (ResourceType type : company.getResourceTypes()) {
+            if (type != ResourceType.DEVELOPER) {
+                types.add(type);
+            }
+        }
+        Map<ResourceType, Integer> typeIndex = indexOf(types);
+        // the importer adds the developer type after all other types
+        typeIndex.put(ResourceType.DEVELOPER, types.size());
+
+        WorkWeekConfiguration daily = null;
+        for (ResourceType type : types) {
+            if (type.getAvailability() != WorkWeekConfiguration.ALWAYS) {
+                daily = type.getAvailability();
+                break;
+            }
+        }
+        section("dailyAvailability");
+        if (daily != null) {
+            item();
+            field("startTime", daily.getBeginWorkDay());
+            field("endTime", daily.getEndWorkDay());
+        }
+
+        List<BranchOffice> offices = company.getOffices();
+        Map<BranchOffice, Integer> officeIndex = indexOf(offices);
+        section("offices");
+        for (BranchOffice office : offices) {
+            item();
+            fieldText("location", office.getLocation());
+        }
+
+        section("resourceTypes");
+        for (ResourceType type : types) {
+            item();
+            fieldText("name", type.getName());
+            field("requires", indices(type.getRequirements(), typeIndex));
+            field("conflictsWith", indices(type.getConflicts(), typeIndex));
+            field("dailyAvailability", daily != null && type.getAvailability() == daily ? "0" : "");
+        }
+
+        Map<Resource, Integer> resourceIndex = new IdentityHashMap<>();
+        section("resources");
+        for (BranchOffice office : offices) {
+            for (Resource resource : office.getResourceContainer().getResourcesInOrder()) {
+                if (!(resource instanceof Developer)) {
+                    resourceIndex.put(resource, resourceIndex.size());
+                    item();
+                    fieldText("name", resource.getName());
+                    field("type", Integer.toString(typeIndex.get(resource.getType())));
+                    field("office", Integer.toString(officeIndex.get(office)));
+                }
+            }
+        }
+
+        section("managers");
+        for (BranchOffice office : offices) {
+            for (User user : office.getUsers()) {
+                if (user.getRole() == Role.MANAGER && !(user instanceof Developer)) {
+                    item();
+                    fieldText("name", user.getName());
+                    field("office", Integer.toString(officeIndex.get(office)));
+                }
+            }
+        }
+
+        Map<Resource, Integer> developerIndex = new IdentityHashMap<>();
+        section("developers");
+        for (BranchOffice office : offices) {
+            for (User user : office.getUsers()) {
+                if (user instanceof Developer) {
+                    developerIndex.put((Developer) user, developerIndex.size());
+                    item();
+                    fieldText("name", user.getName());
+                    field("office", Integer.toString(officeIndex.get(office)));
+                }
+            }
+        }
+
+        section("projects");
+        for (ProjectCursor projects = new ProjectCursor(offices); projects.next(); ) {
+            Project project = projects.project;
+            item();
+            fieldText("name", project.getName());
+            fieldText("description", project.getDescription());
+            field("creationTime", project.getCreationTime());
+            field("dueTime", project.getDueTime());
+            field("office", Integer.toString(projects.office));
+        }
+
+        section("tasks");
+        int projectIndex = 0, projectOffset = 0;
+        for (ProjectCursor projects = new ProjectCursor(offices); projects.next(); projectIndex++) {
+            Project project = projects.project;
+            BranchOffice office = offices.get(projects.office);
+            List<Task> tasks = project.getTasksInOrder();
+            for (Task task : tasks) {
+                item();
+                field("project", Integer.toString(projectIndex));
+                fieldText("description", task.getDescription());
+                field("estimatedDuration", Long.toString(task.getEstimatedDuration().toMinutes()));
+                field("acceptableDeviation", Integer.toString(task.getAcceptableDeviation()));
+                List<Task> failed = task.getAlternativeFor();
+                field("alternativeFor", failed.isEmpty() ? "" : Integer.toString(projectOffset + project.getPosition(failed.get(0).getId())));
+                field("prerequisiteTasks", task.getPrerequisiteTasks().isEmpty() ? "" : positions(task.getPrerequisiteTasks(), project, projectOffset));
+                field("resources", requirements(task, types, typeIndex));
+                field("delegatedTo", task.isDelegated() ? officeIndex.get(task.getDelegatedBranchOffice()).toString() : "");
+
+                Status status = task.getStatus();
+                LocalDateTime plannedStart = null;
+                List<Resource> planned = null;
+                Planning planning = task.getPlanning();
+                if (planning != null) {
+                    plannedStart = planning.getTimespan().getStartTime();
+                    planned = planning.getResources();
+                } else if (status instanceof Finished) {
+                    // the importer can only finish a task that is planned
+                    planned = new ArrayList<>();
+                    plannedStart = passedReservations(task.isDelegated() ? task.getDelegatedBranchOffice() : office, task, planned);
+                    if (planned.isEmpty()) {
+                        planned = null;
+                    }
+                }
+                if (planned == null) {
+                    field("planned", "0");
+                } else {
+                    field("planned", "1");
+                    field("plannedStartTime", plannedStart);
+                    List<Resource> developers = new ArrayList<>();
+                    List<Resource> others = new ArrayList<>();
+                    for (Resource resource : planned) {
+                        (resource instanceof Developer ? developers : others).add(resource);
+                    }
+                    field("developers", indices(developers, developerIndex));
+                    field("resources", indices(others, resourceIndex));
+                }
+
+                Timespan timespan = task.getTimeSpan();
+                if (status instanceof Finished || status instanceof Failed) {
+                    field("status", status instanceof Finished ? "finished" : "failed");
+                    field("startTime", timespan.getStartTime());
+                    field("endTime", timespan.getEndTime());
+                } else {
+                    field("status", status instanceof Executing ? "executing" : "");
+                }
+            }
+            projectOffset += tasks.size();
+        }
+        out.flush();
+    }
+
+    /****************************************************
+     * Helpers                                          *
+     ****************************************************/
+
+    private static <T> Map<T, Integer> indexOf(List<T> list) {
+        Map<T, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < list.size(); i++) {
+            index.put(list.get(i), i);
+        }
+        return index;
+    }
+
+    /**
+     * Collects the resources of the given branch office that were reserved
+     * for the given task, which isn't planned anymore, in the order of their
+     * ids.
+     *
+     * @return The start of the first reservation of the task, or null if
+     * none of the resources was reserved for it.
+     */
+    private static LocalDateTime passedReservations(BranchOffice office, Task task, List<Resource> reserved) {
+        LocalDateTime from = null;
+        for (Resource resource : office.getResourceContainer().getResourcesInOrder()) {
+            Reservation first = resource.getFirstPreviousReservation(task);
+            if (first == null) {
+                first = resource.getReservation(task);
+            }
+            if (first != null) {
+                reserved.add(resource);
+                LocalDateTime start = first.getStartTime();
+                if (from == null || start.isBefore(from)) {
+                    from = start;
+                }
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Returns the positions of the given tasks of the given project among all
+     * written tasks.
+     */
+    private static String positions(List<Task> tasks, Project project, int projectOffset) {
+        StringBuilder result = new StringBuilder("[");
+        for (Task task : tasks) {
+            if (result.length() > 1) {
+                result.append(", ");
+            }
+            result.append(projectOffset + project.getPosition(task.getId()));
+        }
+        return result.append(']').toString();
+    }
+
+    private static String requirements(Task task, List<ResourceType> types, Map<ResourceType, Integer> typeIndex) {
+        Map<ResourceType, Integer> required = task.getRequiredResources();
+        StringBuilder result = new StringBuilder("[");
+        for (ResourceType type : types) {
+            if (required.containsKey(type)) {
+                pair(result, typeIndex.get(type), required.get(type));
+            }
+        }
+        // the importer always requires a single developer
+        Integer developers = required.get(ResourceType.DEVELOPER);
+        if (developers != null && developers != 1) {
+            pair(result, typeIndex.get(ResourceType.DEVELOPER), developers);
+        }
+        return result.append(']').toString();
+    }
+
+    private static void pair(StringBuilder result, int type, int quantity) {
+        if (result.length() > 1) {
+            result.append(", ");
+        }
+        result.append("{type: ").append(type).append(", quantity: ").append(quantity).append('}');
+    }
+
+    private static <T> String indices(List<? extends T> objects, Map<T, Integer> index) {
+        StringBuilder result = new StringBuilder("[");
+        for (T object : objects) {
+            if (result.length() > 1) {
+                result.append(", ");
+            }
+            result.append(index.get(object));
+        }
+        return result.append(']').toString();
+    }
+
+    /**
+     * Walks the projects of all branch offices in the order of their ids, by
+     * merging the id-ordered projects of the offices. It only holds the next
+     * project of every office.
+     */
+    private static final class ProjectCursor {
+
+        private final PriorityQueue<OfficeProjects> queue = new PriorityQueue<>(
+                (o1, o2) -> Integer.compare(o1.next.getId(), o2.next.getId()));
+        private Project project;
+        private int office;
+
+        private ProjectCursor(List<BranchOffice> offices) {
+            for (int i = 0; i < offices.size(); i++) {
+                OfficeProjects projects = new OfficeProjects(i, offices.get(i).getProjectContainer().getProjectsInOrder().iterator());
+                if (projects.advance()) {
+                    queue.add(projects);
+                }
+            }
+        }
+
+        /**
+         * Moves to the project with the next id.
+         *
+         * @return False if all projects have been walked.
+         */
+        private boolean next() {
+            OfficeProjects first = queue.poll();
+            if (first == null) {
+                return false;
+            }
+            project = first.next;
+            office = first.office;
+            if (first.advance()) {
+                queue.add(first);
+            }
+            return true;
+        }
+    }
+
+    private static final class OfficeProjects {
+
+        private final int office;
+        private final Iterator<Project> projects;
+        private Project next;
+
+        private OfficeProjects(int office, Iterator<Project> projects) {
+            this.office = office;
+            this.projects = projects;
+        }
+
+        private boolean advance() {
+            next = projects.hasNext() ? projects.next() : null;
+            return next != null;
+        }
+    }
+
+    /****************************************************
+     * Writing                                          *
+     ****************************************************/
+
+    private void section(String label) throws IOException {
+        inItem = false;
+        out.write(label);
+        out.write(":\n");
+    }
+
+    private void item() throws IOException {
+        inItem = true;
+        firstField = true;
+        out.write("  - ");
+    }
+
+    /**
+     * Writes a field. The first field of an item follows the dash of the
+     * item, the others are indented below it.
+     */
+    private void field(String label, String value) throws IOException {
+        if (inItem && !firstField) {
+            out.write("    ");
+        }
+        firstField = false;
+        out.write(label);
+        out.write(':');
+        if (!value.isEmpty()) {
+            out.write(' ');
+            out.write(value);
+        }
+        out.write('\n');
+    }
+
+    private void field(String label, LocalDateTime time) throws IOException {
+        field(label, quote(String.format("%04d-%02d-%02d %02d:%02d",
+                time.getYear(), time.getMonthValue(), time.getDayOfMonth(), time.getHour(), time.getMinute())));
+    }
+
+    private void field(String label, LocalTime time) throws IOException {
+        field(label, quote(String.format("%02d:%02d", time.getHour(), time.getMinute())));
+    }
+
+    private void fieldText(String label, String text) throws IOException {
+        field(label, quote(text));
+    }
+
+    private static String quote(String text) {
+        StringBuilder result = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                    result.append('\\').append(c);
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                case '\r':
+                    result.append("\\r");
+                    break;
+                default:
+                    result.append(c);
+            }
+        }
+        return result.append('"').toString();
+    }
+}
@@ -20,67 +20,53 @@ import domain.user.Developer;
 import domain.user.GenericUser;
 import domain.user.Role;
 import exception.ConflictException;
-import java.io.IOException;
-import java.io.Reader;
-import java.io.StreamTokenizer;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * This class initializes all data structures, based on an input file
  * 
  * @author Mathias
  */
-public class FileInitializor extends StreamTokenizer {
+public class FileInitializor extends TmanScanner {
+
+    private static final byte NO_STATUS = 0;
+    private static final byte FINISHED = 1;
+    private static final byte FAILED = 2;
+    private static final byte EXECUTING = 3;
 
-    private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-    DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
     private final Clock clock;
     private final Company company;
     private WorkWeekConfiguration dailyAvailability;
 
     /**
-     * Initialize this ProjectConainerFileInitializor with the given reader and
-     * projectcontainer
+     * Initialize this ProjectConainerFileInitializor with the given input
+     * stream and projectcontainer
      *
-     * @param r The reader to use to read in the file
+     * @param in The stream to read the file from
      * @param clock The clock to use
      * @param company The database to initialize
      */
-    public FileInitializor(Reader r, Clock clock, Company company) {
-        super(r);
+    public FileInitializor(InputStream in, Clock clock, Company company) {
+        super(in);
 
         this.clock = clock;
         this.company = company;
     }
 
-    /**
-     *
-     * @return The next token
-     * @see java.io.StreamTokenizer#nextToken()
-     */
-    @Override
-    public int nextToken() {
-        try {
-            return super.nextToken();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     void error(String msg) {
         throw new RuntimeException("Line " + lineno() + ": " + msg);
     }
 
-    boolean isWord(String word) {
-        return ttype == TT_WORD && sval.equals(word);
-    }
-
     void expectChar(char c) {
         if (ttype != c) {
             error("'" + c + "' expected");
@@ -97,30 +83,44 @@ public class FileInitializor extends StreamTokenizer {
     }
 
     LocalDateTime expectDateField(String label) {
-        String date = expectStringField(label);
-        return LocalDateTime.parse(date, dateTimeFormatter);
+        expectString(label);
+        LocalDateTime value = dateTimeValue();
+        if (value == null) {
+            error("Date of the form \"yyyy-MM-dd HH:mm\" expected");
+        }
+        nextToken();
+        return value;
     }
 
     LocalTime expectTimeField(String label) {
-        String date = expectStringField(label);
-        return LocalTime.parse(date, timeFormatter);
+        expectString(label);
+        LocalTime value = timeValue();
+        if (value == null) {
+            error("Time of the form \"HH:mm\" expected");
+        }
+        nextToken();
+        return value;
     }
 
     String expectStringField(String label) {
+        expectString(label);
+        String value = stringValue();
+        nextToken();
+        return value;
+    }
+
+    private void expectString(String label) {
         expectLabel(label);
         if (ttype != '"') {
             error("String expected");
         }
-        String value = sval;
-        nextToken();
-        return value;
     }
 
     int expectInt() {
-        if (ttype != TT_NUMBER || nval != (double) (int) nval) {
+        if (!isInt()) {
             error("Integer expected");
         }
-        int value = (int) nval;
+        int value = intValue();
         nextToken();
         return value;
     }
@@ -180,263 +180,549 @@ public class FileInitializor extends StreamTokenizer {
      * Processes the input file and inits all necessary structures
      */
     public void processFile() throws ConflictException {
-        slashSlashComments(false);
-        slashStarComments(false);
-        ordinaryChar('/'); // otherwise "//" keeps treated as comments.
-        commentChar('#');
+        build(parse());
+    }
 
-        nextToken();
+    /****************************************************
+     * Parsing                                          *
+     ****************************************************/
 
-        LocalDateTime systemTime = expectDateField("systemTime");
+    /**
+     * Reads the complete input file without creating any domain objects.
+     *
+     * @return The contents of the input file.
+     */
+    private Input parse() {
+        Input input = new Input();
+        nextToken();
 
-        clock.advanceTime(systemTime);
+        input.systemTime = expectDateField("systemTime");
 
         expectLabel("dailyAvailability");
         while (ttype == '-') {
             expectChar('-');
             LocalTime creationTime = expectTimeField("startTime");
             LocalTime dueTime = expectTimeField("endTime");
-            dailyAvailability = new WorkWeekConfiguration(creationTime, dueTime);
+            dailyAvailability = WorkWeekConfiguration.of(creationTime, dueTime);
         }
 
         expectLabel("offices");
-
         while (ttype == '-') {
             expectChar('-');
-            String location = expectStringField("location");
-
-            company.addOffice(new BranchOffice(location));
+            input.offices.add(expectStringField("location"));
         }
 
-        /**
-         * Resourcetypes
-         */
         expectLabel("resourceTypes");
-        List<List<ResourceType>> reqList = new ArrayList<>();
-        List<List<Integer>> reqIntList = new ArrayList<>();
-        List<List<ResourceType>> conflictList = new ArrayList<>();
-        List<List<Integer>> conflictIntList = new ArrayList<>();
-        
         while (ttype == '-') {
             expectChar('-');
-            String name = expectStringField("name");
+            ResourceTypeInput type = new ResourceTypeInput();
+            type.name = expectStringField("name");
             expectLabel("requires");
-            List<Integer> requirementIds = expectIntList();
+            type.requirements = expectIntList();
             expectLabel("conflictsWith");
-            List<Integer> conflictIds = expectIntList();
+            type.conflicts = expectIntList();
             expectLabel("dailyAvailability");
             int availabilityIndex = 1;
             if (ttype == TT_NUMBER) {
                 availabilityIndex = expectInt();
             }
+            type.daily = availabilityIndex == 0;
+            input.resourceTypes.add(type);
+        }
 
+        expectLabel("resources");
+        while (ttype == '-') {
+            ResourceInput resource = new ResourceInput();
+            resource.line = lineno();
+            expectChar('-');
+            resource.name = expectStringField("name");
+            expectLabel("type");
+            resource.type = expectInt();
+            expectLabel("office");
+            resource.office = expectInt();
+            input.resources.add(resource);
+        }
+
+        expectLabel("managers");
+        while (ttype == '-') {
+            ResourceInput manager = new ResourceInput();
+            manager.line = lineno();
+            expectChar('-');
+            manager.name = expectStringField("name");
+            manager.office = expectIntField("office");
+            input.managers.add(manager);
+        }
+
+        expectLabel("developers");
+        while (ttype == '-') {
+            ResourceInput developer = new ResourceInput();
+            developer.line = lineno();
+            expectChar('-');
+            developer.name = expectStringField("name");
+            developer.office = expectIntField("office");
+            input.developers.add(developer);
+        }
+
+        expectLabel("projects");
+        while (ttype == '-') {
+            ProjectInput project = new ProjectInput();
+            project.line = lineno();
+            expectChar('-');
+            project.name = expectStringField("name");
+            project.description = expectStringField("description");
+            project.creationTime = expectDateField("creationTime");
+            project.dueTime = expectDateField("dueTime");
+            project.office = expectIntField("office");
+            input.projects.add(project);
+        }
+
+        expectLabel("tasks");
+        while (ttype == '-') {
+            int line = lineno();
+            expectChar('-');
+            TaskInput task = parseTask();
+            task.line = line;
+            input.tasks.add(task);
+        }
+
+        if (ttype != TT_EOF) {
+            error("End of file or '-' expected");
+        }
+        return input;
+    }
+
+    private TaskInput parseTask() {
+        TaskInput task = new TaskInput();
+        task.project = expectIntField("project");
+        task.description = expectStringField("description");
+        task.estimatedDuration = expectIntField("estimatedDuration");
+        task.acceptableDeviation = expectIntField("acceptableDeviation");
+        expectLabel("alternativeFor");
+        if (ttype == TT_NUMBER) {
+            task.alternativeFor = expectInt();
+        }
+        expectLabel("prerequisiteTasks");
+        if (ttype == '[') {
+            task.prerequisiteTasks = expectIntList();
+        }
+
+        expectLabel("resources");
+        task.requirements = expectLabeledPairList("type", "quantity");
+
+        expectLabel("delegatedTo");
+        if (ttype == TT_NUMBER) {
+            task.delegatedTo = expectInt();
+        }
+
+        int planning = expectIntField("planned");
+        if (planning == 1) {
+            task.plannedStartTime = expectDateField("plannedStartTime");
+            expectLabel("developers");
+            task.developers = expectIntList();
+            expectLabel("resources");
+            if (ttype == '[') {
+                task.resources = expectIntList();
+            }
+        }
+
+        expectLabel("status");
+        if (isWord("finished")) {
+            nextToken();
+            task.status = FINISHED;
+        } else if (isWord("failed")) {
+            nextToken();
+            task.status = FAILED;
+        }
+        if (isWord("executing")) {
+            nextToken();
+            task.status = EXECUTING;
+        }
+        if (task.status == FINISHED || task.status == FAILED) {
+            task.startTime = expectDateField("startTime");
+            task.endTime = expectDateField("endTime");
+        }
+        return task;
+    }
+
+    /****************************************************
+     * Building                                         *
+     ****************************************************/
+
+    /**
+     * Creates the domain objects described by the given input. The resources,
+     * users and projects of the branch offices are created in parallel.
+     * Tasks are created together with the other objects of the branch office
+     * of their project, unless a task of the same project is delegated or
+     * planned with resources of another branch office. Those projects are
+     * completed afterwards, in the order of the input file.
+     *
+     * Resources, projects and tasks get the ids they would get if they were
+     * created one by one in the order of the input file. When objects can't
+     * be created, the failure of the first of them in the input file is
+     * thrown, with its line and its index.
+     */
+    private void build(Input input) {
+        clock.advanceTime(input.systemTime);
+
+        for (String location : input.offices) {
+            company.addOffice(new BranchOffice(location));
+        }
+        List<BranchOffice> offices = company.getOffices();
+
+        List<List<ResourceType>> reqList = new ArrayList<>();
+        List<List<ResourceType>> conflictList = new ArrayList<>();
+        for (ResourceTypeInput type : input.resourceTypes) {
             List<ResourceType> requirements = new ArrayList<>();
             List<ResourceType> conflicts = new ArrayList<>();
             reqList.add(requirements);
-            reqIntList.add(requirementIds);
             conflictList.add(conflicts);
-            conflictIntList.add(conflictIds);
-
-            ResourceType resourceType;
-            if (availabilityIndex == 0) {
-                resourceType = new ResourceType(name, requirements, conflicts, dailyAvailability);
+            if (type.daily) {
+                company.addResourceType(new ResourceType(type.name, requirements, conflicts, dailyAvailability));
             } else {
                 // always available
-                resourceType = new ResourceType(name, requirements, conflicts);
+                company.addResourceType(new ResourceType(type.name, requirements, conflicts));
             }
-            company.addResourceType(resourceType);
-
         }
-
         // transform ids to objects
         // this happens afterwards so a resource type can conflict with a resource type that's lower in the init file
         for (int i = 0; i < reqList.size(); i++) {
-            for (Integer j : reqIntList.get(i)) {
+            for (Integer j : input.resourceTypes.get(i).requirements) {
                 reqList.get(i).add(company.getResourceTypes().get(j));
             }
-            for (Integer j : conflictIntList.get(i)) {
+            for (Integer j : input.resourceTypes.get(i).conflicts) {
                 conflictList.get(i).add(company.getResourceTypes().get(j));
             }
         }
-        
-        expectLabel("resources");
-        List<Resource> tempList = new ArrayList<>();
-        
-        while (ttype == '-') {
-            expectChar('-');
-            String name = expectStringField("name");
-            expectLabel("type");
-            int typeIndex = expectInt();
-            expectLabel("office");
-            int officeId = expectInt();
-            // create and add resourcetype
-            Resource res = company.getOffices().get(officeId).getResourceContainer().createResource(name, company.getResourceTypes().get(typeIndex));
+        // new resourcetype for developers
+        company.addResourceType(ResourceType.DEVELOPER);
 
-            // add to tempory list
-            tempList.add(res);
+        // every object has to belong to an existing office before the offices are built
+        for (ResourceInput resource : input.resources) {
+            offices.get(resource.office);
+        }
+        for (ResourceInput user : input.managers) {
+            offices.get(user.office);
+        }
+        for (ResourceInput user : input.developers) {
+            offices.get(user.office);
+        }
+        for (ProjectInput project : input.projects) {
+            offices.get(project.office);
         }
 
-        expectLabel("managers");
+        Build build = new Build(input, offices, company.getResourceTypes());
+        List<ForkJoinTask<?>> jobs = new ArrayList<>();
+        Position[] positions = new Position[offices.size()];
+        RuntimeException[] failures = new RuntimeException[offices.size()];
+        for (int office = 0; office < offices.size(); office++) {
+            int o = office;
+            positions[o] = new Position();
+            jobs.add(ForkJoinTask.adapt(() -> {
+                try {
+                    build.buildOffice(o, positions[o]);
+                } catch (RuntimeException e) {
+                    failures[o] = positions[o].failed(e);
+                }
+            }));
+        }
+        if (jobs.size() == 1) {
+            jobs.get(0).invoke();
+        } else if (!jobs.isEmpty()) {
+            ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(jobs)));
+        }
+        // the objects of an office are built in the order of the input file,
+        // so the first failure of all offices is the first one in the file
+        int failed = -1;
+        for (int office = 0; office < offices.size(); office++) {
+            if (failures[office] != null && (failed < 0 || positions[office].line < positions[failed].line)) {
+                failed = office;
+            }
+        }
+        int failedLine = failed < 0 ? Integer.MAX_VALUE : positions[failed].line;
 
-        while (ttype == '-') {
-            expectChar('-');
-            String name = expectStringField("name");
-            int officeId = expectIntField("office");
-            GenericUser manager = new GenericUser(name, Role.MANAGER, company.getOffices().get(officeId));
-            company.getOffices().get(officeId).addUser(manager);
+        Position position = new Position();
+        for (int i = 0; i < input.tasks.size(); i++) {
+            TaskInput task = input.tasks.get(i);
+            if (task.line > failedLine) {
+                break;
+            }
+            if (!build.isLocal(task)) {
+                position.at(task.line, "task", i);
+                try {
+                    build.buildTask(i);
+                } catch (RuntimeException e) {
+                    throw position.failed(e);
+                }
+            }
+        }
+        if (failed >= 0) {
+            throw failures[failed];
+        }
+    }
+
+    /**
+     * The object of the input file that is being built, so a failure can
+     * tell which object couldn't be built.
+     */
+    private static class Position {
+
+        private int line;
+        private String object;
+        private int index;
+
+        private void at(int line, String object, int index) {
+            this.line = line;
+            this.object = object;
+            this.index = index;
         }
 
         /**
-         * Developers
+         * @return An exception of the same kind as the given one, with the
+         * line and the index of the object being built in its message.
          */
-        expectLabel("developers");
-        // new resourcetype for developers
-        ArrayList<Resource> devList = new ArrayList<>();
-        ResourceType devType = ResourceType.DEVELOPER;
-        company.addResourceType(devType);
-        
-        while (ttype == '-') {
-            expectChar('-');
-            String name = expectStringField("name");
-            int officeId = expectIntField("office");
-            Developer dev = new Developer(name, company.getOffices().get(officeId));
-            
-            company.getOffices().get(officeId).addUser(dev);
-            company.getOffices().get(officeId).getResourceContainer().addResource(dev);
-            // add to temp list
-            devList.add(dev);
-            
-            // developer is user and resource at the same time
-            
-            tempList.add(dev);
+        private RuntimeException failed(RuntimeException e) {
+            String message = "Line " + line + ": " + object + " " + index + ": " + e.getMessage();
+            if (e instanceof ConflictException) {
+                ConflictException conflict = (ConflictException) e;
+                ConflictException result = new ConflictException(message, conflict.getCurrentTask(), conflict.getConflictingTasks());
+                result.initCause(e);
+                return result;
+            }
+            return new RuntimeException(message, e);
         }
+    }
+
+    /**
+     * The state of a single import while the domain objects are created.
+     * Every branch office only writes the slots of its own objects.
+     */
+    private class Build {
+
+        private final Input input;
+        private final List<BranchOffice> offices;
+        private final List<ResourceType> types;
+        private final int resourceBase, projectBase, taskBase;
 
         /**
-         * Projects
+         * The resources in the order they are numbered in the input file:
+         * first the resources, then the developers.
          */
-        expectLabel("projects");
-        HashMap<Project, BranchOffice> projectOffice = new HashMap<>();
-        List<Project> tempProjects = new ArrayList<>();
-        
-        while (ttype == '-') {
-            expectChar('-');
-            String name = expectStringField("name");
-            String description = expectStringField("description");
-            LocalDateTime creationTime = expectDateField("creationTime");
-            LocalDateTime dueTime = expectDateField("dueTime");
-            int officeId = expectIntField("office");
-
-            BranchOffice office = company.getOffices().get(officeId);
-            Project project = office.getProjectContainer().createProject(name, description, creationTime, dueTime);
-            projectOffice.put(project, office);
-            tempProjects.add(project);
+        private final Resource[] resources;
+        private final Project[] projects;
+        private final boolean[] localProjects;
+
+        private Build(Input input, List<BranchOffice> offices, List<ResourceType> types) {
+            this.input = input;
+            this.offices = offices;
+            this.types = types;
+            this.resourceBase = Resource.reserveIds(input.resources.size() + input.developers.size());
+            this.projectBase = Project.reserveIds(input.projects.size());
+            this.taskBase = Task.reserveIds(input.tasks.size());
+            this.resources = new Resource[input.resources.size() + input.developers.size()];
+            this.projects = new Project[input.projects.size()];
+            this.localProjects = new boolean[input.projects.size()];
+            Arrays.fill(localProjects, true);
+            for (TaskInput task : input.tasks) {
+                if (task.project >= 0 && task.project < projects.length && !isLocalTask(task)) {
+                    localProjects[task.project] = false;
+                }
+            }
         }
 
         /**
-         * Tasks
+         * @return True if and only if the given task only uses the branch
+         * office of its project.
          */
-        expectLabel("tasks");
-        
-        while (ttype == '-') {
-            expectChar('-');
-            
-            int projectId = expectIntField("project");
-            String description = expectStringField("description");
-
-            int estimatedDuration = expectIntField("estimatedDuration");
-            int acceptableDeviation = expectIntField("acceptableDeviation");
-            int alternativeFor = Project.NO_ALTERNATIVE;
-            expectLabel("alternativeFor");
-            if (ttype == TT_NUMBER) {
-                alternativeFor = expectInt();
+        private boolean isLocalTask(TaskInput task) {
+            int office = input.projects.get(task.project).office;
+            if (task.delegatedTo >= 0) {
+                return false;
             }
-            List<Integer> prerequisiteTasks = new ArrayList<>();
-            expectLabel("prerequisiteTasks");
-            if (ttype == '[') {
-                prerequisiteTasks = expectIntList();
+            for (int id : task.developers) {
+                if (id < 0 || id >= input.developers.size() || input.developers.get(id).office != office) {
+                    return false;
+                }
             }
-
-            if (prerequisiteTasks.isEmpty()) {
-                prerequisiteTasks = Project.NO_DEPENDENCIES;
+            for (int id : task.resources) {
+                int resourceOffice;
+                if (id >= 0 && id < input.resources.size()) {
+                    resourceOffice = input.resources.get(id).office;
+                } else if (id >= 0 && id < resources.length) {
+                    resourceOffice = input.developers.get(id - input.resources.size()).office;
+                } else {
+                    return false;
+                }
+                if (resourceOffice != office) {
+                    return false;
+                }
             }
+            return true;
+        }
 
-            Duration duration = new Duration(estimatedDuration);
+        private boolean isLocal(TaskInput task) {
+            return task.project >= 0 && task.project < projects.length && localProjects[task.project];
+        }
 
-            expectLabel("resources");
-            List<IntPair> requirements = expectLabeledPairList("type", "quantity");
-            HashMap<ResourceType, Integer> resourceMap = new LinkedHashMap<>();
-            
-            for (IntPair pair : requirements) {
-                resourceMap.put(company.getResourceTypes().get(pair.first), pair.second);
+        /**
+         * Creates the resources, users and projects of the given branch office
+         * and the tasks of its projects that only use this branch office.
+         * The given position follows the object that is being created.
+         */
+        private void buildOffice(int office, Position position) {
+            BranchOffice branchOffice = offices.get(office);
+            for (int i = 0; i < input.resources.size(); i++) {
+                ResourceInput resource = input.resources.get(i);
+                if (resource.office == office) {
+                    position.at(resource.line, "resource", i);
+                    resources[i] = branchOffice.getResourceContainer().createResource(resourceBase + i,
+                            resource.name, types.get(resource.type));
+                }
             }
-
-            Task task;
-            task = tempProjects.get(projectId).createTask(description, duration, acceptableDeviation, alternativeFor, prerequisiteTasks, resourceMap);
-             
-            expectLabel("delegatedTo");
-            if (ttype == TT_NUMBER) {
-                int delegatedOfficeId = expectInt();
-                projectOffice.get(task.getProject()).delegateTaskTo(task, company.getOffices().get(delegatedOfficeId));
+            for (int i = 0; i < input.managers.size(); i++) {
+                ResourceInput manager = input.managers.get(i);
+                if (manager.office == office) {
+                    position.at(manager.line, "manager", i);
+                    branchOffice.addUser(new GenericUser(manager.name, Role.MANAGER, branchOffice));
+                }
             }
-           
-            int planning = expectIntField("planned");
-           
-            if (planning == 1) {
-                LocalDateTime plannedStartTime = expectDateField("plannedStartTime");
-                expectLabel("developers");
-                List<Integer> developers = expectIntList();
-                // transform ids to objects
-                ArrayList<Resource> resources = new ArrayList<>();
-                
-                for (int id : developers) {
-                    resources.add(devList.get(id));
+            for (int i = 0; i < input.developers.size(); i++) {
+                ResourceInput developer = input.developers.get(i);
+                if (developer.office == office) {
+                    position.at(developer.line, "developer", i);
+                    // developer is user and resource at the same time
+                    int r = input.resources.size() + i;
+                    Developer dev = new Developer(resourceBase + r, developer.name, branchOffice);
+                    branchOffice.addUser(dev);
+                    branchOffice.getResourceContainer().addResource(dev);
+                    resources[r] = dev;
                 }
-                
-                expectLabel("resources");
-                List<Integer> resourcesIds = new ArrayList<>();
-                if (ttype == '[') {
-                    resourcesIds = expectIntList();
+            }
+            for (int i = 0; i < input.projects.size(); i++) {
+                ProjectInput project = input.projects.get(i);
+                if (project.office == office) {
+                    position.at(project.line, "project", i);
+                    projects[i] = branchOffice.getProjectContainer().createProject(projectBase + i,
+                            project.name, project.description, project.creationTime, project.dueTime);
                 }
-                // add rest of resources
-                for (int id : resourcesIds) {
-                    resources.add(tempList.get(id));
+            }
+            for (int i = 0; i < input.tasks.size(); i++) {
+                TaskInput task = input.tasks.get(i);
+                if (isLocal(task) && input.projects.get(task.project).office == office) {
+                    position.at(task.line, "task", i);
+                    buildTask(i);
+                }
+            }
+        }
+
+        /**
+         * Creates, delegates, plans and updates the task with the given index.
+         */
+        private void buildTask(int index) {
+            TaskInput input = this.input.tasks.get(index);
+            ProjectInput projectInput = this.input.projects.get(input.project);
+            Project project = projects[input.project];
+
+            int alternativeFor = input.alternativeFor < 0 ? Project.NO_ALTERNATIVE : taskBase + input.alternativeFor;
+            List<Integer> prerequisiteTasks = Project.NO_DEPENDENCIES;
+            if (!input.prerequisiteTasks.isEmpty()) {
+                prerequisiteTasks = new ArrayList<>(input.prerequisiteTasks.size());
+                for (int id : input.prerequisiteTasks) {
+                    prerequisiteTasks.add(taskBase + id);
                 }
-                
-                task.plan(plannedStartTime, resources, new Clock(plannedStartTime));
             }
-            
-            expectLabel("status");
-            
-            String status = "";
-            if (isWord("finished")) {
-                nextToken();
-                
-                status = "finished";
-            } else if (isWord("failed")) {
-                nextToken();
-                status = "failed";
+            HashMap<ResourceType, Integer> resourceMap = new LinkedHashMap<>();
+            for (IntPair pair : input.requirements) {
+                resourceMap.put(types.get(pair.first), pair.second);
             }
-           
-            if (isWord("executing")) {
-                nextToken();
-                status = "executing";
+
+            Task task = project.createTask(taskBase + index, input.description, Duration.of(input.estimatedDuration),
+                    input.acceptableDeviation, alternativeFor, prerequisiteTasks, resourceMap);
+
+            if (input.delegatedTo >= 0) {
+                offices.get(projectInput.office).delegateTaskTo(task, offices.get(input.delegatedTo));
             }
-            if (!"".equals(status) && !(status.equalsIgnoreCase("executing"))) {
-                LocalDateTime startTime = expectDateField("startTime");
-                LocalDateTime endTime = expectDateField("endTime");
-
-                if (status.equalsIgnoreCase("failed")) {
-                    task.fail(new Timespan(startTime, endTime), clock.getTime());
-                } else if (status.equalsIgnoreCase("finished")) {
-                    task.execute(clock);
-                    task.finish(new Timespan(startTime, endTime), clock.getTime());
+
+            if (input.plannedStartTime != null) {
+                // transform ids to objects
+                ArrayList<Resource> planned = new ArrayList<>();
+                for (int id : input.developers) {
+                    planned.add(resources[this.input.resources.size() + id]);
+                }
+                // add rest of resources
+                for (int id : input.resources) {
+                    planned.add(resources[id]);
                 }
+                task.plan(input.plannedStartTime, planned, new Clock(input.plannedStartTime));
+            }
 
+            if (input.status == FAILED) {
+                task.fail(new Timespan(input.startTime, input.endTime), clock.getTime());
+            } else if (input.status == FINISHED) {
+                task.execute(clock);
+                task.finish(new Timespan(input.startTime, input.endTime), clock.getTime());
             }
         }
+    }
 
-        if (ttype != TT_EOF) {
-            error("End of file or '-' expected");
-        }
+    /****************************************************
+     * Input                                            *
+     ****************************************************/
+
+    /**
+     * The contents of an input file. Objects refer to each other by their
+     * position in the input file.
+     */
+    private static class Input {
+
+        private LocalDateTime systemTime;
+        private final List<String> offices = new ArrayList<>();
+        private final List<ResourceTypeInput> resourceTypes = new ArrayList<>();
+        private final List<ResourceInput> resources = new ArrayList<>();
+        private final List<ResourceInput> managers = new ArrayList<>();
+        private final List<ResourceInput> developers = new ArrayList<>();
+        private final List<ProjectInput> projects = new ArrayList<>();
+        private final List<TaskInput> tasks = new ArrayList<>();
+    }
+
+    private static class ResourceTypeInput {
+
+        private String name;
+        private List<Integer> requirements, conflicts;
+        private boolean daily;
+    }
+
+    /**
+     * A resource, manager or developer in the input file.
+     */
+    private static class ResourceInput {
+
+        private String name;
+        private int type;
+        private int office;
+        private int line;
+    }
+
+    private static class ProjectInput {
+
+        private String name, description;
+        private LocalDateTime creationTime, dueTime;
+        private int office;
+        private int line;
+    }
+
+    private static class TaskInput {
+
+        private int project;
+        private String description;
+        private int estimatedDuration, acceptableDeviation;
+        private int alternativeFor = Project.NO_ALTERNATIVE;
+        private List<Integer> prerequisiteTasks = Project.NO_DEPENDENCIES;
+        private List<IntPair> requirements;
+        private int delegatedTo = -1;
+        private LocalDateTime plannedStartTime;
+        private List<Integer> developers = Collections.emptyList(), resources = Collections.emptyList();
+        private byte status = NO_STATUS;
+        private LocalDateTime startTime, endTime;
+        private int line;
     }
 }
@@ -0,0 +1,602 @@
+package init;
+
+import domain.BranchOffice;
+import domain.Company;
+import domain.Planning;
+import domain.Project;
+import domain.Reservation;
+import domain.Resource;
+import domain.ResourceType;
+import domain.task.Executing;
+import domain.task.Failed;
+import domain.task.Finished;
+import domain.task.Status;
+import domain.task.Task;
+import domain.time.Clock;
+import domain.time.Duration;
+import domain.time.Timespan;
+import domain.time.WorkWeekConfiguration;
+import domain.user.Developer;
+import domain.user.GenericUser;
+import domain.user.Role;
+import domain.user.User;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * This class saves the complete state of a company to a binary snapshot and
+ * restores it again.
+ *
+ * Objects refer to each other by their position in the snapshot. Projects and
+ * tasks are stored in the order of their ids and get their original ids back
+ * when the snapshot is loaded into a system in which no projects or tasks have
+ * been created yet. Plannings, reservations and statuses are restored as they
+ * were saved, without planning or executing the tasks again. Tasks, their
+ * alternatives and their delegations are restored without checking them, as
+ * they were checked when they were created.
+ *
+ * @author Frederic, Mathias, Pieter-Jan
+ */
+public class Snapshot {
+
+    private static final int MAGIC = 0x544D414E;
+    private static final int VERSION = 2;
+
+    private static final byte NO_STATUS = 0;
+    private static final byte EXECUTING = 1;
+    private static final byte FINISHED = 2;
+    private static final byte FAILED = 3;
+
+    private static final byte GENERIC_USER = 0;
+    private static final byte DEVELOPER = 1;
+
+    /**
+     * The reference to {@link ResourceType#DEVELOPER} when the company doesn't
+     * contain it.
+     */
+    private static final int DEVELOPER_TYPE = -1;
+
+    private Snapshot() { }
+
+    /**
+     * Saves a snapshot of the given company to the given file. The snapshot
+     * is written to a temporary file first, so the given file always
+     * contains a complete snapshot.
+     *
+     * @param file The file to save to.
+     * @param company The company to save.
+     * @param clock The system clock.
+     * @param generation The number of snapshots that were saved before this
+     * one.
+     * @throws IOException The snapshot can't be written.
+     */
+    public static void save(Path file, Company company, Clock clock, long generation) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+            BufferedOutputStream buffer = new BufferedOutputStream(out, 1 << 16);
+            write(buffer, company, clock, generation);
+            buffer.flush();
+            out.getFD().sync();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the snapshot in the given file into the given company.
+     *
+     * @param file The file to load from.
+     * @param company The empty company to restore the snapshot in.
+     * @param clock The clock to set to the time of the snapshot.
+     * @return The generation of the loaded snapshot.
+     * @throws IOException The snapshot can't be read.
+     */
+    public static long load(Path file, Company company, Clock clock) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            return read(in, company, clock);
+        }
+    }
+
+    /****************************************************
+     * Writing                                          *
+     ****************************************************/
+
+    /**
+     * Writes a snapshot of the given company to the given stream.
+     *
+     * @param stream The stream to write to.
+     * @param company The company to save.
+     * @param clock The system clock.
+     * @param generation The number of snapshots that were saved before this
+     * one.
+     * @throws IOException The snapshot can't be written.
+     */
+    public static void write(OutputStream stream, Company company, Clock clock, long generation) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(generation);
+        writeTime(out, clock.getTime());
+
+        List<ResourceType> types = company.getResourceTypes();
+        Map<ResourceType, Integer> typeIndex = indexOf(types);
+        out.writeInt(types.size());
+        for (ResourceType type : types) {
+            out.writeBoolean(type == ResourceType.DEVELOPER);
+            if (type != ResourceType.DEVELOPER) {
+                out.writeUTF(type.getName());
+                writeAvailability(out, type.getAvailability());
+                writeTypes(out, type.getRequirements(), typeIndex);
+                writeTypes(out, type.getConflicts(), typeIndex);
+            }
+        }
+
+        List<BranchOffice> offices = company.getOffices();
+        Map<BranchOffice, Integer> officeIndex = indexOf(offices);
+        out.writeInt(offices.size());
+        for (BranchOffice office : offices) {
+            out.writeUTF(office.getLocation());
+        }
+
+        Map<Resource, Integer> containerOf = new IdentityHashMap<>();
+        for (int i = 0; i < offices.size(); i++) {
+            for (Resource resource : offices.get(i).getResourceContainer().getResources()) {
+                containerOf.put(resource, i);
+            }
+            for (User user : offices.get(i).getUsers()) {
+                if (user instanceof Developer && !containerOf.containsKey(user)) {
+                    containerOf.put((Developer) user, -1);
+                }
+            }
+        }
+        List<Resource> resources = new ArrayList<>(containerOf.keySet());
+        resources.sort((r1, r2) -> Integer.compare(r1.getId(), r2.getId()));
+        Map<Resource, Integer> resourceIndex = indexOf(resources);
+        out.writeInt(resources.size());
+        for (Resource resource : resources) {
+            out.writeUTF(resource.getName());
+            out.writeInt(containerOf.get(resource));
+            if (resource instanceof Developer) {
+                out.writeByte(DEVELOPER);
+                out.writeInt(officeIndex.get(((Developer) resource).getBranchOffice()));
+            } else {
+                out.writeByte(GENERIC_USER);
+                out.writeInt(typeRef(resource.getType(), typeIndex));
+            }
+            boolean ownAvailability = resource.getAvailability() != resource.getType().getAvailability();
+            out.writeBoolean(ownAvailability);
+            if (ownAvailability) {
+                writeAvailability(out, resource.getAvailability());
+            }
+        }
+
+        for (BranchOffice office : offices) {
+            List<User> users = office.getUsers();
+            out.writeInt(users.size());
+            for (User user : users) {
+                if (user instanceof Developer) {
+                    out.writeByte(DEVELOPER);
+                    out.writeInt(resourceIndex.get((Developer) user));
+                } else {
+                    out.writeByte(GENERIC_USER);
+                    out.writeUTF(user.getName());
+                    out.writeByte(user.getRole().ordinal());
+                }
+            }
+        }
+
+        List<Project> projects = new ArrayList<>();
+        Map<Project, Integer> projectOffice = new IdentityHashMap<>();
+        for (int i = 0; i < offices.size(); i++) {
+            for (Project project : offices.get(i).getProjectContainer().getProjects()) {
+                projects.add(project);
+                projectOffice.put(project, i);
+            }
+        }
+        projects.sort((p1, p2) -> Integer.compare(p1.getId(), p2.getId()));
+        Map<Project, Integer> projectIndex = indexOf(projects);
+        out.writeInt(projects.size());
+        for (Project project : projects) {
+            out.writeInt(project.getId());
+            out.writeInt(projectOffice.get(project));
+            out.writeUTF(project.getName());
+            out.writeUTF(project.getDescription());
+            writeTime(out, project.getCreationTime());
+            writeTime(out, project.getDueTime());
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        for (Project project : projects) {
+            tasks.addAll(project.getTasks());
+        }
+        tasks.sort((t1, t2) -> Integer.compare(t1.getId(), t2.getId()));
+        Map<Task, Integer> taskIndex = indexOf(tasks);
+        Map<Task, Task> alternativeFor = new IdentityHashMap<>();
+        for (Task task : tasks) {
+            if (task.getAlternativeTask() != null) {
+                alternativeFor.put(task.getAlternativeTask(), task);
+            }
+        }
+        out.writeInt(tasks.size());
+        for (Task task : tasks) {
+            out.writeInt(task.getId());
+            out.writeInt(projectIndex.get(task.getProject()));
+            out.writeUTF(task.getDescription());
+            out.writeLong(task.getEstimatedDuration().toMinutes());
+            out.writeInt(task.getAcceptableDeviation());
+            Task failed = alternativeFor.get(task);
+            out.writeInt(failed == null ? -1 : taskIndex.get(failed));
+            List<Task> prerequisites = task.getPrerequisiteTasks();
+            out.writeInt(prerequisites.size());
+            for (Task prerequisite : prerequisites) {
+                out.writeInt(taskIndex.get(prerequisite));
+            }
+            Map<ResourceType, Integer> required = task.getRequiredResources();
+            out.writeInt(required.size());
+            for (Entry<ResourceType, Integer> entry : required.entrySet()) {
+                out.writeInt(typeRef(entry.getKey(), typeIndex));
+                out.writeInt(entry.getValue());
+            }
+            out.writeInt(task.isDelegated() ? officeIndex.get(task.getDelegatedBranchOffice()) : -1);
+
+            Planning planning = task.getPlanning();
+            out.writeBoolean(planning != null);
+            if (planning != null) {
+                writeTimespan(out, planning.getTimespan());
+                List<Resource> planned = planning.getResources();
+                out.writeInt(planned.size());
+                for (Resource resource : planned) {
+                    out.writeInt(resourceIndex.get(resource));
+                }
+            }
+
+            Status status = task.getStatus();
+            if (status instanceof Executing) {
+                out.writeByte(EXECUTING);
+            } else if (status instanceof Finished) {
+                out.writeByte(FINISHED);
+            } else if (status instanceof Failed) {
+                out.writeByte(FAILED);
+            } else {
+                out.writeByte(NO_STATUS);
+            }
+            out.writeBoolean(task.getTimeSpan() != null);
+            if (task.getTimeSpan() != null) {
+                writeTimespan(out, task.getTimeSpan());
+            }
+        }
+
+        for (Resource resource : resources) {
+            List<Reservation> current = new ArrayList<>(resource.getReservations(LocalDateTime.MIN));
+            writeReservations(out, current, taskIndex);
+            writeReservations(out, resource.getPreviousReservations(), taskIndex);
+        }
+        out.flush();
+    }
+
+    private static <T> Map<T, Integer> indexOf(List<T> list) {
+        Map<T, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < list.size(); i++) {
+            index.put(list.get(i), i);
+        }
+        return index;
+    }
+
+    private static int typeRef(ResourceType type, Map<ResourceType, Integer> typeIndex) {
+        Integer index = typeIndex.get(type);
+        if (index != null) {
+            return index;
+        }
+        if (type == ResourceType.DEVELOPER) {
+            return DEVELOPER_TYPE;
+        }
+        throw new IllegalArgumentException("The resource type " + type.getName() + " doesn't belong to the company.");
+    }
+
+    private static void writeTypes(DataOutputStream out, List<ResourceType> types, Map<ResourceType, Integer> typeIndex) throws IOException {
+        out.writeInt(types.size());
+        for (ResourceType type : types) {
+            out.writeInt(typeRef(type, typeIndex));
+        }
+    }
+
+    private static void writeAvailability(DataOutputStream out, WorkWeekConfiguration conf) throws IOException {
+        out.writeByte(conf.getBeginWorkWeek());
+        out.writeByte(conf.getEndWorkWeek());
+        out.writeLong(conf.getBeginWorkDay().toNanoOfDay());
+        out.writeLong(conf.getEndWorkDay().toNanoOfDay());
+        out.writeLong(conf.getBeginLunch().toNanoOfDay());
+        out.writeLong(conf.getEndLunch().toNanoOfDay());
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static void writeTimespan(DataOutputStream out, Timespan span) throws IOException {
+        out.writeLong(span.getStartMinute());
+        out.writeLong(span.getEndMinute());
+    }
+
+    private static void writeReservations(DataOutputStream out, List<Reservation> reservations, Map<Task, Integer> taskIndex) throws IOException {
+        int n = reservations.size();
+        int[] tasks = new int[n];
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+        for (int i = 0; i < n; i++) {
+            Reservation r = reservations.get(i);
+            Integer task = taskIndex.get(r.getTask());
+            if (task == null) {
+                throw new IllegalArgumentException("A reservation belongs to a task that isn't part of the company.");
+            }
+            tasks[i] = task;
+            starts[i] = r.getTimespan().getStartMinute();
+            ends[i] = r.getTimespan().getEndMinute();
+        }
+        out.writeInt(n);
+        for (int task : tasks) {
+            out.writeInt(task);
+        }
+        for (long start : starts) {
+            out.writeLong(start);
+        }
+        for (long end : ends) {
+            out.writeLong(end);
+        }
+    }
+
+    /****************************************************
+     * Reading                                          *
+     ****************************************************/
+
+    /**
+     * Restores the snapshot in the given stream in the given company.
+     *
+     * @param stream The stream to read from.
+     * @param company The empty company to restore the snapshot in.
+     * @param clock The clock to set to the time of the snapshot.
+     * @return The generation of the snapshot.
+     * @throws IOException The stream can't be read or doesn't contain a
+     * snapshot of a known version.
+     */
+    public static long read(InputStream stream, Company company, Clock clock) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("The given file is not a snapshot.");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Snapshot version " + version + " is not supported.");
+        }
+        long generation = in.readLong();
+        clock.advanceTime(readTime(in));
+
+        int nbTypes = in.readInt();
+        List<ResourceType> types = new ArrayList<>(nbTypes);
+        List<int[]> requirementRefs = new ArrayList<>(nbTypes);
+        List<int[]> conflictRefs = new ArrayList<>(nbTypes);
+        List<List<ResourceType>> requirements = new ArrayList<>(nbTypes);
+        List<List<ResourceType>> conflicts = new ArrayList<>(nbTypes);
+        for (int i = 0; i < nbTypes; i++) {
+            List<ResourceType> reqs = new ArrayList<>();
+            List<ResourceType> confls = new ArrayList<>();
+            ResourceType type;
+            if (in.readBoolean()) {
+                type = ResourceType.DEVELOPER;
+                requirementRefs.add(new int[0]);
+                conflictRefs.add(new int[0]);
+            } else {
+                String name = in.readUTF();
+                WorkWeekConfiguration availability = readAvailability(in);
+                requirementRefs.add(readInts(in));
+                conflictRefs.add(readInts(in));
+                type = new ResourceType(name, reqs, confls, availability);
+            }
+            types.add(type);
+            requirements.add(reqs);
+            conflicts.add(confls);
+            company.addResourceType(type);
+        }
+        // types can refer to types later in the snapshot
+        for (int i = 0; i < nbTypes; i++) {
+            for (int ref : requirementRefs.get(i)) {
+                requirements.get(i).add(typeAt(types, ref));
+            }
+            for (int ref : conflictRefs.get(i)) {
+                conflicts.get(i).add(typeAt(types, ref));
+            }
+        }
+
+        int nbOffices = in.readInt();
+        List<BranchOffice> offices = new ArrayList<>(nbOffices);
+        for (int i = 0; i < nbOffices; i++) {
+            BranchOffice office = new BranchOffice(in.readUTF());
+            offices.add(office);
+            company.addOffice(office);
+        }
+
+        int nbResources = in.readInt();
+        Resource[] resources = new Resource[nbResources];
+        for (int i = 0; i < nbResources; i++) {
+            String name = in.readUTF();
+            int container = in.readInt();
+            Resource resource;
+            if (in.readByte() == DEVELOPER) {
+                resource = new Developer(name, offices.get(in.readInt()));
+            } else {
+                resource = new Resource(name, typeAt(types, in.readInt()));
+            }
+            if (in.readBoolean()) {
+                resource.setAvailability(readAvailability(in));
+            }
+            if (container >= 0) {
+                offices.get(container).getResourceContainer().addResource(resource);
+            }
+            resources[i] = resource;
+        }
+
+        Role[] roles = Role.values();
+        for (BranchOffice office : offices) {
+            for (int i = in.readInt(); i > 0; i--) {
+                if (in.readByte() == DEVELOPER) {
+                    office.addUser((Developer) resources[in.readInt()]);
+                } else {
+                    office.addUser(new GenericUser(in.readUTF(), roles[in.readByte()], office));
+                }
+            }
+        }
+
+        int nbProjects = in.readInt();
+        Project[] projects = new Project[nbProjects];
+        BranchOffice[] projectOffices = new BranchOffice[nbProjects];
+        for (int i = 0; i < nbProjects; i++) {
+            Project.skipIdsBelow(in.readInt());
+            projectOffices[i] = offices.get(in.readInt());
+            projects[i] = projectOffices[i].getProjectContainer().createProject(in.readUTF(), in.readUTF(), readTime(in), readTime(in));
+        }
+
+        // a finished task can finish its project, so all tasks are created
+        // before the plannings and statuses are restored
+        int nbTasks = in.readInt();
+        Task[] tasks = new Task[nbTasks];
+        int[] alternativesFor = new int[nbTasks];
+        Timespan[] plannedSpans = new Timespan[nbTasks];
+        int[][] plannedRefs = new int[nbTasks][];
+        byte[] statuses = new byte[nbTasks];
+        Timespan[] timespans = new Timespan[nbTasks];
+        for (int i = 0; i < nbTasks; i++) {
+            int id = in.readInt();
+            Task.skipIdsBelow(id + 1);
+            int projectRef = in.readInt();
+            String description = in.readUTF();
+            Duration duration = Duration.of(in.readLong());
+            int accDev = in.readInt();
+            alternativesFor[i] = in.readInt();
+            int[] prerequisiteRefs = readInts(in);
+            List<Task> prerequisites = new ArrayList<>(prerequisiteRefs.length);
+            for (int ref : prerequisiteRefs) {
+                prerequisites.add(tasks[ref]);
+            }
+            Map<ResourceType, Integer> required = new HashMap<>();
+            for (int j = in.readInt(); j > 0; j--) {
+                required.put(typeAt(types, in.readInt()), in.readInt());
+            }
+
+            Task task = Task.restore(id, description, duration, accDev, prerequisites, required, projects[projectRef]);
+            tasks[i] = task;
+
+            int delegatedTo = in.readInt();
+            if (delegatedTo >= 0) {
+                projectOffices[projectRef].restoreDelegation(task, offices.get(delegatedTo));
+            }
+
+            if (in.readBoolean()) {
+                plannedSpans[i] = readTimespan(in);
+                plannedRefs[i] = readInts(in);
+            }
+            statuses[i] = in.readByte();
+            timespans[i] = in.readBoolean() ? readTimespan(in) : null;
+        }
+
+        // a task is only an alternative for a task earlier in the snapshot,
+        // so that task has already failed
+        for (int i = 0; i < nbTasks; i++) {
+            Task task = tasks[i];
+            if (alternativesFor[i] >= 0) {
+                tasks[alternativesFor[i]].restoreAlternativeTask(task);
+            }
+
+            if (plannedSpans[i] != null) {
+                List<Resource> planned = new ArrayList<>(plannedRefs[i].length);
+                for (int ref : plannedRefs[i]) {
+                    planned.add(resources[ref]);
+                }
+                task.setPlanning(new Planning(planned, plannedSpans[i], task, clock));
+            }
+
+            Timespan timespan = timespans[i];
+            switch (statuses[i]) {
+                case EXECUTING:
+                    task.restoreStatus(new Executing(), timespan);
+                    break;
+                case FINISHED:
+                    task.restoreStatus(new Finished(), timespan);
+                    break;
+                case FAILED:
+                    task.restoreStatus(new Failed(), timespan);
+                    break;
+                default:
+                    if (timespan != null) {
+                        task.restoreStatus(task.getStatus(), timespan);
+                    }
+            }
+        }
+
+        for (Resource resource : resources) {
+            resource.restoreReservations(readReservations(in, tasks), readReservations(in, tasks));
+        }
+        return generation;
+    }
+
+    private static ResourceType typeAt(List<ResourceType> types, int ref) {
+        return ref == DEVELOPER_TYPE ? ResourceType.DEVELOPER : types.get(ref);
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static WorkWeekConfiguration readAvailability(DataInputStream in) throws IOException {
+        return WorkWeekConfiguration.of(in.readByte(), in.readByte(),
+                LocalTime.ofNanoOfDay(in.readLong()), LocalTime.ofNanoOfDay(in.readLong()),
+                LocalTime.ofNanoOfDay(in.readLong()), LocalTime.ofNanoOfDay(in.readLong()));
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    private static Timespan readTimespan(DataInputStream in) throws IOException {
+        return new Timespan(in.readLong(), in.readLong());
+    }
+
+    private static List<Reservation> readReservations(DataInputStream in, Task[] tasks) throws IOException {
+        int n = in.readInt();
+        int[] taskRefs = new int[n];
+        long[] starts = new long[n];
+        for (int i = 0; i < n; i++) {
+            taskRefs[i] = in.readInt();
+        }
+        for (int i = 0; i < n; i++) {
+            starts[i] = in.readLong();
+        }
+        Reservation[] reservations = new Reservation[n];
+        for (int i = 0; i < n; i++) {
+            reservations[i] = new Reservation(tasks[taskRefs[i]], new Timespan(starts[i], in.readLong()));
+        }
+        return Arrays.asList(reservations);
+    }
+}
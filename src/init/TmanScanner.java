@@ -0,0 +1,337 @@
+package init;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * This class splits the bytes of a .tman file into tokens, like a
+ * {@link java.io.StreamTokenizer} with comments starting at '#' and without
+ * slash comments.
+ *
+ * The input is read in large blocks and the characters of the current token
+ * are kept in a reusable buffer, so no objects are created while skipping
+ * labels and reading numbers. Numbers are read as integers instead of
+ * doubles. Quoted text is decoded as UTF-8 only when its value is asked.
+ *
+ * @author Frederic, Mathias, Pieter-Jan
+ */
+class TmanScanner {
+
+    /**
+     * The end of the input was reached.
+     */
+    static final int TT_EOF = -1;
+
+    /**
+     * A number was read.
+     */
+    static final int TT_NUMBER = -2;
+
+    /**
+     * A word was read.
+     */
+    static final int TT_WORD = -3;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position, limit;
+    private int line = 1;
+
+    /**
+     * The type of the current token: {@link #TT_EOF}, {@link #TT_NUMBER},
+     * {@link #TT_WORD}, the quote character of quoted text or the character
+     * itself.
+     */
+    int ttype;
+
+    private byte[] token = new byte[256];
+    private int tokenLength;
+    private long number;
+    private boolean integral;
+
+    /**
+     * Initializes a scanner reading from the given stream.
+     *
+     * @param in The stream to read.
+     */
+    TmanScanner(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * @return The line of the current token.
+     */
+    public int lineno() {
+        return line;
+    }
+
+    /**
+     * Reads the next token.
+     *
+     * @return The type of the token.
+     */
+    public int nextToken() {
+        int c = read();
+        while (true) {
+            if (c == '\n') {
+                line++;
+            } else if (c == '\r') {
+                line++;
+                if (peek() == '\n') {
+                    position++;
+                }
+            } else if (c == '#') {
+                while ((c = peek()) != '\n' && c != '\r' && c >= 0) {
+                    position++;
+                }
+            } else if (c > ' ' || c < 0) {
+                break;
+            }
+            c = read();
+        }
+
+        tokenLength = 0;
+        if (c < 0) {
+            ttype = TT_EOF;
+        } else if (isLetter(c)) {
+            append(c);
+            while (isLetter(c = peek()) || isNumeric(c)) {
+                append(c);
+                position++;
+            }
+            ttype = TT_WORD;
+        } else if (isNumeric(c) && (c != '-' || isDigitOrDot(peek()))) {
+            readNumber(c);
+            ttype = TT_NUMBER;
+        } else if (c == '"' || c == '\'') {
+            readQuoted(c);
+            ttype = c;
+        } else {
+            ttype = c;
+        }
+        return ttype;
+    }
+
+    /**
+     * Checks whether the current token is the given word, without creating
+     * a string.
+     *
+     * @param word The word to compare with, in ASCII.
+     * @return True if and only if the current token is a word equal to the
+     * given word.
+     */
+    boolean isWord(String word) {
+        if (ttype != TT_WORD || tokenLength != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < tokenLength; i++) {
+            if (token[i] != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return True if and only if the current token is a number without
+     * fraction that fits in an int.
+     */
+    boolean isInt() {
+        return ttype == TT_NUMBER && integral && number == (int) number;
+    }
+
+    /**
+     * @return The value of the current number token.
+     */
+    int intValue() {
+        return (int) number;
+    }
+
+    /**
+     * @return The text of the current word or quoted token.
+     */
+    String stringValue() {
+        return new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the current quoted token as a time of the form "yyyy-MM-dd HH:mm".
+     *
+     * @return The time in the current token or null if it isn't a valid
+     * time of this form.
+     */
+    LocalDateTime dateTimeValue() {
+        if (tokenLength != 16 || token[4] != '-' || token[7] != '-' || token[10] != ' ' || token[13] != ':') {
+            return null;
+        }
+        int year = digits(0, 4), month = digits(5, 2), day = digits(8, 2);
+        int hour = digits(11, 2), minute = digits(14, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the current quoted token as a time of the form "HH:mm".
+     *
+     * @return The time in the current token or null if it isn't a valid
+     * time of this form.
+     */
+    LocalTime timeValue() {
+        if (tokenLength != 5 || token[2] != ':') {
+            return null;
+        }
+        int hour = digits(0, 2), minute = digits(3, 2);
+        if (hour < 0 || minute < 0) {
+            return null;
+        }
+        try {
+            return LocalTime.of(hour, minute);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /****************************************************
+     * Scanning                                         *
+     ****************************************************/
+
+    private void readNumber(int c) {
+        boolean negative = c == '-';
+        if (negative) {
+            c = read();
+        }
+        long value = 0;
+        boolean overflow = false, fraction = false, seenDot = false;
+        while (true) {
+            if (c >= '0' && c <= '9') {
+                if (seenDot) {
+                    fraction |= c != '0';
+                } else if (value > (Long.MAX_VALUE - 9) / 10) {
+                    overflow = true;
+                } else {
+                    value = value * 10 + (c - '0');
+                }
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+            c = peek();
+            if (isDigitOrDot(c) && !(c == '.' && seenDot)) {
+                position++;
+            } else {
+                break;
+            }
+        }
+        number = negative ? -value : value;
+        integral = !overflow && !fraction;
+    }
+
+    private void readQuoted(int quote) {
+        int c;
+        while ((c = peek()) != quote && c != '\n' && c != '\r' && c >= 0) {
+            position++;
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case 'n': c = '\n'; break;
+                    case 't': c = '\t'; break;
+                    case 'r': c = '\r'; break;
+                    case 'b': c = '\b'; break;
+                    case 'f': c = '\f'; break;
+                    default:
+                        if (c < 0) {
+                            return;
+                        }
+                }
+            }
+            append(c);
+        }
+        if (c == quote) {
+            position++;
+        }
+    }
+
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = token[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private void append(int c) {
+        if (tokenLength == token.length) {
+            byte[] bigger = new byte[token.length * 2];
+            System.arraycopy(token, 0, bigger, 0, tokenLength);
+            token = bigger;
+        }
+        token[tokenLength++] = (byte) c;
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c >= 0x80;
+    }
+
+    private static boolean isDigitOrDot(int c) {
+        return (c >= '0' && c <= '9') || c == '.';
+    }
+
+    private static boolean isNumeric(int c) {
+        return isDigitOrDot(c) || c == '-';
+    }
+
+    /**
+     * @return The next byte of the input without consuming it or -1 at the
+     * end of the input.
+     */
+    private int peek() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    /**
+     * @return The next byte of the input or -1 at the end of the input.
+     */
+    private int read() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private boolean fill() {
+        try {
+            int n;
+            do {
+                n = in.read(buffer);
+            } while (n == 0);
+            if (n < 0) {
+                return false;
+            }
+            position = 0;
+            limit = n;
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
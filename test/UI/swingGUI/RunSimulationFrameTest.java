@@ -0,0 +1,111 @@
+package UI.swingGUI;
+
+import controller.CommandLog;
+import controller.HandlerFactory;
+import controller.RunSimulationHandler;
+import domain.BranchOffice;
+import domain.Company;
+import domain.ProjectContainer;
+import domain.ResourceContainer;
+import domain.time.Clock;
+import domain.user.Acl;
+import domain.user.Auth;
+import domain.user.GenericUser;
+import domain.user.Role;
+
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import javax.swing.JButton;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This test presses the buttons of the run simulation frame. It needs a
+ * display, so it is skipped in a headless environment.
+ *
+ * @author Frederic, Mathias, Pieter-Jan
+ */
+public class RunSimulationFrameTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2015, 3, 12, 8, 0);
+
+	private Path file;
+	private CommandLog log;
+	private ProjectContainer pc;
+	private RunSimulationFrame frame;
+
+	@Before
+	public void setUp() throws IOException {
+		assumeTrue(!GraphicsEnvironment.isHeadless());
+		file = Files.createTempFile("taskman", ".log");
+		Company company = new Company();
+		pc = new ProjectContainer();
+		BranchOffice office = new BranchOffice("Leuven", pc, new ResourceContainer());
+		company.addOffice(office);
+		office.addUser(new GenericUser("root", Role.ADMIN, office));
+		Clock clock = new Clock(START);
+		log = CommandLog.open(file, company, clock);
+
+		Acl acl = new Acl();
+		acl.addEntry(Role.ADMIN, Arrays.asList("RunSimulation", "CreateTaskSimulator", "PlanTaskSimulator"));
+		Auth auth = new Auth(company);
+		auth.login("root");
+		frame = new RunSimulationFrame(new HandlerFactory(company, auth, acl, clock, log));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (frame != null) {
+			frame.dispose();
+		}
+		if (log != null) {
+			log.close();
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testCarryOutButton() throws ReflectiveOperationException {
+		RunSimulationHandler handler = field("handler");
+		handler.createProject("simulated", "carried out", START, START.plusDays(5));
+		assertEquals(0, pc.getNbProjects());
+		assertFalse(log.canCheckpoint());
+
+		this.<JButton>field("carryOutSimulationButton").doClick();
+
+		assertEquals(1, pc.getNbProjects());
+		assertTrue(log.canCheckpoint());
+		assertFalse(frame.isDisplayable());
+	}
+
+	@Test
+	public void testEndButton() throws ReflectiveOperationException {
+		RunSimulationHandler handler = field("handler");
+		handler.createProject("simulated", "cancelled", START, START.plusDays(5));
+
+		this.<JButton>field("endSimulationButton").doClick();
+
+		assertEquals(0, pc.getNbProjects());
+		assertTrue(log.canCheckpoint());
+		assertFalse(frame.isDisplayable());
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T field(String name) throws ReflectiveOperationException {
+		Field field = RunSimulationFrame.class.getDeclaredField(name);
+		field.setAccessible(true);
+		return (T) field.get(frame);
+	}
+}
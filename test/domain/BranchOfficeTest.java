@@ -57,6 +57,42 @@ public class BranchOfficeTest {
 		assertFalse(bo1.taskIsAssigned(t0));
 	}
 	
+	/**
+	 * Tests the lookup of an assigned task by its id.
+	 */
+	@Test
+	public void testGetAssignedTask()
+	{
+		assertEquals(t0, bo0.getAssignedTask(p0.getId(), t0.getId()));
+		assertNull(bo0.getAssignedTask(p0.getId(), t0.getId() + 1));
+		assertNull(bo1.getAssignedTask(p0.getId(), t0.getId()));
+		
+		bo0.delegateTaskTo(t0, bo1);
+		
+		assertNull(bo0.getAssignedTask(p0.getId(), t0.getId()));
+		assertEquals(t0, bo1.getAssignedTask(p0.getId(), t0.getId()));
+	}
+	
+	/**
+	 * Tests the assigned tasks of branch offices before and after delegation.
+	 */
+	@Test
+	public void testGetAssignedTasks()
+	{
+		Task t1 = new Task("task 1!", new Duration(30), 10, new HashMap<ResourceType, Integer>(), p0);
+		assertEquals(2, bo0.getAssignedTasks().size());
+		assertEquals(2, bo0.getAssignedUnplannedTasks().size());
+		assertTrue(bo1.getAssignedTasks().isEmpty());
+		
+		bo0.delegateTaskTo(t0, bo1);
+		
+		assertEquals(1, bo0.getAssignedTasks().size());
+		assertTrue(bo0.getAssignedUnplannedTasks().contains(t1));
+		assertFalse(bo0.getAssignedUnplannedTasks().contains(t0));
+		assertEquals(1, bo1.getAssignedTasks().size());
+		assertTrue(bo1.getAssignedUnplannedTasks().contains(t0));
+	}
+	
 	/**
 	 * Tests the illegal attempt of delegating a task from a branch office to which it is not assigned.
 	 */
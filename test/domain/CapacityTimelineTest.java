@@ -0,0 +1,56 @@
+package domain;
+
+import domain.time.Timespan;
+import java.time.LocalDateTime;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CapacityTimelineTest {
+
+	private LocalDateTime start = LocalDateTime.of(2015, 1, 1, 14, 0);
+	private Timespan first = new Timespan(start, start.plusHours(2));
+	private Timespan second = new Timespan(start.plusHours(1), start.plusHours(3));
+	private Timespan third = new Timespan(start.plusHours(2), start.plusHours(4));
+
+	private CapacityTimeline timeline;
+
+	@Before
+	public void setUp() {
+		timeline = new CapacityTimeline();
+		timeline.reserve(first);
+		timeline.reserve(second);
+		timeline.reserve(third);
+	}
+
+	@Test
+	public void testGetMaxReserved() {
+		assertEquals(0, timeline.getMaxReserved(new Timespan(start.minusDays(1), start)));
+		assertEquals(1, timeline.getMaxReserved(new Timespan(start, start.plusHours(1))));
+		assertEquals(2, timeline.getMaxReserved(first));
+		assertEquals(2, timeline.getMaxReserved(new Timespan(start.minusYears(100), start.plusYears(100))));
+		assertEquals(0, timeline.getMaxReserved(new Timespan(start.plusHours(4))));
+	}
+
+	@Test
+	public void testRelease() {
+		timeline.release(second);
+		assertEquals(1, timeline.getMaxReserved(first));
+		assertEquals(1, timeline.getMaxReserved(new Timespan(start)));
+
+		timeline.release(first);
+		timeline.release(third);
+		assertEquals(0, timeline.getMaxReserved(new Timespan(start.minusYears(100))));
+	}
+
+	@Test
+	public void testInfiniteReservation() {
+		Timespan infinite = new Timespan(start.plusHours(3));
+		timeline.reserve(infinite);
+		assertEquals(1, timeline.getMaxReserved(new Timespan(start.plusYears(1000), start.plusYears(1001))));
+		assertEquals(2, timeline.getMaxReserved(new Timespan(start.plusHours(3))));
+
+		timeline.release(infinite);
+		assertEquals(0, timeline.getMaxReserved(new Timespan(start.plusYears(1000))));
+	}
+}
@@ -0,0 +1,119 @@
+package domain;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+
+import domain.task.Task;
+import domain.time.Duration;
+import exception.ObjectNotFoundException;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This is a test class for the company domain class
+ * 
+ * @author Mathias, Frederic, Pieter-Jan
+ */
+public class CompanyTest {
+    Company company;
+    BranchOffice bo0, bo1;
+    Project p0;
+    Task t0;
+    Resource r0;
+    
+	@Before
+    public void setUp() {
+		company = new Company();
+    	bo0 = new BranchOffice("London");
+    	p0 = bo0.getProjectContainer().createProject("project 0", "description for project 0", LocalDateTime.of(2015, 5, 19, 10, 10), LocalDateTime.of(2015, 6, 19, 10, 10));
+    	t0 = new Task("task 0!", new Duration(68), 70, new HashMap<ResourceType, Integer>(), p0);
+    	r0 = bo0.getResourceContainer().createResource("car", new ResourceType("car"));
+    	company.addOffice(bo0);
+    	
+    	bo1 = new BranchOffice("Eisingen");
+    	company.addOffice(bo1);
+    }
+    
+	/**
+	 * Tests the lookup of objects that existed before their branch office was
+	 * added to the company and of objects created afterwards.
+	 */
+	@Test
+	public void testLookups()
+	{
+		assertEquals(p0, company.getProject(p0.getId()));
+		assertEquals(t0, company.getTask(t0.getId()));
+		assertEquals(r0, company.getResource(r0.getId()));
+		
+		Project p1 = bo1.getProjectContainer().createProject("project 1", "description for project 1", LocalDateTime.of(2015, 5, 19, 10, 10), LocalDateTime.of(2015, 6, 19, 10, 10));
+		Task t1 = new Task("task 1!", new Duration(10), 10, new HashMap<ResourceType, Integer>(), p1);
+		Resource r1 = bo1.getResourceContainer().createResource("bike", r0.getType());
+		assertEquals(p1, company.getProject(p1.getId()));
+		assertEquals(t1, company.getTask(t1.getId()));
+		assertEquals(r1, company.getResource(r1.getId()));
+		
+		assertNull(company.getProject(p1.getId() + 1));
+		assertNull(company.getTask(t1.getId() + 1));
+	}
+	
+	/**
+	 * Tests that a delegated task can still be found.
+	 */
+	@Test
+	public void testDelegatedTask()
+	{
+		bo0.delegateTaskTo(t0, bo1);
+		assertEquals(t0, company.getTask(t0.getId()));
+	}
+	
+	/**
+	 * Tests that a branch office only finds its own tasks and resources
+	 * in the directory.
+	 */
+	@Test
+	public void testOfficeLookups()
+	{
+		assertEquals(t0, bo0.getAssignedTask(p0.getId(), t0.getId()));
+		assertNull(bo0.getAssignedTask(p0.getId() + 1, t0.getId()));
+		assertNull(bo1.getAssignedTask(p0.getId(), t0.getId()));
+		
+		bo0.delegateTaskTo(t0, bo1);
+		assertNull(bo0.getAssignedTask(p0.getId(), t0.getId()));
+		assertEquals(t0, bo1.getAssignedTask(p0.getId(), t0.getId()));
+		
+		assertEquals(r0, bo0.getResourceContainer().getResource(r0.getId()));
+		try {
+			bo1.getResourceContainer().getResource(r0.getId());
+			fail();
+		} catch (ObjectNotFoundException e) {
+		}
+	}
+	
+	/**
+	 * Tests that removed and reverted projects and tasks are not found anymore.
+	 */
+	@Test
+	public void testRemoval()
+	{
+		ProjectContainer pc = bo0.getProjectContainer();
+		ProjectContainer.Memento containerMemento = pc.createMemento();
+		Project.Memento projectMemento = p0.createMemento();
+		Project p1 = pc.createProject("project 1", "description for project 1", LocalDateTime.of(2015, 5, 19, 10, 10), LocalDateTime.of(2015, 6, 19, 10, 10));
+		Task t1 = new Task("task 1!", new Duration(10), 10, new HashMap<ResourceType, Integer>(), p0);
+		
+		p0.setMemento(projectMemento);
+		assertNull(company.getTask(t1.getId()));
+		assertEquals(t0, company.getTask(t0.getId()));
+		
+		pc.setMemento(containerMemento);
+		assertNull(company.getProject(p1.getId()));
+		assertEquals(p0, company.getProject(p0.getId()));
+		
+		pc.removeProject(p0);
+		assertNull(company.getProject(p0.getId()));
+		assertNull(company.getTask(t0.getId()));
+	}
+}
@@ -0,0 +1,106 @@
+package domain;
+
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PersistentSortedMapTest {
+
+	private PersistentSortedMap<Integer, String> map;
+
+	@Before
+	public void setUp() {
+		map = PersistentSortedMap.<Integer, String>empty().put(20, "b").put(10, "a").put(30, "c");
+	}
+
+	@Test
+	public void testLookups() {
+		assertEquals(3, map.size());
+		assertEquals("b", map.get(20));
+		assertNull(map.get(15));
+		assertEquals(Arrays.asList("a", "b", "c"), map.values());
+		assertEquals(Arrays.asList("b"), map.values(11, 30));
+		assertEquals(Arrays.asList("b", "c"), map.values(20, null));
+		assertEquals(10, (int) map.firstEntry().getKey());
+		assertEquals(10, (int) map.lowerEntry(20).getKey());
+		assertNull(map.lowerEntry(10));
+		assertEquals(30, (int) map.ceilingEntry(21).getKey());
+		assertNull(map.ceilingEntry(31));
+	}
+
+	@Test
+	public void testOldVersionsUnchanged() {
+		PersistentSortedMap<Integer, String> changed = map.remove(20).put(40, "d").put(10, "A");
+		assertEquals(Arrays.asList("a", "b", "c"), map.values());
+		assertEquals(Arrays.asList("A", "c", "d"), changed.values());
+		assertSame(map, map.remove(15));
+		assertTrue(PersistentSortedMap.empty().isEmpty());
+	}
+
+	@Test
+	public void testRandomOperations() {
+		Random random = new Random(42);
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		PersistentSortedMap<Integer, Integer> actual = PersistentSortedMap.empty();
+		for (int i = 0; i < 10000; i++) {
+			int key = random.nextInt(500);
+			if (random.nextBoolean()) {
+				expected.put(key, i);
+				actual = actual.put(key, i);
+			} else {
+				expected.remove(key);
+				actual = actual.remove(key);
+			}
+		}
+		assertEquals(expected.size(), actual.size());
+		assertEquals(new ArrayList<>(expected.values()), actual.values());
+		assertEquals(expected.lowerKey(250), actual.lowerEntry(250).getKey());
+	}
+
+	@Test
+	public void testValuesView() {
+		assertEquals("c", map.values().get(2));
+		assertEquals(new ArrayList<>(map.values()), map.values());
+		assertTrue(PersistentSortedMap.empty().values().isEmpty());
+	}
+
+	@Test
+	public void testForEachDifference() {
+		Random random = new Random(7);
+		PersistentSortedMap<Integer, Integer> old = PersistentSortedMap.empty();
+		for (int i = 0; i < 1000; i++) {
+			old = old.put(random.nextInt(2000), i);
+		}
+		PersistentSortedMap<Integer, Integer> changed = old;
+		for (int i = 0; i < 20; i++) {
+			int key = random.nextInt(2000);
+			changed = random.nextBoolean() ? changed.put(key, -i) : changed.remove(key);
+		}
+
+		TreeMap<Integer, Integer> expected = new TreeMap<>();
+		for (int value : old.values()) {
+			expected.merge(value, 1, Integer::sum);
+		}
+		TreeMap<Integer, Integer> actual = new TreeMap<>();
+		for (int value : changed.values()) {
+			actual.merge(value, 1, Integer::sum);
+		}
+		old.forEachDifference(changed,
+				v -> expected.merge(v, -1, Integer::sum),
+				v -> expected.merge(v, 1, Integer::sum));
+		expected.values().removeIf(count -> count == 0);
+		assertEquals(actual, expected);
+
+		List<Integer> none = new ArrayList<>();
+		old.forEachDifference(old, none::add, none::add);
+		assertTrue(none.isEmpty());
+	}
+}
@@ -10,6 +10,7 @@ import exception.ObjectNotFoundException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -148,6 +149,30 @@ public class ProjectTest {
     	new Project(name, descr, create, due);
     }
     
+    /**
+     * Test that getUnplannedTasks returns a read-only view that follows the
+     * planning of the tasks.
+     */
+    @Test
+    public void testGetUnplannedTasksLiveView() {
+    	Collection<Task> unplanned = p2.getUnplannedTasks();
+    	assertEquals(2, unplanned.size());
+    	
+    	clock.advanceTime(end);
+    	t2.plan(clock.getTime(), new ArrayList<Resource>(Arrays.asList(dev)), clock);
+    	assertEquals(1, unplanned.size());
+    	assertFalse(unplanned.contains(t2));
+    	
+    	t3.fail(new Timespan(start, end), clock.getTime());
+    	assertTrue(unplanned.isEmpty());
+    	assertTrue(p2.getCanBePlannedTasks().isEmpty());
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetAvailableTasksReadOnly() {
+    	p1.getAvailableTasks().clear();
+    }
+    
     /**
      * Test getAvailableTasks method when project is already finished.
      */
@@ -248,6 +273,25 @@ public class ProjectTest {
     	pFinished.createTask(taskdescr, estdur, accdev, altFor, prereqs, Task.getDefaultRequiredResources());
     }
     
+    /**
+     * Test removeTask method.
+     */
+    @Test
+    public void testRemoveTask() {
+    	Task t = p2.createTask(taskdescr, estdur, accdev, altFor, prereqs, Task.getDefaultRequiredResources());
+    	assertEquals(3, p2.getAvailableTasks().size());
+    	p2.removeTask(t);
+    	assertFalse(p2.hasTask(t));
+    	assertEquals(2, p2.getTasks().size());
+    	assertEquals(2, p2.getAvailableTasks().size());
+    	assertFalse(p2.getUnplannedTasks().contains(t));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveTaskNotInProject() {
+    	p1.removeTask(t2);
+    }
+    
     /**
      * Test getAvailableTasks method in simple cases.
      */
@@ -341,6 +385,21 @@ public class ProjectTest {
     	assertTrue(pFinished.getUnacceptablyOverdueTasks(clock.getTime()).isEmpty());
     }
     
+    /**
+     * Test getUnacceptablyOverdueTasks method when a task changes at the same time.
+     */
+    @Test
+    public void testGetUnacceptablyOverdueTasksAfterFail() {
+    	clock.advanceTime(end);
+    	Task t = p1.createTask(taskdescr, new Duration(create, due.plusDays(DAYDIF)), accdev, altFor, prereqs, Task.getDefaultRequiredResources());
+    	assertTrue(p1.getUnacceptablyOverdueTasks(clock.getTime()).containsKey(t));
+    	assertFalse(p1.isOnTime(clock.getTime()));
+    	
+    	t.fail(new Timespan(start, end), clock.getTime());
+    	assertTrue(p1.getUnacceptablyOverdueTasks(clock.getTime()).isEmpty());
+    	assertTrue(p1.isOnTime(clock.getTime()));
+    }
+    
     /**
      * Test getUnacceptablyOverdueTasks method in case of alternative (no prereqs).
      */
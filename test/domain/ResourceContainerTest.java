@@ -87,6 +87,60 @@ public class ResourceContainerTest {
 		rc4.getResource(new Resource("something", type0).getId());
 	}
 
+	@Test
+	public void testGetPosition() {
+		Resource r = new Resource("earlier", type0);
+		rc4.createResource("later", type0);
+		rc4.addResource(r);
+		assertEquals(0, rc4.getPosition(res0.getId()));
+		assertEquals(3, rc4.getPosition(dev.getId()));
+		assertEquals(4, rc4.getPosition(r.getId()));
+		assertEquals(r, rc4.getResourceAt(4));
+		assertEquals(res2, rc4.getResourceAt(rc4.getPosition(res2.getId())));
+	}
+	
+	@Test(expected=ObjectNotFoundException.class)
+	public void testGetPositionUnknown() {
+		rc4.getPosition(new Resource("something", type0).getId());
+	}
+	
+	@Test(expected=ObjectNotFoundException.class)
+	public void testGetResourceAtUnknown() {
+		rc4.getResourceAt(4);
+	}
+
+	@Test
+	public void testGetResourcesOfTypeLiveView() {
+		Set<Resource> resources = rc4.getResourcesOfType(type0);
+		Resource r = rc4.createResource("toe", type0);
+		assertEquals(2, resources.size());
+		assertTrue(resources.contains(r));
+		assertEquals(r, rc4.getResource(r.getId()));
+	}
+	
+	@Test
+	public void testGetResourcesOfTypeLiveViewOfNewType() {
+		Set<Resource> resources = rc0.getResourcesOfType(type0);
+		assertTrue(resources.isEmpty());
+		Resource r = rc0.createResource("toe", type0);
+		assertEquals(1, resources.size());
+		assertTrue(resources.contains(r));
+	}
+	
+	@Test
+	public void testUnknownTypeHasNothingAvailable() {
+		Timespan span = new Timespan(LocalDateTime.of(2015, 1, 1, 10, 0), LocalDateTime.of(2015, 1, 1, 12, 0));
+		assertFalse(rc0.hasAvailableOfType(type0, span, 1));
+		assertNull(rc0.getEarliestAvailability(type0, span, 1));
+		assertTrue(rc0.getAvailableResources(type0, span).isEmpty());
+		assertFalse(rc0.getResourcesOfType(type0).iterator().hasNext());
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testGetResourcesOfTypeReadOnly() {
+		rc4.getResourcesOfType(type0).clear();
+	}
+
 	@Test
 	public void testGetResourcesOfType() {
 		assertTrue(rc0.getResourcesOfType(type0).isEmpty());
@@ -155,6 +209,18 @@ public class ResourceContainerTest {
         assertFalse(rc4.hasAvailableOfType(type1, new Timespan(endRes), 3));
 	}
 	
+	@Test
+	public void testHasAvailableOfTypeDisjointReservations() {
+		Timespan after = new Timespan(endRes, endRes.plusHours(1));
+		res2.makeReservation(t1, after);
+		assertFalse(rc4.hasAvailableOfType(type1, new Timespan(startRes, after.getEndTime()), 1));
+		assertTrue(rc4.hasAvailableOfType(type1, after, 1));
+		assertFalse(rc4.hasAvailableOfType(type1, after, 2));
+		
+		res2.clearFutureReservations(startRes, t1);
+		assertTrue(rc4.hasAvailableOfType(type1, new Timespan(startRes, after.getEndTime()), 1));
+	}
+	
 	@Test
 	public void testMeetRequirementsNormal() {
 		List<Resource> resources = rc4.meetRequirements(t1, reserved, new ArrayList<>());
@@ -159,4 +159,50 @@ public class ResourceTest {
         r0.clearFutureReservations(startTime.plusHours(8), t0);
         assertEquals(1, r0.getReservations().size());
 	}
+
+	@Test
+	public void testGetConflictingReservationsSeveral() throws ConflictException {
+		Reservation before = r1.makeReservation(t1, justBefore);
+		Reservation after = r1.makeReservation(t2, justAfter);
+		
+		Timespan span = new Timespan(justBefore.getEndTime().minusMinutes(30), justAfter.getStartTime().plusMinutes(30));
+		Set<Reservation> conflictingReservations = r1.getConflictingReservations(span);
+		assertEquals(3, conflictingReservations.size());
+		assertTrue(conflictingReservations.contains(before));
+		assertTrue(conflictingReservations.contains(reservation));
+		assertTrue(conflictingReservations.contains(after));
+		
+		assertEquals(1, r1.getConflictingReservations(new Timespan(justAfter.getStartTime(), justAfter.getEndTime().plusDays(1))).size());
+		assertFalse(r1.isAvailable(new Timespan(justBefore.getStartTime().minusDays(1), justAfter.getEndTime().plusDays(1))));
+	}
+	
+	@Test
+	public void testArchiveOldReservations() throws ConflictException {
+		r1.makeReservation(t1, justAfter);
+		r1.archiveOldReservations(reservedSpan.getEndTime());
+		
+		assertEquals(1, r1.getReservations().size());
+		assertEquals(null, r1.getReservation(t0));
+		assertEquals(1, r1.getPreviousReservations().size());
+		assertTrue(r1.getPreviousReservations().contains(reservation));
+		assertTrue(r1.isAvailable(reservedSpan));
+	}
+	
+	@Test
+	public void testSetMemento() throws ConflictException {
+		CapacityTimeline timeline = new CapacityTimeline();
+		r1.addTimeline(timeline);
+		Resource.Memento memento = r1.createMemento();
+		r1.makeReservation(t1, justAfter);
+		r1.clearFutureReservations(startTime.minusDays(2), t0);
+		r1.makeReservation(t2, reservedSpan);
+		
+		r1.setMemento(memento);
+		assertEquals(1, r1.getReservations().size());
+		assertEquals(reservation, r1.getReservation(t0));
+		assertEquals(null, r1.getReservation(t1));
+		assertEquals(null, r1.getReservation(t2));
+		assertEquals(1, timeline.getMaxReserved(reservedSpan));
+		assertEquals(0, timeline.getMaxReserved(justAfter));
+	}
 }
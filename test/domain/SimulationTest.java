@@ -0,0 +1,203 @@
+package domain;
+
+import domain.task.Task;
+import domain.time.Clock;
+import domain.time.Duration;
+import domain.time.Timespan;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SimulationTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2015, 3, 12, 8, 0);
+
+	private ProjectContainer pc;
+	private Project project;
+	private Simulation simulation;
+
+	@Before
+	public void setUp() {
+		pc = new ProjectContainer();
+		project = pc.createProject("project", "live", START, START.plusDays(5));
+		project.createTask("live", new Duration(60), 10, Project.NO_ALTERNATIVE, Project.NO_DEPENDENCIES, Task.getDefaultRequiredResources());
+		simulation = new Simulation();
+	}
+
+	@Test
+	public void testChangesOnlyVisibleInSimulation() {
+		simulation.run(() -> {
+			pc.createProject("simulated", "simulated", START, START.plusDays(5));
+			project.createTask("simulated", new Duration(60), 10, Project.NO_ALTERNATIVE, Project.NO_DEPENDENCIES, Task.getDefaultRequiredResources());
+		});
+
+		assertEquals(1, pc.getNbProjects());
+		assertEquals(1, project.getTasks().size());
+		assertEquals(1, project.getAvailableTasks().size());
+		assertEquals(2, (int) simulation.run(() -> pc.getNbProjects()));
+		assertEquals(2, (int) simulation.run(() -> project.getAvailableTasks().size()));
+	}
+
+	@Test
+	public void testCommit() {
+		simulation.run(() -> project.createTask("simulated", new Duration(60), 10, Project.NO_ALTERNATIVE, Project.NO_DEPENDENCIES, Task.getDefaultRequiredResources()));
+		simulation.commit();
+
+		assertEquals(2, project.getTasks().size());
+		assertEquals(2, project.getAvailableTasks().size());
+		assertTrue(simulation.isEnded());
+		try {
+			simulation.run(() -> pc.getNbProjects());
+			fail("A committed simulation can't be run.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testDiscard() {
+		simulation.run(() -> pc.createProject("simulated", "simulated", START, START.plusDays(5)));
+		simulation.discard();
+		simulation.discard();
+
+		assertEquals(1, pc.getNbProjects());
+		assertTrue(simulation.isEnded());
+	}
+
+	@Test
+	public void testCommitAfterLiveChange() {
+		simulation.run(() -> pc.createProject("simulated", "simulated", START, START.plusDays(5)));
+		Simulation.LIVE.run(() -> pc.createProject("live", "live", START, START.plusDays(5)));
+
+		try {
+			simulation.commit();
+			fail("The live system changed the same container.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		simulation.discard();
+		assertEquals(2, pc.getNbProjects());
+	}
+
+	@Test
+	public void testClockChangesDeferred() {
+		Clock clock = new Clock(START);
+		List<LocalDateTime> updates = new ArrayList<>();
+		Task task = project.getTasks().get(0);
+
+		simulation.run(() -> planning(task, START.plusHours(1), clock, updates));
+		clock.advanceTime(START.plusHours(2));
+		assertTrue(updates.isEmpty());
+
+		simulation.commit();
+		clock.advanceTime(START.plusHours(3));
+		assertEquals(1, updates.size());
+	}
+
+	@Test
+	public void testFailedActionUndone() {
+		Clock clock = new Clock(START);
+		List<LocalDateTime> updates = new ArrayList<>();
+		Task task = project.getTasks().get(0);
+		try {
+			Simulation.LIVE.run(() -> {
+				pc.createProject("failed", "failed", START, START.plusDays(5));
+				project.createTask("failed", new Duration(60), 10, Project.NO_ALTERNATIVE, Arrays.asList(task.getId()), Task.getDefaultRequiredResources());
+				planning(task, START.plusHours(1), clock, updates);
+				throw new IllegalStateException();
+			});
+			fail("The action failed.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		clock.advanceTime(START.plusHours(2));
+
+		assertEquals(1, pc.getNbProjects());
+		assertEquals(1, project.getTasks().size());
+		assertTrue(task.getDependentTasks().isEmpty());
+		assertTrue(updates.isEmpty());
+	}
+
+	/**
+	 * Creates a planning of the given task that ends at the given time and
+	 * records the times at which the given clock updates it.
+	 */
+	private static Planning planning(Task task, LocalDateTime end, Clock clock, List<LocalDateTime> updates) {
+		return new Planning(new ArrayList<>(), new Timespan(START, end), task, clock) {
+			@Override
+			public void update(LocalDateTime currentTime) {
+				updates.add(currentTime);
+			}
+		};
+	}
+
+	@Test
+	public void testFailedActionUndoneInSimulation() {
+		simulation.run(() -> pc.createProject("simulated", "simulated", START, START.plusDays(5)));
+		try {
+			simulation.run(() -> {
+				pc.createProject("failed", "failed", START, START.plusDays(5));
+				throw new IllegalStateException();
+			});
+			fail("The action failed.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		simulation.commit();
+
+		assertEquals(2, pc.getNbProjects());
+	}
+
+	@Test
+	public void testDelegationKeptApart() {
+		BranchOffice office = new BranchOffice("Leuven", pc, new ResourceContainer());
+		BranchOffice other = new BranchOffice("Brussel");
+		Task task = project.getTasks().get(0);
+
+		simulation.run(() -> office.delegateTaskTo(task, other));
+		assertFalse(task.isDelegated());
+		assertTrue(other.getAssignedTasks().isEmpty());
+		assertTrue(simulation.run(() -> task.isDelegated()));
+		assertEquals(1, (int) simulation.run(() -> other.getAssignedTasks().size()));
+
+		simulation.discard();
+		assertFalse(task.isDelegated());
+		assertTrue(other.getAssignedTasks().isEmpty());
+	}
+
+	@Test
+	public void testCommitAfterLiveDelegation() {
+		BranchOffice office = new BranchOffice("Leuven", pc, new ResourceContainer());
+		BranchOffice other = new BranchOffice("Brussel");
+		BranchOffice third = new BranchOffice("Gent");
+		Task task = project.getTasks().get(0);
+
+		simulation.run(() -> office.delegateTaskTo(task, other));
+		Simulation.LIVE.run(() -> office.delegateTaskTo(task, third));
+
+		try {
+			simulation.commit();
+			fail("The live system delegated the same task.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertTrue(task.getDelegatedBranchOffice() == third);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testRunWithinOtherSimulation() {
+		simulation.run(() -> new Simulation().run(() -> pc.getNbProjects()));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCommitLive() {
+		Simulation.LIVE.commit();
+	}
+}
@@ -1,5 +1,6 @@
 package domain;
 
+import domain.command.CreateProjectCommandTest;
 import domain.command.CreateReservationCommandTest;
 import domain.command.PlanTaskCommandTest;
 import domain.memento.MementoProjectContainerTest;
@@ -11,9 +12,12 @@ import domain.time.ClockTest;
 import domain.time.DurationTest;
 import domain.time.TimespanTest;
 import domain.time.WorkWeekConfigurationTest;
+import init.FileExporterTest;
+import init.FileInitializorTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import scenariotest.AdvanceSystemTimeScenarioTest;
+import scenariotest.CommandLogScenarioTest;
 import scenariotest.CreateProjectScenarioTest;
 import scenariotest.CreateTaskScenarioTest;
 import scenariotest.DelegateTaskScenarioTest;
@@ -21,6 +25,7 @@ import scenariotest.LoginScenarioTest;
 import scenariotest.PlanTaskScenarioTest;
 import scenariotest.ShowProjectScenarioTest;
 import scenariotest.SimulatorScenarioTest;
+import scenariotest.SnapshotScenarioTest;
 import scenariotest.UpdateTaskStatusScenarioTest;
 
 /**
@@ -38,13 +43,21 @@ import scenariotest.UpdateTaskStatusScenarioTest;
                     ResourceTest.class,
                     ResourceTypeTest.class,
                     ResourceContainerTest.class,
+                    CompanyTest.class,
+                    CapacityTimelineTest.class,
+                    PersistentSortedMapTest.class,
+                    CreateProjectCommandTest.class,
                     CreateReservationCommandTest.class, 
                     PlanTaskCommandTest.class, 
                     MementoTest.class,
                     MementoProjectTest.class,
                     MementoTaskTest.class,
                     MementoProjectContainerTest.class,
+                    FileInitializorTest.class,
+                    FileExporterTest.class,
                     AdvanceSystemTimeScenarioTest.class,
+                    CommandLogScenarioTest.class,
+                    SnapshotScenarioTest.class,
                     CreateProjectScenarioTest.class,
                     CreateTaskScenarioTest.class,
                     ShowProjectScenarioTest.class,
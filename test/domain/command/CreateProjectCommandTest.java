@@ -0,0 +1,62 @@
+package domain.command;
+
+import domain.Project;
+import domain.ProjectContainer;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A test class for the create project command
+ * @author Mathias
+ */
+public class CreateProjectCommandTest {
+    private ProjectContainer pc;
+    private Project p0;
+    private CreateProjectCommand createProjectCommand;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @Before
+    public void setUp() {
+        start = LocalDateTime.of(2015, Month.MARCH, 2, 10, 30);
+        end = LocalDateTime.of(2015, Month.MARCH, 15, 10, 30);
+        pc = new ProjectContainer();
+        p0 = pc.createProject("existing", "already there", start, end);
+        createProjectCommand = new CreateProjectCommand(pc, "new", "simulated", start, end);
+    }
+
+    /**
+     * Test of execute method, of class CreateProjectCommand.
+     */
+    @Test
+    public void testExecute() {
+        createProjectCommand.execute();
+        Project created = createProjectCommand.getCreatedProject();
+        assertEquals(2, pc.getNbProjects());
+        assertEquals("new", created.getName());
+        assertTrue(pc.hasProject(created.getId()));
+    }
+
+    /**
+     * Test of revert method, of class CreateProjectCommand.
+     */
+    @Test
+    public void testRevert() {
+        createProjectCommand.execute();
+        Project created = createProjectCommand.getCreatedProject();
+        createProjectCommand.revert();
+        assertEquals(1, pc.getNbProjects());
+        assertFalse(pc.hasProject(created.getId()));
+        assertTrue(pc.hasProject(p0.getId()));
+        assertNull(createProjectCommand.getCreatedProject());
+    }
+}
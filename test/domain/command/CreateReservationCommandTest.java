@@ -60,6 +60,21 @@ public class CreateReservationCommandTest {
         assertEquals(0, res0.getReservations().size());
     }
     
+    /**
+     * Test of revert method, of class CreateReservationCommand, when the
+     * resource was reserved again afterwards.
+     */
+    @Test
+    public void testRevertOnlyOwnReservation() {
+        Task t1 = createNiceMock(Task.class);
+        createReservationCommand.execute();
+        res0.makeReservation(t1, new Timespan(end, end.plusDays(1)));
+        createReservationCommand.revert();
+        assertEquals(1, res0.getReservations().size());
+        assertEquals(null, res0.getReservation(t0));
+        assertEquals(new Timespan(end, end.plusDays(1)), res0.getReservation(t1).getTimespan());
+    }
+    
     /**
      * Test of execute method when a there is a conflict, of class CreateReservationCommand.
      */
@@ -5,6 +5,7 @@ import domain.task.Task;
 import domain.time.Duration;
 import domain.time.Timespan;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.HashMap;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -66,4 +67,21 @@ public class CreateTaskCommandTest {
         assertFalse(t0.hasAlternativeTask());
     }
     
+    /**
+     * Test of revert method, of class CreateTaskCommand, for a task with 
+     * prerequisite tasks.
+     */
+    @Test
+    public void testRevertPrerequisites() {
+        Task t1 = p.createTask("prerequisite", new Duration(10), 20, Project.NO_ALTERNATIVE, Project.NO_DEPENDENCIES, new HashMap<>());
+        CreateTaskCommand command = new CreateTaskCommand(p, "test", new Duration(10), 10, Project.NO_ALTERNATIVE, Arrays.asList(t1.getId()), new HashMap<>());
+        command.execute();
+        Task created = command.getCreatedTask();
+        assertEquals(Arrays.asList(created), created.getPrerequisiteTasks().get(0).getDependentTasks());
+        
+        command.revert();
+        assertFalse(created.getPrerequisiteTasks().get(0).getDependentTasks().contains(created));
+        assertTrue(t1.getDependentTasks().isEmpty());
+    }
+    
 }
@@ -219,5 +219,26 @@ public class PlanTaskCommandTest {
         assertEquals(1, bicycle.getReservations().size());
         
     }
+    
+    /**
+     * The original planning of a task that is planned again doesn't end the
+     * new planning when its time span has passed.
+     */
+    @Test
+    public void testReplanKeepsNewPlanning() {
+        planTaskCommand.execute();
+        
+        LocalDateTime end2 = LocalDateTime.of(2015, Month.MARCH, 25, 10, 30);
+        PlanTaskCommand planTaskCommand2 = new PlanTaskCommand(new Timespan(start, end2), resList, task, clock);
+        planTaskCommand2.execute();
+        Planning newPlanning = capturedArgument.getValue();
+        
+        clock.advanceTime(LocalDateTime.of(2015, Month.MARCH, 21, 10, 30));
+        assertEquals(newPlanning, capturedArgument.getValue());
+        
+        planTaskCommand2.revert();
+        clock.advanceTime(LocalDateTime.of(2015, Month.MARCH, 22, 10, 30));
+        assertEquals(null, capturedArgument.getValue());
+    }
 
 }
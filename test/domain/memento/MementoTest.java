@@ -12,6 +12,8 @@ import exception.ObjectNotFoundException;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -90,6 +92,39 @@ public class MementoTest {
         assertFalse(container.getAllAvailableTasks().containsKey(t2));
     }
     
+    /**
+     * Test that getAllAvailableTasks and getUnplannedTasks return read-only 
+     * views that follow the projects of the container and their tasks.
+     */
+    @Test
+    public void testTaskViewsFollowContainer(){
+        ProjectContainer instance = new ProjectContainer();
+        Map<Task, Project> available = instance.getAllAvailableTasks();
+        Collection<Task> unplanned = instance.getUnplannedTasks();
+        assertTrue(available.isEmpty());
+        assertTrue(unplanned.isEmpty());
+        
+        Project project = instance.createProject("Views", "A description.", LocalDateTime.of(2015, 3, 12, 17, 30), LocalDateTime.of(2015, 3, 22, 17, 50));
+        Task task = project.createTask("A task.", new Duration(500), 50, Project.NO_ALTERNATIVE, Project.NO_DEPENDENCIES, Task.getDefaultRequiredResources());
+        assertEquals(1, available.size());
+        assertEquals(project, available.get(task));
+        assertEquals(1, unplanned.size());
+        assertTrue(unplanned.contains(task));
+        assertFalse(unplanned.contains(t1));
+        
+        task.plan(clock.getTime(), Arrays.asList(dev), clock);
+        assertTrue(unplanned.isEmpty());
+        assertTrue(available.containsKey(task));
+    }
+    
+    /**
+     * Test that the view returned by getAllAvailableTasks is read-only.
+     */
+    @Test (expected=UnsupportedOperationException.class)
+    public void testGetAvailableTasksReadOnly(){
+        container.getAllAvailableTasks().put(t2, p1);
+    }
+    
     /**
      * Test of getAllTasks, of class BranchOffice.
      */
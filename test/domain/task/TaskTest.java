@@ -251,6 +251,29 @@ public class TaskTest {
         assertEquals(new Available(), t8.getStatus());
     }
 
+    /**
+     * Test of the propagation of status changes to dependent tasks.
+     */
+    @Test
+    public void testStatusPropagation() {
+        Task dependsOnT6 = p.createTask("depends on t6", new Duration(10), 0, Project.NO_ALTERNATIVE, Arrays.asList(t6.getId(), t0.getId()), Task.getDefaultRequiredResources());
+        assertEquals(new Unavailable(), dependsOnT6.getStatus());
+        Task.Memento memento = t6.createMemento();
+        
+        t6.setAlternativeTask(t3);
+        assertEquals(new Unavailable(), dependsOnT6.getStatus());
+        t0.plan(LocalDateTime.of(2060,3,4,11,48), Arrays.asList(dev), clock);
+        t0.execute(clock);
+        t0.finish(new Timespan(
+        				LocalDateTime.of(2020, 10, 2, 14, 14), 
+        				LocalDateTime.of(2020, 10, 3, 14, 14)
+        				), clock.getTime());
+        assertEquals(new Available(), dependsOnT6.getStatus());
+        
+        t6.setMemento(memento);
+        assertEquals(new Unavailable(), dependsOnT6.getStatus());
+    }
+
     /**
      * Test of isFulfilled method, of class Task.
      */
@@ -615,6 +638,29 @@ public class TaskTest {
     	
     }
     
+    /**
+     * Test that the work times of dependent tasks follow the status changes
+     * of their prerequisite tasks.
+     */
+    @Test
+    public void testWorkTimesAfterStatusChange()
+    {
+    	Task unavailableTask = p.createTask("unavailable", new Duration(33), 22, Project.NO_ALTERNATIVE, Arrays.asList(t0.getId(), t6.getId()), Task.getDefaultRequiredResources());
+    	assertEquals(10 + 33, unavailableTask.estimatedWorkTimeNeeded().toMinutes());
+    	assertEquals(165, t6.getTimeSpent().toMinutes());
+    	
+    	t6.setAlternativeTask(t1);
+    	assertEquals(10 + 33 + 10, unavailableTask.estimatedWorkTimeNeeded().toMinutes());
+    	
+    	t1.plan(LocalDateTime.of(2060,3,4,11,48), Arrays.asList(dev), clock);
+    	t1.execute(clock);
+    	t1.finish(new Timespan(LocalDateTime.of(2015, 3, 10, 10, 0), LocalDateTime.of(2015, 3, 10, 11, 30)), clock.getTime());
+    	assertEquals(165 + 90, t6.getTimeSpent().toMinutes());
+    	
+    	t0.fail(new Timespan(LocalDateTime.of(2015, 3, 10, 10, 0), LocalDateTime.of(2015, 3, 10, 11, 30)), clock.getTime());
+    	assertEquals(33 + 10, unavailableTask.estimatedWorkTimeNeeded().toMinutes());
+    }
+    
     /**
      * Test of dependsOn method, of class Task.
      */
@@ -639,6 +685,44 @@ public class TaskTest {
         assertTrue(t8.dependsOn(t7alternative)); // indirectly depends on the alternative task of t7
     }
     
+    /**
+     * Test of dependsOn method, of class Task, on a deep chain of diamonds.
+     */
+    @Test
+    public void testDependsOnDiamonds() {
+        Task top = t0;
+        for (int i = 0; i < 40; i++) {
+            Task left = p.createTask("left", new Duration(10), 0, Project.NO_ALTERNATIVE, Arrays.asList(top.getId()), Task.getDefaultRequiredResources());
+            Task right = p.createTask("right", new Duration(10), 0, Project.NO_ALTERNATIVE, Arrays.asList(top.getId()), Task.getDefaultRequiredResources());
+            top = p.createTask("bottom", new Duration(10), 0, Project.NO_ALTERNATIVE, Arrays.asList(left.getId(), right.getId()), Task.getDefaultRequiredResources());
+        }
+        assertTrue(top.dependsOn(t0));
+        assertFalse(top.dependsOn(t1));
+        assertFalse(t0.dependsOn(top));
+        
+        t6.setAlternativeTask(t1);
+        Task bottom = p.createTask("depends on t6", new Duration(10), 0, Project.NO_ALTERNATIVE, Arrays.asList(top.getId(), t6.getId()), Task.getDefaultRequiredResources());
+        assertTrue(bottom.dependsOn(t1));
+        assertFalse(top.dependsOn(t1));
+    }
+    
+    /**
+     * Test of dependsOn method, of class Task, for tasks of different 
+     * projects, which have the same ordinals.
+     */
+    @Test
+    public void testDependsOnOtherProject() {
+        Project other = new Project("Other", "Description", LocalDateTime.of(2001, 1, 9, 8, 0), LocalDateTime.of(2072, 10, 9, 8, 0));
+        Task first = other.createTask("first", new Duration(10), 0, Project.NO_ALTERNATIVE, Project.NO_DEPENDENCIES, Task.getDefaultRequiredResources());
+        Task second = other.createTask("second", new Duration(10), 0, Project.NO_ALTERNATIVE, Arrays.asList(first.getId()), Task.getDefaultRequiredResources());
+        assertEquals(t0.getOrdinal(), first.getOrdinal());
+        assertEquals(1, second.getOrdinal());
+        
+        assertTrue(second.dependsOn(first));
+        assertFalse(second.dependsOn(t0));
+        assertFalse(t1.dependsOn(first));
+    }
+    
     /**
      * Test of getTimeSpent method, of class Task.
      */
@@ -704,4 +788,16 @@ public class TaskTest {
     	assertTrue(nextAvailableStartingTimes.contains(to.plusHours(2)));
     	assertTrue(nextAvailableStartingTimes.contains(to2)); //from2 = to.plusHours(3)
     }
+    
+    @Test
+    public void TestNextAvailableStartingTimesBookedAhead() {
+    	LocalDateTime free = from.plusWeeks(6).plusMinutes(30);
+    	res1.makeReservation(t10, new Timespan(from.minusDays(1), free));
+    	
+    	SortedSet<LocalDateTime> nextAvailableStartingTimes = t10.nextAvailableStartingTimes(rc, from, 3);
+    	assertEquals(3, nextAvailableStartingTimes.size());
+    	assertEquals(free.withMinute(0).plusHours(1), nextAvailableStartingTimes.first());
+    	assertTrue(nextAvailableStartingTimes.contains(free.withMinute(0).plusHours(2)));
+    	assertTrue(nextAvailableStartingTimes.contains(free.withMinute(0).plusHours(3)));
+    }
 }
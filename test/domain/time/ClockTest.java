@@ -1,6 +1,9 @@
 package domain.time;
 
+import domain.ClockObserver;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -50,4 +53,46 @@ public class ClockTest {
         
     }
     
+    /**
+     * Test of schedule method, of class Clock.
+     */
+    @Test
+    public void testSchedule() {
+        Clock instance = new Clock(LocalDateTime.of(2015, 2, 26, 14, 30));
+        List<LocalDateTime> updates = new ArrayList<>();
+        ClockObserver observer = updates::add;
+        ClockObserver cancelled = updates::add;
+        instance.schedule(observer, LocalDateTime.of(2015, 2, 26, 16, 0));
+        instance.schedule(cancelled, LocalDateTime.of(2015, 2, 26, 15, 0));
+        instance.detach(cancelled);
+        
+        instance.advanceTime(LocalDateTime.of(2015, 2, 26, 15, 30));
+        assertTrue(updates.isEmpty());
+        instance.advanceTime(LocalDateTime.of(2015, 2, 26, 16, 0));
+        assertEquals(1, updates.size());
+        instance.advanceTime(LocalDateTime.of(2015, 2, 27, 16, 0));
+        assertEquals(1, updates.size());
+    }
+    
+    /**
+     * Test of schedule method, of class Clock, for an observer that is 
+     * scheduled again after it was detached.
+     */
+    @Test
+    public void testScheduleAfterDetach() {
+        Clock instance = new Clock(LocalDateTime.of(2015, 2, 26, 14, 30));
+        List<LocalDateTime> updates = new ArrayList<>();
+        ClockObserver observer = updates::add;
+        instance.schedule(observer, LocalDateTime.of(2015, 2, 26, 15, 0));
+        instance.detach(observer);
+        instance.schedule(observer, LocalDateTime.of(2015, 2, 26, 16, 0));
+        
+        instance.advanceTime(LocalDateTime.of(2015, 2, 26, 15, 30));
+        assertTrue(updates.isEmpty());
+        instance.advanceTime(LocalDateTime.of(2015, 2, 26, 16, 0));
+        assertEquals(1, updates.size());
+        instance.detach(observer);
+        instance.advanceTime(LocalDateTime.of(2015, 2, 27, 16, 0));
+        assertEquals(1, updates.size());
+    }
 }
@@ -1,6 +1,7 @@
 package domain.time;
 
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -195,6 +196,76 @@ public class DurationTest {
 
     }
 
+    /**
+     * Test of getEndTimeFrom method with a configuration that differs from
+     * the default one. The configuration of the duration is used for every
+     * day, not only for the first half day.
+     */
+    @Test
+    public void testGetEndTimeFromOwnConfiguration() {
+        WorkWeekConfiguration conf = WorkWeekConfiguration.of(1, 3, LocalTime.of(7, 0),
+                LocalTime.of(15, 0), LocalTime.of(11, 0), LocalTime.of(11, 30));
+        // Wednesday, the last day of the work week
+        LocalDateTime begin = LocalDateTime.of(2015, 2, 18, 7, 0);
+        Duration instance = new Duration(600, conf);
+        LocalDateTime result = instance.getEndTimeFrom(begin);
+        assertEquals(LocalDateTime.of(2015, 2, 23, 9, 30), result);
+        assertTrue(conf.isValidWorkTime(result));
+    }
+
+    /**
+     * Test of getEndTimeFrom and the between constructor over a long period.
+     */
+    @Test
+    public void testLongDuration() {
+        LocalDateTime begin = LocalDateTime.of(2015, 2, 16, 9, 0);
+        LocalDateTime end = LocalDateTime.of(2035, 2, 16, 9, 0);
+        Duration duration = new Duration(begin, end);
+        assertEquals(1043 * 5 * 8 + 4 * 8, duration.getHours());
+        assertEquals(end.minusDays(1).withHour(18), duration.getEndTimeFrom(begin));
+    }
+
+    /**
+     * Test of getEndTimesFrom method, of class Duration.
+     */
+    @Test
+    public void testGetEndTimesFrom() {
+        LocalDateTime begin = LocalDateTime.of(2015, 2, 13, 10, 0);
+        long[] starts = new long[72];
+        long[] ends = new long[starts.length];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = Timespan.toEpochMinute(begin.plusHours(i));
+        }
+        
+        for (Duration d : new Duration[]{new Duration(0), new Duration(125), new Duration(1940)}) {
+            d.getEndTimesFrom(starts, ends);
+            for (int i = 0; i < starts.length; i++) {
+                assertEquals(d.getEndTimeFrom(begin.plusHours(i)), Timespan.ofEpochMinute(ends[i]));
+            }
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetEndTimesFromInvalidLength() {
+        new Duration(10).getEndTimesFrom(new long[3], new long[2]);
+    }
+
+    /**
+     * Test of the of factory method, of class Duration.
+     */
+    @Test
+    public void testOf() {
+        assertTrue(Duration.ZERO == Duration.of(0));
+        assertTrue(Duration.of(60) == new Duration(30).add(30));
+        assertEquals(new Duration(100000), Duration.of(100000));
+        assertTrue(WorkWeekConfiguration.DEFAULT == Duration.of(60).getWorkWeekConfiguration());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfNegative() {
+        Duration.of(-1);
+    }
+
     /**
      * Test of multiplyBy method, of class Duration.
      */
@@ -205,6 +276,17 @@ public class DurationTest {
         assertEquals(1165, instance.multiplyBy(0.6).toMinutes());
     }
     
+    /**
+     * Test that the seconds of the given times are truncated.
+     */
+    @Test
+    public void testSecondsAreTruncated() {
+        LocalDateTime begin = LocalDateTime.of(2015, 2, 16, 10, 0, 30);
+        LocalDateTime end = LocalDateTime.of(2015, 2, 16, 10, 5, 10);
+        assertEquals(5, new Duration(begin, end).toMinutes());
+        assertEquals(LocalDateTime.of(2015, 2, 16, 10, 5), new Duration(5).getEndTimeFrom(begin));
+    }
+    
      /**
      * Test of percentage over method, of class Duration.
      */
@@ -140,4 +140,24 @@ public class TimespanTest {
     }
     
     
+    
+    @Test
+    public void testEpochMinutes() {
+        LocalDateTime start = LocalDateTime.of(2015, 1, 6, 14, 0);
+        Timespan timespan = new Timespan(start, start.plusHours(1));
+        assertEquals(Timespan.toEpochMinute(start), timespan.getStartMinute());
+        assertEquals(timespan.getStartMinute() + 60, timespan.getEndMinute());
+        assertEquals(timespan, new Timespan(timespan.getStartMinute(), timespan.getEndMinute()));
+        assertEquals(start, Timespan.ofEpochMinute(timespan.getStartMinute()));
+        
+        Timespan infinite = new Timespan(start);
+        assertEquals(LocalDateTime.MAX, infinite.getEndTime());
+        assertTrue(infinite.overlapsWith(timespan));
+        assertTrue(infinite.endsAfter(start.plusYears(1000)));
+        
+        assertTrue(timespan.overlapsWith(start.plusHours(1)));
+        assertFalse(timespan.overlapsWith(start.plusHours(1).plusSeconds(1)));
+        assertTrue(timespan.endsBefore(start.plusHours(1).plusSeconds(1)));
+        assertTrue(timespan.startsBefore(start.plusSeconds(1)));
+    }
 }
@@ -113,4 +113,37 @@ public class WorkWeekConfigurationTest {
         assertEquals(0, o.compareTo(o));
         
     }
+    
+    /**
+     * Test of toWorkMinutes and fromWorkMinutes methods, of class WorkWeekConfiguration.
+     */
+    @Test
+    public void testWorkMinutes() {
+        LocalDateTime monday = LocalDateTime.of(2015, 3, 9, 9, 0);
+        long start = wwc_default.toWorkMinutes(monday);
+        assertEquals(start, wwc_default.toWorkMinutes(monday.minusDays(1)));
+        assertEquals(180, wwc_default.toWorkMinutes(monday.withHour(12).withMinute(30)) - start);
+        assertEquals(181, wwc_default.toWorkMinutes(monday.withHour(13).withMinute(1)) - start);
+        assertEquals(5 * 8 * 60, wwc_default.toWorkMinutes(monday.plusDays(7)) - start);
+        
+        assertEquals(monday.withHour(12), wwc_default.fromWorkMinutes(start + 180));
+        assertEquals(monday.minusDays(3).withHour(18), wwc_default.fromWorkMinutes(start));
+        assertEquals(monday.plusDays(4).withHour(17).withMinute(59), wwc_default.fromWorkMinutes(start + 5 * 8 * 60 - 1));
+        assertEquals(monday.plusYears(100).minusDays(3).withHour(18), 
+                wwc_default.fromWorkMinutes(wwc_default.toWorkMinutes(monday.plusYears(100).minusDays(2))));
+    }
+    
+    /**
+     * Test of the of factory method, of class WorkWeekConfiguration.
+     */
+    @Test
+    public void testOf() {
+        assertTrue(WorkWeekConfiguration.DEFAULT == WorkWeekConfiguration.of(1, 5, LocalTime.of(9, 0), LocalTime.of(18, 0), LocalTime.of(12, 0), LocalTime.of(13, 0)));
+        assertEquals(wwc_default, WorkWeekConfiguration.DEFAULT);
+        assertEquals(wwc_default.hashCode(), WorkWeekConfiguration.DEFAULT.hashCode());
+        
+        WorkWeekConfiguration short1 = WorkWeekConfiguration.of(LocalTime.of(10, 0), LocalTime.of(15, 0));
+        assertTrue(short1 == WorkWeekConfiguration.of(LocalTime.of(10, 0), LocalTime.of(15, 0)));
+        assertFalse(short1.equals(WorkWeekConfiguration.DEFAULT));
+    }
 }
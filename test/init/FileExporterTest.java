@@ -0,0 +1,108 @@
+package init;
+
+import domain.Company;
+import domain.Project;
+import domain.task.Finished;
+import domain.task.Task;
+import domain.time.Clock;
+import domain.time.Duration;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileExporterTest {
+
+	private Clock clock;
+	private Company company;
+
+	@Before
+	public void setUp() {
+		clock = new Clock();
+		company = new Company();
+		new FileInitializor(new ByteArrayInputStream(FileInitializorTest.FILE.getBytes(StandardCharsets.UTF_8)), clock, company).processFile();
+	}
+
+	private static String export(Clock clock, Company company) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new FileExporter(out, clock, company).exportFile();
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		String exported = export(clock, company);
+
+		Clock imported = new Clock();
+		Company copy = new Company();
+		new FileInitializor(new ByteArrayInputStream(exported.getBytes(StandardCharsets.UTF_8)), imported, copy).processFile();
+
+		assertEquals(exported, export(imported, copy));
+		assertEquals(LocalDateTime.of(2014, 1, 2, 9, 0), imported.getTime());
+		assertEquals(2, copy.getOffices().size());
+		Project project = copy.getOffices().get(0).getProjectContainer().getProjects().get(0);
+		assertEquals("project x", project.getName());
+		Task delegated = project.getTasks().get(0);
+		assertTrue(delegated.isDelegated());
+		Task finished = project.getTasks().get(1);
+		assertTrue(finished.getStatus() instanceof Finished);
+		assertNotNull(finished.getPlanning());
+	}
+
+	@Test
+	public void testProjectsMergedInIdOrder() throws IOException {
+		LocalDateTime creation = LocalDateTime.of(2014, 1, 1, 9, 0);
+		LocalDateTime due = LocalDateTime.of(2014, 2, 1, 9, 0);
+		company.getOffices().get(1).getProjectContainer().createProject("brussel", "second", creation, due);
+		Project leuven = company.getOffices().get(0).getProjectContainer().createProject("leuven", "third", creation, due);
+		Task first = leuven.createTask("first", new Duration(60), 10, Project.NO_ALTERNATIVE, Project.NO_DEPENDENCIES, Task.getDefaultRequiredResources());
+		leuven.createTask("after first", new Duration(60), 10, Project.NO_ALTERNATIVE, Arrays.asList(first.getId()), Task.getDefaultRequiredResources());
+		String exported = export(clock, company);
+
+		assertTrue(exported.indexOf("\"project x\"") < exported.indexOf("\"brussel\""));
+		assertTrue(exported.indexOf("\"brussel\"") < exported.indexOf("\"leuven\""));
+		assertTrue(exported.contains("  - project: 2\n    description: \"after first\"\n"));
+		assertTrue(exported.contains("    prerequisiteTasks: [2]\n"));
+
+		Company copy = new Company();
+		new FileInitializor(new ByteArrayInputStream(exported.getBytes(StandardCharsets.UTF_8)), new Clock(), copy).processFile();
+		assertEquals(exported, export(clock, copy));
+		Task after = copy.getOffices().get(0).getProjectContainer().getProjects().get(1).getTasks().get(1);
+		assertEquals("first", after.getPrerequisiteTasks().get(0).getDescription());
+	}
+
+	@Test
+	public void testPassedPlanningFromReservations() throws IOException {
+		Task finished = company.getOffices().get(0).getProjectContainer().getProjects().get(0).getTasks().get(1);
+		finished.getPlanning().update(clock.getTime());
+		assertNull(finished.getPlanning());
+		String exported = export(clock, company);
+
+		assertTrue(exported.contains("    planned: 1\n"
+				+ "    plannedStartTime: \"2014-01-01 13:00\"\n"
+				+ "    developers: [0]\n"
+				+ "    resources: [0]\n"
+				+ "    status: finished\n"));
+	}
+
+	@Test
+	public void testQuotedText() throws IOException {
+		company.getOffices().get(0).getProjectContainer().createProject("say \"hi\"", "back\\slash",
+				LocalDateTime.of(2014, 1, 1, 9, 0), LocalDateTime.of(2014, 2, 1, 9, 0));
+		String exported = export(clock, company);
+
+		Company copy = new Company();
+		new FileInitializor(new ByteArrayInputStream(exported.getBytes(StandardCharsets.UTF_8)), new Clock(), copy).processFile();
+		Project project = copy.getOffices().get(0).getProjectContainer().getProjects().get(1);
+		assertEquals("say \"hi\"", project.getName());
+		assertEquals("back\\slash", project.getDescription());
+	}
+}
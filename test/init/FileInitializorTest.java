@@ -0,0 +1,201 @@
+package init;
+
+import domain.BranchOffice;
+import domain.Company;
+import domain.Project;
+import domain.task.Finished;
+import domain.task.Task;
+import domain.time.Clock;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileInitializorTest {
+
+	static final String FILE =
+			  "# a small company\n"
+			+ "systemTime: \"2014-01-02 09:00\"\n"
+			+ "dailyAvailability:\n"
+			+ "  - startTime: \"12:00\"\n"
+			+ "    endTime: \"17:00\"\n"
+			+ "offices:\n"
+			+ "  - location: \"Leuven\"\n"
+			+ "  - location: \"Brussel\"\n"
+			+ "resourceTypes:\n"
+			+ "  - name: \"car\"\n"
+			+ "    requires: []\n"
+			+ "    conflictsWith: []\n"
+			+ "    dailyAvailability:\n"
+			+ "  - name: \"white board\"\n"
+			+ "    requires: []\n"
+			+ "    conflictsWith: [1]\n"
+			+ "    dailyAvailability: 0\n"
+			+ "resources:\n"
+			+ "  - name: \"Car 1\"\n"
+			+ "    type: 0\n"
+			+ "    office: 0\n"
+			+ "  - name: \"Board\"\n"
+			+ "    type: 1\n"
+			+ "    office: 1\n"
+			+ "managers:\n"
+			+ "  - name: \"root\"\n"
+			+ "    office: 0\n"
+			+ "developers:\n"
+			+ "  - name: \"dev1\"\n"
+			+ "    office: 0\n"
+			+ "  - name: \"dev2\"\n"
+			+ "    office: 1\n"
+			+ "projects:\n"
+			+ "  - name: \"project x\"\n"
+			+ "    description: \"a project description\"\n"
+			+ "    creationTime: \"2014-01-01 09:00\"\n"
+			+ "    dueTime: \"2014-02-01 18:00\"\n"
+			+ "    office: 0\n"
+			+ "tasks:\n"
+			+ "  - project: 0\n"
+			+ "    description: \"second\"\n"
+			+ "    estimatedDuration: 30\n"
+			+ "    acceptableDeviation: 10\n"
+			+ "    alternativeFor:\n"
+			+ "    prerequisiteTasks:\n"
+			+ "    resources: []\n"
+			+ "    delegatedTo: 1\n"
+			+ "    planned: 0\n"
+			+ "    status:\n"
+			+ "  - project: 0\n"
+			+ "    description: \"task description\"\n"
+			+ "    estimatedDuration: 60\n"
+			+ "    acceptableDeviation: 50\n"
+			+ "    alternativeFor:\n"
+			+ "    prerequisiteTasks:\n"
+			+ "    resources: [{type: 0, quantity: 1}]\n"
+			+ "    delegatedTo:\n"
+			+ "    planned: 1\n"
+			+ "    plannedStartTime: \"2014-01-01 13:00\"\n"
+			+ "    developers: [0]\n"
+			+ "    resources: [0]\n"
+			+ "    status: finished\n"
+			+ "    startTime: \"2014-01-01 13:00\"\n"
+			+ "    endTime: \"2014-01-01 14:00\"\n";
+
+	private Clock clock;
+	private Company company;
+
+	@Before
+	public void setUp() {
+		clock = new Clock();
+		company = new Company();
+	}
+
+	private void process(String file) {
+		new FileInitializor(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)), clock, company).processFile();
+	}
+
+	@Test
+	public void testProcessFile() {
+		process(FILE);
+		assertEquals(LocalDateTime.of(2014, 1, 2, 9, 0), clock.getTime());
+		assertEquals(2, company.getOffices().size());
+		BranchOffice leuven = company.getOffices().get(0);
+		assertEquals("Leuven", leuven.getLocation());
+		assertEquals(3, company.getResourceTypes().size());
+		assertEquals("white board", company.getResourceTypes().get(1).getName());
+		assertTrue(company.getResourceTypes().get(1).getConflicts().contains(company.getResourceTypes().get(1)));
+		assertEquals(2, leuven.getUsers().size());
+		assertEquals(2, leuven.getResourceContainer().getResources().size());
+
+		Project project = leuven.getProjectContainer().getProjects().get(0);
+		assertEquals("project x", project.getName());
+		assertEquals(LocalDateTime.of(2014, 2, 1, 18, 0), project.getDueTime());
+		Task delegated = project.getTasks().get(0);
+		assertEquals("second", delegated.getDescription());
+		assertTrue(delegated.isDelegated());
+		Task finished = project.getTasks().get(1);
+		assertFalse(finished.isDelegated());
+		assertTrue(finished.getStatus() instanceof Finished);
+		assertNotNull(finished.getTimeSpan());
+	}
+
+	@Test
+	public void testIdsInFileOrder() {
+		process(FILE);
+		Project project = company.getOffices().get(0).getProjectContainer().getProjects().get(0);
+		Task first = project.getTasks().get(0);
+		Task second = project.getTasks().get(1);
+		assertEquals("second", first.getDescription());
+		assertEquals(first.getId() + 1, second.getId());
+	}
+
+	@Test
+	public void testResourceIdsInFileOrder() {
+		process(FILE);
+		BranchOffice leuven = company.getOffices().get(0);
+		BranchOffice brussel = company.getOffices().get(1);
+		int car = leuven.getResourceContainer().getResourceAt(0).getId();
+		assertEquals("Car 1", leuven.getResourceContainer().getResourceAt(0).getName());
+		assertEquals("Board", brussel.getResourceContainer().getResource(car + 1).getName());
+		assertEquals("dev1", leuven.getResourceContainer().getResource(car + 2).getName());
+		assertEquals("dev2", brussel.getResourceContainer().getResource(car + 3).getName());
+	}
+
+	@Test
+	public void testBuildErrorLine() {
+		try {
+			process(FILE.replace("\"task description\"", "\"\""));
+			fail("Expected an error");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Line 50: task 1: "));
+		}
+		// the first failure in the file is reported, whichever office it is in
+		company = new Company();
+		try {
+			process(FILE.replace("\"task description\"", "\"\"").replace("    type: 1\n", "    type: 5\n"));
+			fail("Expected an error");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Line 22: resource 1: "));
+		}
+	}
+
+	@Test
+	public void testUnknownOffice() {
+		try {
+			process(FILE.replace("    office: 1\n", "    office: 2\n"));
+			fail("Expected an error");
+		} catch (IndexOutOfBoundsException e) {
+			assertTrue(company.getOffices().get(0).getProjectContainer().getProjects().isEmpty());
+		}
+	}
+
+	@Test
+	public void testErrorLine() {
+		try {
+			process(FILE.replace("estimatedDuration: 30", "estimatedDuration: 3.5"));
+			fail("Expected an error");
+		} catch (RuntimeException e) {
+			assertEquals("Line 42: Integer expected", e.getMessage());
+		}
+		try {
+			process(FILE.replace("\"2014-02-01 18:00\"", "\"2014-02-31 18:00\""));
+			fail("Expected an error");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().startsWith("Line 37: "));
+		}
+	}
+
+	@Test
+	public void testTrailingInput() {
+		try {
+			process(FILE + "extra");
+			fail("Expected an error");
+		} catch (RuntimeException e) {
+			assertEquals("Line 65: End of file or '-' expected", e.getMessage());
+		}
+	}
+}
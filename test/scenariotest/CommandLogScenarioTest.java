@@ -0,0 +1,274 @@
+package scenariotest;
+
+import controller.CommandLog;
+import controller.HandlerFactory;
+import controller.RunSimulationHandler;
+import domain.BranchOffice;
+import domain.Company;
+import domain.Project;
+import domain.ProjectContainer;
+import domain.ResourceContainer;
+import domain.task.Task;
+import domain.time.Clock;
+import domain.user.Acl;
+import domain.user.Auth;
+import domain.user.Developer;
+import domain.user.GenericUser;
+import domain.user.Role;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This scenario test, tests the recovery of logged changes after a restart
+ *
+ * @author Frederic, Mathias, Pieter-Jan
+ */
+public class CommandLogScenarioTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2015, 3, 12, 8, 0);
+
+	private Path file;
+	private Company company;
+	private Clock clock;
+	private HandlerFactory factory;
+	private CommandLog log;
+	private Developer dev;
+
+	@Before
+	public void setUp() throws IOException {
+		file = Files.createTempFile("taskman", ".log");
+		open();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		log.close();
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Builds the initial state of the system and replays the log on top of it.
+	 */
+	private void open() throws IOException {
+		clock = new Clock(START);
+		company = new Company();
+		ResourceContainer rc = new ResourceContainer();
+		BranchOffice office = new BranchOffice("Leuven", new ProjectContainer(), rc);
+		company.addOffice(office);
+		office.addUser(new GenericUser("root", Role.ADMIN, office));
+		dev = new Developer("janssen", office);
+		office.addUser(dev);
+		rc.addResource(dev);
+
+		log = CommandLog.open(file, company, clock);
+
+		Acl acl = new Acl();
+		acl.addEntry(Role.ADMIN, Arrays.asList("CreateProject", "PlanTask", "RunSimulation", "CreateTask", "CreateTaskSimulator", "PlanTaskSimulator", "DelegateTask"));
+		Auth auth = new Auth(company);
+		auth.login("root");
+		factory = new HandlerFactory(company, auth, acl, clock, log);
+	}
+
+	private ProjectContainer getProjectContainer() {
+		return company.getOffices().get(0).getProjectContainer();
+	}
+
+	@Test
+	public void testRecoverScenario() throws IOException {
+		factory.getCreateProjectHandler().createProject("project", "logged", START, START.plusDays(5));
+		int pId = getProjectContainer().getProjects().get(0).getId();
+		factory.getCreateTaskHandler().createTask(pId, "task", 10, null, 60, -1, new HashMap<>());
+		int tId = getProjectContainer().getProject(pId).getTasks().get(0).getId();
+		factory.getPlanTaskHandler().planTask(pId, tId, START.plusHours(1), Arrays.asList(dev.getId()));
+		factory.getAdvanceSystemTimeHandler().advanceTime("2015-03-12 09:30");
+
+		RunSimulationHandler simulation = factory.getSimulationHandler();
+		simulation.createProject("simulated", "cancelled", START, START.plusDays(5));
+		simulation.cancelSimulation();
+		log.close();
+
+		open();
+		assertEquals(LocalDateTime.of(2015, 3, 12, 9, 30), clock.getTime());
+		assertEquals(1, getProjectContainer().getNbProjects());
+		Project project = getProjectContainer().getProjects().get(0);
+		assertEquals("project", project.getName());
+		Task task = project.getTasks().get(0);
+		assertEquals("task", task.getDescription());
+		assertNotNull(task.getPlanning());
+		assertEquals(START.plusHours(1), task.getPlanning().getTimespan().getStartTime());
+	}
+
+	@Test
+	public void testTornRecordScenario() throws IOException {
+		factory.getCreateProjectHandler().createProject("project", "logged", START, START.plusDays(5));
+		log.close();
+		long size = Files.size(file);
+		Files.write(file, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+		open();
+		assertEquals(1, getProjectContainer().getNbProjects());
+		assertEquals(size, Files.size(file));
+
+		factory.getCreateProjectHandler().createProject("second", "logged", START, START.plusDays(5));
+		log.close();
+		open();
+		assertEquals(2, getProjectContainer().getNbProjects());
+		assertTrue(Files.size(file) > size);
+	}
+
+	@Test
+	public void testDamagedRecordScenario() throws IOException {
+		factory.getCreateProjectHandler().createProject("project", "logged", START, START.plusDays(5));
+		factory.getCreateProjectHandler().createProject("second", "logged", START, START.plusDays(5));
+		log.close();
+		long size = Files.size(file);
+		byte[] bytes = Files.readAllBytes(file);
+		// a byte in the payload of the first project, after the checkpoint
+		bytes[25 + 4 + 10] ^= 1;
+		Files.write(file, bytes);
+
+		try {
+			open();
+			fail("The first project is damaged, but the second one follows it.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertEquals(size, Files.size(file));
+	}
+
+	@Test
+	public void testZeroTailScenario() throws IOException {
+		factory.getCreateProjectHandler().createProject("project", "logged", START, START.plusDays(5));
+		log.close();
+		long size = Files.size(file);
+		Files.write(file, new byte[64], StandardOpenOption.APPEND);
+
+		open();
+		assertEquals(1, getProjectContainer().getNbProjects());
+		assertEquals(size, Files.size(file));
+	}
+
+	@Test
+	public void testInterleavedSimulationsScenario() throws IOException {
+		factory.getCreateProjectHandler().createProject("project", "logged", START, START.plusDays(5));
+		int pId = getProjectContainer().getProjects().get(0).getId();
+		RunSimulationHandler kept = factory.getSimulationHandler();
+		RunSimulationHandler cancelled = factory.getSimulationHandler();
+		kept.getCreateTaskSimulatorHandler().createTask(pId, "kept", 10, null, 60, -1, new HashMap<>());
+		cancelled.getCreateTaskSimulatorHandler().createTask(pId, "cancelled", 10, null, 60, -1, new HashMap<>());
+		kept.createProject("simulated", "kept", START, START.plusDays(5));
+		cancelled.cancelSimulation();
+		kept.carryOutSimulation();
+		log.close();
+
+		open();
+		assertEquals(2, getProjectContainer().getNbProjects());
+		Project project = getProjectContainer().getProjects().get(0);
+		assertEquals("project", project.getName());
+		assertEquals(1, project.getTasks().size());
+		assertEquals("kept", project.getTasks().get(0).getDescription());
+	}
+
+	@Test
+	public void testRestartWithRunningSimulationsScenario() throws IOException {
+		factory.getCreateProjectHandler().createProject("first", "logged", START, START.plusDays(5));
+		factory.getSimulationHandler().createProject("simulated", "never ended", START, START.plusDays(5));
+		log.close();
+
+		open();
+		assertEquals(1, getProjectContainer().getNbProjects());
+		assertTrue(log.canCheckpoint());
+		factory.getCreateProjectHandler().createProject("second", "logged", START, START.plusDays(5));
+		int pId = getProject("second").getId();
+		factory.getCreateTaskHandler().createTask(pId, "live", 10, null, 60, -1, new HashMap<>());
+		factory.getSimulationHandler().getCreateTaskSimulatorHandler().createTask(pId, "simulated", 10, null, 60, -1, new HashMap<>());
+		log.close();
+
+		open();
+		assertEquals(2, getProjectContainer().getNbProjects());
+		assertEquals(1, getProject("second").getTasks().size());
+		factory.getCreateProjectHandler().createProject("third", "logged", START, START.plusDays(5));
+		pId = getProject("third").getId();
+		RunSimulationHandler kept = factory.getSimulationHandler();
+		kept.getCreateTaskSimulatorHandler().createTask(pId, "kept", 10, null, 60, -1, new HashMap<>());
+		kept.carryOutSimulation();
+		factory.getSimulationHandler().createProject("simulated", "never ended", START, START.plusDays(5));
+		log.close();
+
+		open();
+		assertEquals(3, getProjectContainer().getNbProjects());
+		assertEquals("live", getProject("second").getTasks().get(0).getDescription());
+		assertEquals(1, getProject("second").getTasks().size());
+		assertEquals("kept", getProject("third").getTasks().get(0).getDescription());
+		assertTrue(log.canCheckpoint());
+	}
+
+	@Test
+	public void testWrittenBeforeReturnScenario() throws IOException {
+		long size = Files.size(file);
+		factory.getCreateProjectHandler().createProject("project", "logged", START, START.plusDays(5));
+		assertTrue(Files.size(file) > size);
+	}
+
+	@Test
+	public void testUnloggedChangeUndoneScenario() throws IOException {
+		factory.getCreateProjectHandler().createProject("project", "logged", START, START.plusDays(5));
+		int pId = getProjectContainer().getProjects().get(0).getId();
+		log.close();
+
+		try {
+			factory.getCreateTaskHandler().createTask(pId, "task", 10, null, 60, -1, new HashMap<>());
+			fail("The log is closed.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertTrue(getProjectContainer().getProject(pId).getTasks().isEmpty());
+		assertTrue(getProjectContainer().getProject(pId).getAvailableTasks().isEmpty());
+	}
+
+	@Test
+	public void testUnloggedDelegationUndoneScenario() throws IOException {
+		BranchOffice other = new BranchOffice("Brussel");
+		company.addOffice(other);
+		factory.getCreateProjectHandler().createProject("project", "logged", START, START.plusDays(5));
+		int pId = getProjectContainer().getProjects().get(0).getId();
+		factory.getCreateTaskHandler().createTask(pId, "task", 10, null, 60, -1, new HashMap<>());
+		Task task = getProjectContainer().getProject(pId).getTasks().get(0);
+		log.close();
+
+		try {
+			factory.getDelegatedTaskHandler().delegateTask(pId, task.getId(), 1);
+			fail("The log is closed.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		assertFalse(task.isDelegated());
+		assertTrue(other.getAssignedTasks().isEmpty());
+		assertEquals(1, company.getOffices().get(0).getAssignedUnplannedTasks().size());
+	}
+
+	private Project getProject(String name) {
+		for (Project project : getProjectContainer().getProjects()) {
+			if (project.getName().equals(name)) {
+				return project;
+			}
+		}
+		throw new AssertionError("No project named " + name + ".");
+	}
+}
@@ -25,7 +25,10 @@ import java.util.HashMap;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -48,6 +51,7 @@ public class SimulatorScenarioTest {
     private static Clock clock;
     private static Acl acl;
     private static Auth auth;
+    private static HandlerFactory controller;
 
     @Before
     public void setUp() {
@@ -70,7 +74,7 @@ public class SimulatorScenarioTest {
         manager.addUser(new GenericUser("root", Role.ADMIN, manager));
         acl.addEntry(Role.ADMIN, Arrays.asList("UpdateTaskStatus", "CreateProject", "PlanTask", "RunSimulation", "CreateTask", "CreateTaskSimulator", "PlanTaskSimulator", "updateTaskStatus"));
         auth.login("root");
-		HandlerFactory controller = new HandlerFactory(db, auth, acl, clock);
+		controller = new HandlerFactory(db, auth, acl, clock);
         simHandler = controller.getSimulationHandler();
         createTaskSimHandler  = simHandler.getCreateTaskSimulatorHandler();
     }
@@ -131,4 +135,80 @@ public class SimulatorScenarioTest {
         }
         assertTrue(!foundTask);
     }
+
+    @Test
+    public void testCancelAfterCarryOutScenario() {
+        clock.advanceTime(LocalDateTime.of(2015, 03, 16, 17, 30));
+        t2.fail(new Timespan(LocalDateTime.of(2015, 03, 12, 17, 30), LocalDateTime.of(2015, 03, 16, 17, 30)), clock.getTime());
+        
+        createTaskSimHandler.createTask(p1.getId(), "Fun task", 50, Arrays.asList(t1.getId()), 20, t2.getId(), new HashMap<>());
+        simHandler.carryOutSimulation();
+        simHandler.cancelSimulation();
+        
+        assertEquals(3, pc.getProject(p1.getId()).getTasks().size());
+        assertEquals("Fun task", t2.getAlternativeTask().getDescription());
+    }
+
+    @Test
+    public void testSimulationIsIsolatedScenario() {
+        clock.advanceTime(LocalDateTime.of(2015, 03, 16, 17, 30));
+        t2.fail(new Timespan(LocalDateTime.of(2015, 03, 12, 17, 30), LocalDateTime.of(2015, 03, 16, 17, 30)), clock.getTime());
+        
+        createTaskSimHandler.createTask(p1.getId(), "Fun task", 50, Arrays.asList(t1.getId()), 20, t2.getId(), new HashMap<>());
+        
+        // the live system doesn't see the simulation
+        assertEquals(2, pc.getProject(p1.getId()).getTasks().size());
+        assertNull(t2.getAlternativeTask());
+        assertTrue(t1.getDependentTasks().isEmpty());
+        // the simulation does
+        assertEquals(3, createTaskSimHandler.getTasksByProject(p1.getId()).size());
+        
+        simHandler.carryOutSimulation();
+        assertEquals(3, pc.getProject(p1.getId()).getTasks().size());
+        assertEquals(1, t1.getDependentTasks().size());
+    }
+
+    @Test
+    public void testConcurrentSimulationsScenario() throws InterruptedException {
+        RunSimulationHandler other = controller.getSimulationHandler();
+        Thread first = new Thread(() -> createTaskSimHandler.createTask(p1.getId(), "First task", 50, Arrays.asList(t1.getId()), 20, -1, new HashMap<>()));
+        Thread second = new Thread(() -> other.getCreateTaskSimulatorHandler().createTask(p1.getId(), "Second task", 50, Arrays.asList(t1.getId()), 20, -1, new HashMap<>()));
+        first.start();
+        second.start();
+        first.join();
+        second.join();
+        
+        assertEquals(2, pc.getProject(p1.getId()).getTasks().size());
+        assertEquals(3, createTaskSimHandler.getTasksByProject(p1.getId()).size());
+        assertEquals(3, other.getCreateTaskSimulatorHandler().getTasksByProject(p1.getId()).size());
+        
+        simHandler.carryOutSimulation();
+        other.cancelSimulation();
+        
+        List<Task> tasks = pc.getProject(p1.getId()).getTasks();
+        assertEquals(3, tasks.size());
+        assertEquals("First task", tasks.get(2).getDescription());
+        assertEquals(1, t1.getDependentTasks().size());
+    }
+
+    @Test
+    public void testCarryOutAfterConflictScenario() {
+        clock.advanceTime(LocalDateTime.of(2015, 03, 16, 17, 30));
+        t2.fail(new Timespan(LocalDateTime.of(2015, 03, 12, 17, 30), LocalDateTime.of(2015, 03, 16, 17, 30)), clock.getTime());
+        RunSimulationHandler other = controller.getSimulationHandler();
+        
+        createTaskSimHandler.createTask(p1.getId(), "Fun task", 50, Project.NO_DEPENDENCIES, 20, t2.getId(), new HashMap<>());
+        other.getCreateTaskSimulatorHandler().createTask(p1.getId(), "Other task", 50, Project.NO_DEPENDENCIES, 20, t2.getId(), new HashMap<>());
+        other.carryOutSimulation();
+        
+        try {
+            simHandler.carryOutSimulation();
+            fail("Both simulations gave the same task an alternative.");
+        } catch (IllegalStateException e) {
+            simHandler.cancelSimulation();
+        }
+        assertEquals(3, pc.getProject(p1.getId()).getTasks().size());
+        assertEquals("Other task", t2.getAlternativeTask().getDescription());
+        assertFalse(pc.getProject(p1.getId()).getTasks().stream().anyMatch(t -> t.getDescription().equals("Fun task")));
+    }
 }
@@ -0,0 +1,215 @@
+package scenariotest;
+
+import controller.CommandLog;
+import controller.HandlerFactory;
+import domain.BranchOffice;
+import domain.Company;
+import domain.Project;
+import domain.ProjectContainer;
+import domain.Resource;
+import domain.ResourceContainer;
+import domain.ResourceType;
+import domain.task.Finished;
+import domain.task.Task;
+import domain.time.Clock;
+import domain.time.Timespan;
+import domain.time.WorkWeekConfiguration;
+import domain.user.Acl;
+import domain.user.Auth;
+import domain.user.Developer;
+import domain.user.GenericUser;
+import domain.user.Role;
+import init.Snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This scenario test, tests saving the system to a snapshot and loading it
+ * again
+ *
+ * @author Frederic, Mathias, Pieter-Jan
+ */
+public class SnapshotScenarioTest {
+
+	private static final LocalDateTime START = LocalDateTime.of(2015, 3, 12, 8, 0);
+
+	private Path snapshot, file;
+	private Company company;
+	private Clock clock;
+	private HandlerFactory factory;
+	private CommandLog log;
+	private Developer dev;
+
+	@Before
+	public void setUp() throws IOException {
+		snapshot = Files.createTempFile("taskman", ".snapshot");
+		file = Files.createTempFile("taskman", ".log");
+
+		clock = new Clock(START);
+		company = new Company();
+		ResourceContainer rc = new ResourceContainer();
+		BranchOffice office = new BranchOffice("Leuven", new ProjectContainer(), rc);
+		company.addOffice(office);
+		office.addUser(new GenericUser("root", Role.ADMIN, office));
+		dev = new Developer("janssen", office);
+		office.addUser(dev);
+		rc.addResource(dev);
+
+		log = CommandLog.open(file, company, clock);
+		factory = createFactory();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		log.close();
+		Files.deleteIfExists(snapshot);
+		Files.deleteIfExists(file);
+	}
+
+	private HandlerFactory createFactory() {
+		Acl acl = new Acl();
+		acl.addEntry(Role.ADMIN, Arrays.asList("CreateProject", "PlanTask", "RunSimulation", "CreateTask", "CreateTaskSimulator", "PlanTaskSimulator"));
+		Auth auth = new Auth(company);
+		auth.login("root");
+		return new HandlerFactory(company, auth, acl, clock, log);
+	}
+
+	private ProjectContainer getProjectContainer() {
+		return company.getOffices().get(0).getProjectContainer();
+	}
+
+	@Test
+	public void testSnapshotScenario() throws IOException {
+		factory.getCreateProjectHandler().createProject("project", "saved", START, START.plusDays(5));
+		int pId = getProjectContainer().getProjects().get(0).getId();
+		factory.getCreateTaskHandler().createTask(pId, "first", 10, null, 60, -1, new HashMap<>());
+		int tId = getProjectContainer().getProject(pId).getTasks().get(0).getId();
+		factory.getCreateTaskHandler().createTask(pId, "second", 10, Arrays.asList(tId), 30, -1, new HashMap<>());
+		factory.getPlanTaskHandler().planTask(pId, tId, START.plusHours(1), Arrays.asList(dev.getId()));
+		factory.getAdvanceSystemTimeHandler().advanceTime("2015-03-12 09:30");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Snapshot.write(out, company, clock, 3);
+
+		company = new Company();
+		clock = new Clock();
+		assertEquals(3, Snapshot.read(new ByteArrayInputStream(out.toByteArray()), company, clock));
+
+		assertEquals(LocalDateTime.of(2015, 3, 12, 9, 30), clock.getTime());
+		assertEquals(1, company.getOffices().size());
+		BranchOffice office = company.getOffices().get(0);
+		assertEquals("Leuven", office.getLocation());
+		assertEquals(2, office.getUsers().size());
+		assertTrue(office.getUsers().get(1) instanceof Developer);
+
+		assertEquals(1, getProjectContainer().getNbProjects());
+		Project project = getProjectContainer().getProjects().get(0);
+		assertEquals("project", project.getName());
+		assertEquals(START.plusDays(5), project.getDueTime());
+		assertEquals(2, project.getTasks().size());
+		Task first = project.getTasks().get(0);
+		Task second = project.getTasks().get(1);
+		assertEquals("first", first.getDescription());
+		assertEquals(Arrays.asList(first), second.getPrerequisiteTasks());
+		assertNotNull(first.getPlanning());
+		assertEquals(START.plusHours(1), first.getPlanning().getTimespan().getStartTime());
+
+		Resource loaded = office.getResourceContainer().getResources().iterator().next();
+		assertTrue(loaded == office.getUsers().get(1));
+		assertEquals(1, loaded.getReservations().size());
+		assertTrue(loaded.getReservations().iterator().next().getTask() == first);
+	}
+
+	@Test
+	public void testAvailabilityScenario() throws IOException {
+		company.addResourceType(new ResourceType("car"));
+		company.addResourceType(new ResourceType("board", new ArrayList<>(), new ArrayList<>(),
+				WorkWeekConfiguration.of(LocalTime.of(12, 0), LocalTime.of(17, 0))));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Snapshot.write(out, company, clock, 1);
+
+		company = new Company();
+		Snapshot.read(new ByteArrayInputStream(out.toByteArray()), company, new Clock());
+
+		assertTrue(company.getResourceTypes().get(0).getAvailability() == WorkWeekConfiguration.ALWAYS);
+		assertEquals(LocalTime.of(17, 0), company.getResourceTypes().get(1).getAvailability().getEndWorkDay());
+	}
+
+	@Test
+	public void testFinishedTaskScenario() throws IOException {
+		factory.getCreateProjectHandler().createProject("project", "saved", START, START.plusDays(5));
+		Project project = getProjectContainer().getProjects().get(0);
+		factory.getCreateTaskHandler().createTask(project.getId(), "first", 10, null, 60, -1, new HashMap<>());
+		factory.getCreateTaskHandler().createTask(project.getId(), "second", 10, null, 30, -1, new HashMap<>());
+		Task first = project.getTasks().get(0);
+		factory.getPlanTaskHandler().planTask(project.getId(), first.getId(), START.plusHours(1), Arrays.asList(dev.getId()));
+		factory.getAdvanceSystemTimeHandler().advanceTime("2015-03-12 09:00");
+		first.execute(clock);
+		first.finish(new Timespan(START.plusHours(1), START.plusHours(2)), START.plusHours(2));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Snapshot.write(out, company, clock, 1);
+
+		company = new Company();
+		clock = new Clock();
+		Snapshot.read(new ByteArrayInputStream(out.toByteArray()), company, clock);
+
+		project = getProjectContainer().getProjects().get(0);
+		assertEquals(2, project.getTasks().size());
+		assertTrue(project.getTasks().get(0).getStatus() instanceof Finished);
+		assertFalse(project.getTasks().get(1).isFinished());
+		assertFalse(project.isFinished());
+	}
+
+	@Test
+	public void testCheckpointScenario() throws IOException {
+		factory.getCreateProjectHandler().createProject("project", "saved", START, START.plusDays(5));
+		assertTrue(log.canCheckpoint());
+		log.sync();
+		Snapshot.save(snapshot, company, clock, 1);
+		log.checkpoint(1);
+		factory.getCreateProjectHandler().createProject("second", "logged", START, START.plusDays(5));
+		log.close();
+
+		company = new Company();
+		clock = new Clock();
+		long generation = Snapshot.load(snapshot, company, clock);
+		assertEquals(1, generation);
+		assertEquals(1, getProjectContainer().getNbProjects());
+		log = CommandLog.open(file, company, clock, generation);
+		assertEquals(2, getProjectContainer().getNbProjects());
+		log.close();
+
+		// the log is part of a newer snapshot
+		company = new Company();
+		clock = new Clock();
+		Snapshot.load(snapshot, company, clock);
+		log = CommandLog.open(file, company, clock, 2);
+		assertEquals(1, getProjectContainer().getNbProjects());
+	}
+
+	@Test
+	public void testNoCheckpointDuringSimulationScenario() throws IOException {
+		factory.getSimulationHandler();
+		assertFalse(log.canCheckpoint());
+	}
+}